@@ -0,0 +1,45 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+
+import java.util.List;
+
+//The DTO for one problem found by the booking audit (see BookingAuditService)
+public class BookingAuditIssue {
+    public enum Type {
+        //two pending/accepted bookings on the same listing have overlapping dates (bookingIds and their dateRanges)
+        OVERLAPPING_BOOKINGS,
+        //a pending/accepted booking has dates that are also available on the listing (bookingIds, booking dates and available range)
+        BOOKING_DATES_AVAILABLE,
+        //two available date ranges on the listing touch or overlap and should have been merged (dateRanges)
+        UNMERGED_AVAILABLE_RANGES
+    }
+
+    private Type type;
+    private String listingId;
+    private List<String> bookingIds;
+    private List<DateRange> dateRanges;
+
+    public BookingAuditIssue(Type type, String listingId, List<String> bookingIds, List<DateRange> dateRanges) {
+        this.type = type;
+        this.listingId = listingId;
+        this.bookingIds = bookingIds;
+        this.dateRanges = dateRanges;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public List<String> getBookingIds() {
+        return bookingIds;
+    }
+
+    public List<DateRange> getDateRanges() {
+        return dateRanges;
+    }
+}
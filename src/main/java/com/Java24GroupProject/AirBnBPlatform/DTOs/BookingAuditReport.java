@@ -0,0 +1,61 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+//The DTO for the result of the booking audit, finishedAt is null while the audit is running
+public class BookingAuditReport {
+    private boolean running;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private long listingsChecked;
+    private long bookingsChecked;
+    private long issueCount;
+    //only the first issues are kept, issueCount is the total
+    private List<BookingAuditIssue> issues;
+    private String error;
+
+    public BookingAuditReport(boolean running, LocalDateTime startedAt, LocalDateTime finishedAt, long listingsChecked, long bookingsChecked,
+                              long issueCount, List<BookingAuditIssue> issues, String error) {
+        this.running = running;
+        this.startedAt = startedAt;
+        this.finishedAt = finishedAt;
+        this.listingsChecked = listingsChecked;
+        this.bookingsChecked = bookingsChecked;
+        this.issueCount = issueCount;
+        this.issues = issues;
+        this.error = error;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public LocalDateTime getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getListingsChecked() {
+        return listingsChecked;
+    }
+
+    public long getBookingsChecked() {
+        return bookingsChecked;
+    }
+
+    public long getIssueCount() {
+        return issueCount;
+    }
+
+    public List<BookingAuditIssue> getIssues() {
+        return issues;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
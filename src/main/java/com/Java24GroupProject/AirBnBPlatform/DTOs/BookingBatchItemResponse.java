@@ -0,0 +1,39 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for the result of one booking in a batch, index is the position of the booking in the request.
+//booking is set if the booking was made, otherwise error says why it was not
+public class BookingBatchItemResponse {
+    private int index;
+    private String listingId;
+    private boolean success;
+    private BookingResponse booking;
+    private String error;
+
+    public BookingBatchItemResponse(int index, String listingId, BookingResponse booking, String error) {
+        this.index = index;
+        this.listingId = listingId;
+        this.success = booking != null;
+        this.booking = booking;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public BookingResponse getBooking() {
+        return booking;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,35 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+//The DTO for booking several listings/stays at once. If atomic is true (default) either all bookings are made or none
+public class BookingBatchRequest {
+    @NotNull(message = "bookings is a required field")
+    @NotEmpty(message = "bookings cannot be empty")
+    private List<@Valid BookingRequest> bookings;
+
+    private boolean atomic = true;
+
+    public BookingBatchRequest() {
+    }
+
+    public List<BookingRequest> getBookings() {
+        return bookings;
+    }
+
+    public void setBookings(List<BookingRequest> bookings) {
+        this.bookings = bookings;
+    }
+
+    public boolean isAtomic() {
+        return atomic;
+    }
+
+    public void setAtomic(boolean atomic) {
+        this.atomic = atomic;
+    }
+}
@@ -0,0 +1,32 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+//The DTO for accepting (accept = true) or rejecting (accept = false) one pending booking, used in BookingDecisionRequest
+public class BookingDecision {
+    @NotBlank(message = "bookingId is a required field")
+    private String bookingId;
+
+    @NotNull(message = "accept is a required field")
+    private Boolean accept;
+
+    public BookingDecision() {
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(String bookingId) {
+        this.bookingId = bookingId;
+    }
+
+    public Boolean getAccept() {
+        return accept;
+    }
+
+    public void setAccept(Boolean accept) {
+        this.accept = accept;
+    }
+}
@@ -0,0 +1,25 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+//The DTO for accepting/rejecting several pending bookings at once (PATCH /bookings/decisions)
+public class BookingDecisionRequest {
+    @NotNull(message = "decisions is a required field")
+    @NotEmpty(message = "decisions cannot be empty")
+    private List<@Valid BookingDecision> decisions;
+
+    public BookingDecisionRequest() {
+    }
+
+    public List<BookingDecision> getDecisions() {
+        return decisions;
+    }
+
+    public void setDecisions(List<BookingDecision> decisions) {
+        this.decisions = decisions;
+    }
+}
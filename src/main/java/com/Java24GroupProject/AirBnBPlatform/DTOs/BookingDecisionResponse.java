@@ -0,0 +1,39 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for the result of one decision in PATCH /bookings/decisions, index is the position of the decision in the request.
+//booking is set if the booking was accepted/rejected, otherwise error says why it was not
+public class BookingDecisionResponse {
+    private int index;
+    private String bookingId;
+    private boolean success;
+    private BookingResponse booking;
+    private String error;
+
+    public BookingDecisionResponse(int index, String bookingId, BookingResponse booking, String error) {
+        this.index = index;
+        this.bookingId = bookingId;
+        this.success = booking != null;
+        this.booking = booking;
+        this.error = error;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public BookingResponse getBooking() {
+        return booking;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
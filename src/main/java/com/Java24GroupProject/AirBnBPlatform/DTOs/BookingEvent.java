@@ -0,0 +1,36 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for a booking change sent to hosts on GET /bookings/stream, booking is null for deleted and expired bookings
+public class BookingEvent {
+    public enum Type {
+        CREATED, UPDATED, ACCEPTED, REJECTED, DELETED, EXPIRED
+    }
+
+    private Type type;
+    private String bookingId;
+    private String listingId;
+    private BookingResponse booking;
+
+    public BookingEvent(Type type, String bookingId, String listingId, BookingResponse booking) {
+        this.type = type;
+        this.bookingId = bookingId;
+        this.listingId = listingId;
+        this.booking = booking;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public BookingResponse getBooking() {
+        return booking;
+    }
+}
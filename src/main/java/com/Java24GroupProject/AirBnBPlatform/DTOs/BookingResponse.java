@@ -1,10 +1,13 @@
 package com.Java24GroupProject.AirBnBPlatform.DTOs;
 
+import com.Java24GroupProject.AirBnBPlatform.config.SparseFieldsetConfiguration;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.IdAndName;
+import com.fasterxml.jackson.annotation.JsonFilter;
 
 import java.math.BigDecimal;
 
+@JsonFilter(SparseFieldsetConfiguration.FILTER_ID)
 public class BookingResponse {
     private String id;
     private IdAndName listing;
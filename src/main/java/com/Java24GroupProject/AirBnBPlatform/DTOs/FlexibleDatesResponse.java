@@ -0,0 +1,38 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+//The DTO for one listing in a flexible dates search. windowCount is the number of possible stays (start dates) in the
+//search range, windows has the earliest stay or all of them, lowestTotalPrice is the price of the cheapest stay
+public class FlexibleDatesResponse {
+    private ListingSummaryResponse listing;
+    private int windowCount;
+    private List<DateRange> windows;
+    private BigDecimal lowestTotalPrice;
+
+    public FlexibleDatesResponse(ListingSummaryResponse listing, int windowCount, List<DateRange> windows, BigDecimal lowestTotalPrice) {
+        this.listing = listing;
+        this.windowCount = windowCount;
+        this.windows = windows;
+        this.lowestTotalPrice = lowestTotalPrice;
+    }
+
+    public ListingSummaryResponse getListing() {
+        return listing;
+    }
+
+    public int getWindowCount() {
+        return windowCount;
+    }
+
+    public List<DateRange> getWindows() {
+        return windows;
+    }
+
+    public BigDecimal getLowestTotalPrice() {
+        return lowestTotalPrice;
+    }
+}
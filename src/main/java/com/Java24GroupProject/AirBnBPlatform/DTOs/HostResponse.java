@@ -1,22 +1,33 @@
 package com.Java24GroupProject.AirBnBPlatform.DTOs;
 
+import com.Java24GroupProject.AirBnBPlatform.config.SparseFieldsetConfiguration;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.IdAndName;
+import com.fasterxml.jackson.annotation.JsonFilter;
 
 import java.util.List;
 
+@JsonFilter(SparseFieldsetConfiguration.FILTER_ID)
 public class HostResponse {
         private String id;
         private String username;
         private String profilePictureURL;
         private String description;
         private List<IdAndName> listings;
+        //over all reviews on the listings of the host, null if there are no reviews
+        private Double averageRating;
+        private long reviewCount;
+        private boolean superhost;
 
-    public HostResponse(String id, String username, String profilePictureURL, String description, List<IdAndName> listings) {
+    public HostResponse(String id, String username, String profilePictureURL, String description, List<IdAndName> listings,
+                        Double averageRating, long reviewCount, boolean superhost) {
         this.id = id;
         this.username = username;
         this.profilePictureURL = profilePictureURL;
         this.description = description;
         this.listings = listings;
+        this.averageRating = averageRating;
+        this.reviewCount = reviewCount;
+        this.superhost = superhost;
     }
 
     public String getId() {
@@ -38,4 +49,16 @@ public class HostResponse {
     public List<IdAndName> getListings() {
         return listings;
     }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    public boolean isSuperhost() {
+        return superhost;
+    }
 }
@@ -0,0 +1,26 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for one listing in a batch fetch, found is false (and listing null) if there is no listing with the id
+public class ListingBatchItem {
+    private String id;
+    private boolean found;
+    private ListingResponse listing;
+
+    public ListingBatchItem(String id, ListingResponse listing) {
+        this.id = id;
+        this.found = listing != null;
+        this.listing = listing;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public ListingResponse getListing() {
+        return listing;
+    }
+}
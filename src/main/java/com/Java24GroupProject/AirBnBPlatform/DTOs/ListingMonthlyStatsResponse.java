@@ -0,0 +1,53 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import java.math.BigDecimal;
+
+//The DTO for the booked nights, bookings, revenue and occupancy of one listing in one month (yyyy-MM)
+public class ListingMonthlyStatsResponse {
+    private String listingId;
+    private String month;
+    private long bookedNights;
+    private long acceptedBookings;
+    private long rejectedBookings;
+    private BigDecimal revenue;
+    //booked nights / nights in the month
+    private double occupancyRate;
+
+    public ListingMonthlyStatsResponse(String listingId, String month, long bookedNights, long acceptedBookings, long rejectedBookings, BigDecimal revenue, double occupancyRate) {
+        this.listingId = listingId;
+        this.month = month;
+        this.bookedNights = bookedNights;
+        this.acceptedBookings = acceptedBookings;
+        this.rejectedBookings = rejectedBookings;
+        this.revenue = revenue;
+        this.occupancyRate = occupancyRate;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public long getBookedNights() {
+        return bookedNights;
+    }
+
+    public long getAcceptedBookings() {
+        return acceptedBookings;
+    }
+
+    public long getRejectedBookings() {
+        return rejectedBookings;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public double getOccupancyRate() {
+        return occupancyRate;
+    }
+}
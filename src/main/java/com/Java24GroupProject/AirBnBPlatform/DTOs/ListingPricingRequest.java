@@ -0,0 +1,60 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.PriceOverride;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Positive;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+//The DTO for setting the dynamic pricing of a listing, all fields are optional (null = not used)
+public class ListingPricingRequest {
+    @Positive(message = "weekendPricePerNight must be greater than zero")
+    private BigDecimal weekendPricePerNight;
+
+    private List<PriceOverride> priceOverrides;
+
+    @Min(value = 0, message = "weeklyDiscountPercent must be between 0 and 100")
+    @Max(value = 100, message = "weeklyDiscountPercent must be between 0 and 100")
+    private Integer weeklyDiscountPercent;
+
+    @Min(value = 0, message = "monthlyDiscountPercent must be between 0 and 100")
+    @Max(value = 100, message = "monthlyDiscountPercent must be between 0 and 100")
+    private Integer monthlyDiscountPercent;
+
+    public ListingPricingRequest() {
+    }
+
+    public BigDecimal getWeekendPricePerNight() {
+        return weekendPricePerNight;
+    }
+
+    public void setWeekendPricePerNight(BigDecimal weekendPricePerNight) {
+        this.weekendPricePerNight = weekendPricePerNight;
+    }
+
+    public List<PriceOverride> getPriceOverrides() {
+        return priceOverrides;
+    }
+
+    public void setPriceOverrides(List<PriceOverride> priceOverrides) {
+        this.priceOverrides = priceOverrides;
+    }
+
+    public Integer getWeeklyDiscountPercent() {
+        return weeklyDiscountPercent;
+    }
+
+    public void setWeeklyDiscountPercent(Integer weeklyDiscountPercent) {
+        this.weeklyDiscountPercent = weeklyDiscountPercent;
+    }
+
+    public Integer getMonthlyDiscountPercent() {
+        return monthlyDiscountPercent;
+    }
+
+    public void setMonthlyDiscountPercent(Integer monthlyDiscountPercent) {
+        this.monthlyDiscountPercent = monthlyDiscountPercent;
+    }
+}
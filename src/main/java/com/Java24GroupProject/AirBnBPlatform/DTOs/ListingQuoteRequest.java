@@ -0,0 +1,61 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+//The DTO for asking for availability and total price of a stay on several listings
+public class ListingQuoteRequest {
+    @NotNull(message = "listingIds is a required field")
+    @NotEmpty(message = "listingIds cannot be empty")
+    @Size(max = 100, message = "cannot quote more than 100 listings at once")
+    private List<String> listingIds;
+
+    @NotNull(message = "startDate is a required field")
+    private String startDate;
+
+    @NotNull(message = "endDate is a required field")
+    private String endDate;
+
+    @NotNull(message = "numberOfGuests is a required field")
+    @Positive(message = "numberOfGuests must be greater than 0")
+    private Integer numberOfGuests;
+
+    public ListingQuoteRequest() {
+    }
+
+    public List<String> getListingIds() {
+        return listingIds;
+    }
+
+    public void setListingIds(List<String> listingIds) {
+        this.listingIds = listingIds;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+    }
+
+    public String getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
+    }
+
+    public Integer getNumberOfGuests() {
+        return numberOfGuests;
+    }
+
+    public void setNumberOfGuests(Integer numberOfGuests) {
+        this.numberOfGuests = numberOfGuests;
+    }
+}
@@ -0,0 +1,40 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import java.math.BigDecimal;
+
+//The DTO for the availability and total price of a stay on one listing, found is false (and the rest null) for unknown listing ids
+public class ListingQuoteResponse {
+    private String listingId;
+    private boolean found;
+    private Boolean available;
+    private Boolean fitsGuests;
+    private BigDecimal totalPrice;
+
+    public ListingQuoteResponse(String listingId, boolean found, Boolean available, Boolean fitsGuests, BigDecimal totalPrice) {
+        this.listingId = listingId;
+        this.found = found;
+        this.available = available;
+        this.fitsGuests = fitsGuests;
+        this.totalPrice = totalPrice;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public boolean isFound() {
+        return found;
+    }
+
+    public Boolean getAvailable() {
+        return available;
+    }
+
+    public Boolean getFitsGuests() {
+        return fitsGuests;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+}
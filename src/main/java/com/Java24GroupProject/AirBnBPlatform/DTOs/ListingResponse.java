@@ -1,8 +1,11 @@
 package com.Java24GroupProject.AirBnBPlatform.DTOs;
 
+import com.Java24GroupProject.AirBnBPlatform.config.SparseFieldsetConfiguration;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.IdAndName;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.PriceOverride;
+import com.fasterxml.jackson.annotation.JsonFilter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -10,12 +13,17 @@ import java.util.List;
 import java.util.Set;
 
 //The DTO for returning information at successful listing creation
+@JsonFilter(SparseFieldsetConfiguration.FILTER_ID)
 public class ListingResponse {
     private String id;
     private String title;
     private IdAndName host;
     private String description;
     private BigDecimal pricePerNight;
+    private BigDecimal weekendPricePerNight;
+    private List<PriceOverride> priceOverrides;
+    private Integer weeklyDiscountPercent;
+    private Integer monthlyDiscountPercent;
     private Integer capacity;
     private Set<ListingUtilities> utilities;
     private List<DateRange> availableDates;
@@ -25,12 +33,16 @@ public class ListingResponse {
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
-    public ListingResponse(String id, String title, String hostId, String hostName, String description, BigDecimal pricePerNight, Integer capacity, Set<ListingUtilities> utilities, List<DateRange> availableDates, String location, List<String> imageUrls, double averageRating, LocalDateTime createdAt, LocalDateTime updatedAt) {
+    public ListingResponse(String id, String title, String hostId, String hostName, String description, BigDecimal pricePerNight, BigDecimal weekendPricePerNight, List<PriceOverride> priceOverrides, Integer weeklyDiscountPercent, Integer monthlyDiscountPercent, Integer capacity, Set<ListingUtilities> utilities, List<DateRange> availableDates, String location, List<String> imageUrls, double averageRating, LocalDateTime createdAt, LocalDateTime updatedAt) {
         this.id = id;
         this.title = title;
         this.host = new IdAndName(hostId, hostName);
         this.description = description;
         this.pricePerNight = pricePerNight;
+        this.weekendPricePerNight = weekendPricePerNight;
+        this.priceOverrides = priceOverrides;
+        this.weeklyDiscountPercent = weeklyDiscountPercent;
+        this.monthlyDiscountPercent = monthlyDiscountPercent;
         this.capacity = capacity;
         this.utilities = utilities;
         this.availableDates = availableDates;
@@ -61,6 +73,22 @@ public class ListingResponse {
         return pricePerNight;
     }
 
+    public BigDecimal getWeekendPricePerNight() {
+        return weekendPricePerNight;
+    }
+
+    public List<PriceOverride> getPriceOverrides() {
+        return priceOverrides;
+    }
+
+    public Integer getWeeklyDiscountPercent() {
+        return weeklyDiscountPercent;
+    }
+
+    public Integer getMonthlyDiscountPercent() {
+        return monthlyDiscountPercent;
+    }
+
     public Integer getCapacity() {
         return capacity;
     }
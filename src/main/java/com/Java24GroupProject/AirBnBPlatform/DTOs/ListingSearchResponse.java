@@ -0,0 +1,24 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingFacetCounts;
+
+import java.util.List;
+
+//The DTO for returning listing search results, facets is null if facets were not asked for
+public class ListingSearchResponse {
+    private List<ListingSummaryResponse> listings;
+    private ListingFacetCounts facets;
+
+    public ListingSearchResponse(List<ListingSummaryResponse> listings, ListingFacetCounts facets) {
+        this.listings = listings;
+        this.facets = facets;
+    }
+
+    public List<ListingSummaryResponse> getListings() {
+        return listings;
+    }
+
+    public ListingFacetCounts getFacets() {
+        return facets;
+    }
+}
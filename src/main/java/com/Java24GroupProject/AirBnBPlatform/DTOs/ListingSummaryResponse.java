@@ -0,0 +1,51 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import com.Java24GroupProject.AirBnBPlatform.config.SparseFieldsetConfiguration;
+import com.fasterxml.jackson.annotation.JsonFilter;
+
+import java.math.BigDecimal;
+
+//The DTO for returning listings in search results and listing pages, only has what is shown on a search result card
+//(the full ListingResponse is returned by GET /listings/{id})
+@JsonFilter(SparseFieldsetConfiguration.FILTER_ID)
+public class ListingSummaryResponse {
+    private String id;
+    private String title;
+    private BigDecimal pricePerNight;
+    private Double averageRating;
+    private String location;
+    private String thumbnailUrl;
+
+    public ListingSummaryResponse(String id, String title, BigDecimal pricePerNight, Double averageRating, String location, String thumbnailUrl) {
+        this.id = id;
+        this.title = title;
+        this.pricePerNight = pricePerNight;
+        this.averageRating = averageRating;
+        this.location = location;
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public BigDecimal getPricePerNight() {
+        return pricePerNight;
+    }
+
+    public Double getAverageRating() {
+        return averageRating;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+}
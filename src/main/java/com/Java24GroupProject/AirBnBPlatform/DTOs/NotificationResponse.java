@@ -0,0 +1,54 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.NotificationType;
+
+import java.time.LocalDateTime;
+
+//The DTO for a notification in the current user's feed
+public class NotificationResponse {
+    private String id;
+    private NotificationType type;
+    private String message;
+    private String listingId;
+    private String bookingId;
+    private boolean read;
+    private LocalDateTime createdAt;
+
+    public NotificationResponse(String id, NotificationType type, String message, String listingId, String bookingId, boolean read, LocalDateTime createdAt) {
+        this.id = id;
+        this.type = type;
+        this.message = message;
+        this.listingId = listingId;
+        this.bookingId = bookingId;
+        this.read = read;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,86 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for the state of the password hashing pool (see BoundedPasswordEncoder), counters are since the application started
+public class PasswordHashingStatus {
+    private int threads;
+    private int activeWorkers;
+    //hashes and verifications waiting for a worker, requests are rejected with 503 when the queue is full
+    private int queuedTasks;
+    private int queueCapacity;
+    private long hashes;
+    private long verifications;
+    private long rejectedTasks;
+    //requests that waited longer than password.hashTimeoutMs
+    private long timedOutTasks;
+    //time spent hashing/verifying by the workers, without the time in the queue
+    private double averageHashMs;
+    private double averageVerifyMs;
+    //time from submitting until the result was ready, queue included
+    private long lastWaitMs;
+    private long maxWaitMs;
+
+    public PasswordHashingStatus(int threads, int activeWorkers, int queuedTasks, int queueCapacity, long hashes, long verifications,
+                                 long rejectedTasks, long timedOutTasks, double averageHashMs, double averageVerifyMs,
+                                 long lastWaitMs, long maxWaitMs) {
+        this.threads = threads;
+        this.activeWorkers = activeWorkers;
+        this.queuedTasks = queuedTasks;
+        this.queueCapacity = queueCapacity;
+        this.hashes = hashes;
+        this.verifications = verifications;
+        this.rejectedTasks = rejectedTasks;
+        this.timedOutTasks = timedOutTasks;
+        this.averageHashMs = averageHashMs;
+        this.averageVerifyMs = averageVerifyMs;
+        this.lastWaitMs = lastWaitMs;
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    public int getQueuedTasks() {
+        return queuedTasks;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public long getHashes() {
+        return hashes;
+    }
+
+    public long getVerifications() {
+        return verifications;
+    }
+
+    public long getRejectedTasks() {
+        return rejectedTasks;
+    }
+
+    public long getTimedOutTasks() {
+        return timedOutTasks;
+    }
+
+    public double getAverageHashMs() {
+        return averageHashMs;
+    }
+
+    public double getAverageVerifyMs() {
+        return averageVerifyMs;
+    }
+
+    public long getLastWaitMs() {
+        return lastWaitMs;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs;
+    }
+}
@@ -0,0 +1,67 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+//The DTO for the state of the listing rating recompute queue (see ListingRatingQueue), counters are since the application started
+public class RatingQueueStatus {
+    //listings waiting for a recompute, and how long the oldest one has waited
+    private int queuedListings;
+    private long oldestQueuedMs;
+    private int activeWorkers;
+    private long recomputedListings;
+    //triggers for listings that were already queued
+    private long coalescedTriggers;
+    //recomputes done right away by the review request because the queue was full
+    private long inlineRecomputes;
+    private long failedRecomputes;
+    //time from the first trigger of a listing until its average rating was written
+    private long lastLagMs;
+    private long maxLagMs;
+
+    public RatingQueueStatus(int queuedListings, long oldestQueuedMs, int activeWorkers, long recomputedListings, long coalescedTriggers,
+                             long inlineRecomputes, long failedRecomputes, long lastLagMs, long maxLagMs) {
+        this.queuedListings = queuedListings;
+        this.oldestQueuedMs = oldestQueuedMs;
+        this.activeWorkers = activeWorkers;
+        this.recomputedListings = recomputedListings;
+        this.coalescedTriggers = coalescedTriggers;
+        this.inlineRecomputes = inlineRecomputes;
+        this.failedRecomputes = failedRecomputes;
+        this.lastLagMs = lastLagMs;
+        this.maxLagMs = maxLagMs;
+    }
+
+    public int getQueuedListings() {
+        return queuedListings;
+    }
+
+    public long getOldestQueuedMs() {
+        return oldestQueuedMs;
+    }
+
+    public int getActiveWorkers() {
+        return activeWorkers;
+    }
+
+    public long getRecomputedListings() {
+        return recomputedListings;
+    }
+
+    public long getCoalescedTriggers() {
+        return coalescedTriggers;
+    }
+
+    public long getInlineRecomputes() {
+        return inlineRecomputes;
+    }
+
+    public long getFailedRecomputes() {
+        return failedRecomputes;
+    }
+
+    public long getLastLagMs() {
+        return lastLagMs;
+    }
+
+    public long getMaxLagMs() {
+        return maxLagMs;
+    }
+}
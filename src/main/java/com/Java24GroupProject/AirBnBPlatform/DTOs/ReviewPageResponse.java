@@ -0,0 +1,31 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+
+import java.util.List;
+
+/*one page of the reviews of a listing. Only the reviews are returned in the body, nextCursor (null on the last page) and
+the rating summary of the listing are returned in response headers by ReviewController*/
+public class ReviewPageResponse {
+    private List<ReviewResponse> reviews;
+    private String nextCursor;
+    private ListingRatingSummary ratingSummary;
+
+    public ReviewPageResponse(List<ReviewResponse> reviews, String nextCursor, ListingRatingSummary ratingSummary) {
+        this.reviews = reviews;
+        this.nextCursor = nextCursor;
+        this.ratingSummary = ratingSummary;
+    }
+
+    public List<ReviewResponse> getReviews() {
+        return reviews;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public ListingRatingSummary getRatingSummary() {
+        return ratingSummary;
+    }
+}
@@ -1,9 +1,12 @@
 package com.Java24GroupProject.AirBnBPlatform.DTOs;
 
+import com.Java24GroupProject.AirBnBPlatform.config.SparseFieldsetConfiguration;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.IdAndName;
+import com.fasterxml.jackson.annotation.JsonFilter;
 
 import java.time.LocalDateTime;
 
+@JsonFilter(SparseFieldsetConfiguration.FILTER_ID)
 public class ReviewResponse {
     private String id;
     private String listingId;
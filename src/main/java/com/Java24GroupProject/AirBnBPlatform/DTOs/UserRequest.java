@@ -14,9 +14,10 @@ public class UserRequest {
     @Indexed(unique = true)
     private String username;
 
-    @NotNull(message = "password is a required field")
-    @NotEmpty(message = "password is a required field")
-    @NotBlank(message = "password is a required field")
+    //only required when registering, on update a missing password keeps the current one (no new hash)
+    @NotNull(message = "password is a required field", groups = OnRegister.class)
+    @NotEmpty(message = "password is a required field", groups = OnRegister.class)
+    @NotBlank(message = "password is a required field", groups = OnRegister.class)
     @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()\\-_=+{};:,<.>]).{8,}$",
             message = "password must be minimum 8 characters and must contain must contain: 1 uppercase letter, 1 lowercase letter, 1 number and 1 special character")
 
@@ -48,6 +49,10 @@ public class UserRequest {
 
     private Set<Role> roles;
 
+    //validation group for the constraints that only apply to registration (validated together with the default group)
+    public interface OnRegister {
+    }
+
     public UserRequest(String username, String password, String email, String phoneNr, String street, String zipCode, String city, String country, String profilePictureURL, String description, Set<Role> roles) {
         this.username = username;
         this.password = password;
@@ -66,7 +71,7 @@ public class UserRequest {
         return username;
     }
 
-    public @NotNull(message = "password is a required field") @NotEmpty(message = "password is a required field") @NotBlank(message = "password is a required field") @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()\\-_=+{};:,<.>]).{8,}$",
+    public @NotNull(message = "password is a required field", groups = OnRegister.class) @NotEmpty(message = "password is a required field", groups = OnRegister.class) @NotBlank(message = "password is a required field", groups = OnRegister.class) @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=.*[0-9])(?=.*[!@#$%^&*()\\-_=+{};:,<.>]).{8,}$",
             message = "password must be minimum 8 characters and must contain must contain: 1 uppercase letter, 1 lowercase letter, 1 number and 1 special character") String getPassword() {
         return password;
     }
@@ -1,11 +1,14 @@
 package com.Java24GroupProject.AirBnBPlatform.DTOs;
 
+import com.Java24GroupProject.AirBnBPlatform.config.SparseFieldsetConfiguration;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.UserAddress;
+import com.fasterxml.jackson.annotation.JsonFilter;
 
 import java.time.LocalDateTime;
 import java.util.Set;
 
+@JsonFilter(SparseFieldsetConfiguration.FILTER_ID)
 public class UserResponse {
         private String id;
         private String username;
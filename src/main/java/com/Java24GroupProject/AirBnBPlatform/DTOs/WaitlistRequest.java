@@ -0,0 +1,67 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+//The DTO for joining the waitlist of a listing for dates that are not available.
+//autoBook = true makes a pending booking when the dates are available, otherwise the user is only notified
+public class WaitlistRequest {
+    @NotBlank(message = "listingId is a required field")
+    private String listingId;
+
+    @NotNull(message = "startDate is a required field")
+    private String startDate;
+
+    @NotNull(message = "endDate is a required field")
+    private String endDate;
+
+    @NotNull(message = "numberOfGuests is a required field")
+    @Positive(message = "numberOfGuests must be greater than 0")
+    private Integer numberOfGuests;
+
+    private boolean autoBook = false;
+
+    public WaitlistRequest() {
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public void setListingId(String listingId) {
+        this.listingId = listingId;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(String startDate) {
+        this.startDate = startDate;
+    }
+
+    public String getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(String endDate) {
+        this.endDate = endDate;
+    }
+
+    public Integer getNumberOfGuests() {
+        return numberOfGuests;
+    }
+
+    public void setNumberOfGuests(Integer numberOfGuests) {
+        this.numberOfGuests = numberOfGuests;
+    }
+
+    public boolean isAutoBook() {
+        return autoBook;
+    }
+
+    public void setAutoBook(boolean autoBook) {
+        this.autoBook = autoBook;
+    }
+}
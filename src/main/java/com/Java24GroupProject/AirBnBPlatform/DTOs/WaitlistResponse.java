@@ -0,0 +1,52 @@
+package com.Java24GroupProject.AirBnBPlatform.DTOs;
+
+import java.time.LocalDateTime;
+
+//The DTO for a waitlist entry
+public class WaitlistResponse {
+    private String id;
+    private String listingId;
+    private String startDate;
+    private String endDate;
+    private Integer numberOfGuests;
+    private boolean autoBook;
+    private LocalDateTime createdAt;
+
+    public WaitlistResponse(String id, String listingId, String startDate, String endDate, Integer numberOfGuests, boolean autoBook, LocalDateTime createdAt) {
+        this.id = id;
+        this.listingId = listingId;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.numberOfGuests = numberOfGuests;
+        this.autoBook = autoBook;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public String getStartDate() {
+        return startDate;
+    }
+
+    public String getEndDate() {
+        return endDate;
+    }
+
+    public Integer getNumberOfGuests() {
+        return numberOfGuests;
+    }
+
+    public boolean isAutoBook() {
+        return autoBook;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,34 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import jakarta.annotation.PostConstruct;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+
+import java.util.List;
+
+/*the unique user indexes that UserService relies on: registerUser and updateCurrentUser do not check if the username, email or
+phoneNr is taken before writing, the write fails with a DuplicateKeyException instead. @Indexed only creates indexes when
+spring.data.mongodb.auto-index-creation is on, so they are created here on startup, before requests are handled.
+ensureIndex does nothing if the index already exists (same name as the index @Indexed creates)*/
+@Configuration
+public class MongoIndexConfiguration {
+    private static final List<String> UNIQUE_USER_FIELDS = List.of("username", "email", "phoneNr");
+
+    private final MongoTemplate mongoTemplate;
+
+    public MongoIndexConfiguration(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @PostConstruct
+    public void ensureUniqueUserIndexes() {
+        IndexOperations indexOperations = mongoTemplate.indexOps(User.class);
+        for (String field : UNIQUE_USER_FIELDS) {
+            indexOperations.ensureIndex(new Index().on(field, Sort.Direction.ASC).unique().named(field));
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/*the scheduler that runs the @Scheduled jobs. Spring uses one thread by default, then a long job (archiving, statistics
+rebuild, superhost update) delays all other jobs, e.g. the revoked jwt sync and the waitlist. With a pool the short jobs
+keep running on time while a long job runs*/
+@Configuration
+public class SchedulingConfiguration {
+
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(@Value("${scheduling.poolSize:4}") int poolSize) {
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(poolSize);
+        taskScheduler.setThreadNamePrefix("scheduled-");
+        //jobs that are running finish before the application stops
+        taskScheduler.setWaitForTasksToCompleteOnShutdown(true);
+        taskScheduler.setAwaitTerminationSeconds(30);
+        return taskScheduler;
+    }
+}
@@ -1,6 +1,9 @@
 package com.Java24GroupProject.AirBnBPlatform.config;
 
+import com.Java24GroupProject.AirBnBPlatform.filters.IdempotencyFilter;
 import com.Java24GroupProject.AirBnBPlatform.filters.JwtAuthenticationFilter;
+import com.Java24GroupProject.AirBnBPlatform.util.BoundedPasswordEncoder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -10,7 +13,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -25,9 +27,11 @@ import java.util.List;
 @EnableMethodSecurity
 public class SecurityConfiguration {
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
+    private final IdempotencyFilter idempotencyFilter;
 
-    public SecurityConfiguration(JwtAuthenticationFilter jwtAuthenticationFilter) {
+    public SecurityConfiguration(JwtAuthenticationFilter jwtAuthenticationFilter, IdempotencyFilter idempotencyFilter) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
+        this.idempotencyFilter = idempotencyFilter;
     }
 
     //create Authentication manager which dictates the authentication process
@@ -59,7 +63,9 @@ public class SecurityConfiguration {
                         .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
                 )
                 //adds jwt filter before the standard filer
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                //replays stored responses for retried requests with an Idempotency-Key, needs the user from the jwt filter
+                .addFilterAfter(idempotencyFilter, JwtAuthenticationFilter.class);
         return http.build();
     }
 
@@ -79,8 +85,8 @@ public class SecurityConfiguration {
 
         configuration.setAllowCredentials(true);
 
-        //set that we can get the header, so that we can extract it
-        configuration.setExposedHeaders(List.of("Set-Cookie"));
+        //set that we can get the header, so that we can extract it (also the review paging and rating summary headers)
+        configuration.setExposedHeaders(List.of("Set-Cookie", "X-Next-Cursor", "X-Review-Count", "X-Average-Rating", "X-Rating-Distribution"));
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
 
@@ -89,9 +95,13 @@ public class SecurityConfiguration {
         return source;
     }
 
-    //hash and salt algo (common strength is 10-12)
+    /*hash and salt algo (common strength is 10-12), run on a pool of its own with a limited queue (see BoundedPasswordEncoder).
+    0 threads = half of the processors (at least 1), the rest are left for the other requests*/
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(12);
+    public BoundedPasswordEncoder passwordEncoder(@Value("${password.hashThreads:0}") int hashThreads,
+                                                  @Value("${password.hashQueueSize:32}") int hashQueueSize,
+                                                  @Value("${password.hashTimeoutMs:3000}") long hashTimeoutMs) {
+        int threads = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(12), threads, hashQueueSize, hashTimeoutMs);
     }
 }
@@ -0,0 +1,66 @@
+package com.Java24GroupProject.AirBnBPlatform.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/*Sparse fieldsets: GET endpoints take an optional "fields" parameter (e.g. ?fields=id,title,pricePerNight).
+The services use it to only load the asked for fields from the database (see repositories/FieldProjection) and
+this class makes sure only those fields are written in the JSON response. Response DTOs that support it are
+annotated with @JsonFilter(SparseFieldsetConfiguration.FILTER_ID)*/
+@Configuration
+public class SparseFieldsetConfiguration {
+    public static final String FILTER_ID = "sparseFieldset";
+    public static final String FIELDS_PARAMETER = "fields";
+
+    //by default (no ?fields=) all properties are written
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer sparseFieldsetFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(FILTER_ID, SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    //only write the fields asked for when a GET request has the fields parameter
+    @ControllerAdvice
+    static class SparseFieldsetResponseAdvice extends AbstractMappingJacksonResponseBodyAdvice {
+
+        @Override
+        protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer, MediaType contentType, MethodParameter returnType,
+                                               ServerHttpRequest request, ServerHttpResponse response) {
+            if (request.getMethod() != HttpMethod.GET || !(request instanceof ServletServerHttpRequest servletRequest)) {
+                return;
+            }
+            Set<String> fields = parseFields(servletRequest.getServletRequest().getParameter(FIELDS_PARAMETER));
+            if (fields != null) {
+                bodyContainer.setFilters(new SimpleFilterProvider()
+                        .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+            }
+        }
+    }
+
+    //"id, title" -> [id, title], null if there is no fields parameter
+    private static Set<String> parseFields(String fieldsParameter) {
+        if (fieldsParameter == null || fieldsParameter.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(fieldsParameter.split(","))
+                .map(String::trim)
+                .filter(field -> !field.isEmpty())
+                .collect(Collectors.toSet());
+    }
+}
@@ -3,10 +3,17 @@ package com.Java24GroupProject.AirBnBPlatform.controllers;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.AuthenticationRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.AuthenticationResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.UserRequest;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.services.RefreshTokenService;
+import com.Java24GroupProject.AirBnBPlatform.services.TokenRevocationService;
 import com.Java24GroupProject.AirBnBPlatform.services.UserService;
 import com.Java24GroupProject.AirBnBPlatform.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.groups.Default;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseCookie;
@@ -17,29 +24,41 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.CookieValue;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-//only handles registration of new users and login of users only
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+//only handles registration of new users, login and logout of users and refreshing of login tokens
 @RestController
 @RequestMapping("/auth")
 public class AuthenticationController {
+    private static final String REFRESH_COOKIE = "refresh_token";
+
     private final AuthenticationManager authenticationManager;
     private final JwtUtil jwtUtil;
     private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
 
     //constructor injection
-    public AuthenticationController(AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserService userService) {
+    public AuthenticationController(AuthenticationManager authenticationManager, JwtUtil jwtUtil, UserService userService, RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService) {
         this.authenticationManager = authenticationManager;
         this.jwtUtil = jwtUtil;
         this.userService = userService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
-    //register a new user, uses the RegisterRequest DTO
+    //register a new user, uses the RegisterRequest DTO (the password is required here, not on update)
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody UserRequest userRequest) {
+    public ResponseEntity<?> register(@Validated({Default.class, UserRequest.OnRegister.class}) @RequestBody UserRequest userRequest) {
         return ResponseEntity.status(HttpStatus.CREATED).body(userService.registerUser(userRequest));
     }
 
@@ -60,31 +79,22 @@ public class AuthenticationController {
             //get UserDetails
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-            //generate jwt token for the login session
+            //generate jwt token for the login session, and a refresh token that gives new ones when it expires
+            User user = userService.findByUsername(userDetails.getUsername());
             String jwt = jwtUtil.generateToken(userDetails);
-            ResponseCookie jwtCookie = ResponseCookie.from("jwt", jwt)
-                    //prevents hijacking of cookie
-                    .httpOnly(true)
-                    //set to false during development, NB!! should be TRUE when site goes live
-                    .secure(false)
-                    //cookie is available all paths in application
-                    .path("/")
-                    //cookie is valid for 10h
-                    .maxAge(10*60*60)
-                    //has three options, None, Lax and Strict - dictates strictness on request (Strict = cookie origin must be from the same site as it is used for)
-                    .sameSite("Strict")
-                    .build();
+            RefreshTokenService.IssuedToken refreshToken = refreshTokenService.createToken(user.getId(), user.getUsername());
 
             //create response entity w. message and user info
             AuthenticationResponse authResponse = new AuthenticationResponse(
                     "login successful",
                     userDetails.getUsername(),
-                    userService.findByUsername(userDetails.getUsername()).getRoles()
+                    user.getRoles()
             );
 
-            //return response with cookie header and body (necessary for secure user login session)
+            //return response with cookie headers and body (necessary for secure user login session)
             return ResponseEntity.ok()
-                    .header(HttpHeaders.SET_COOKIE, jwtCookie.toString())
+                    .header(HttpHeaders.SET_COOKIE, createJwtCookie(jwt).toString())
+                    .header(HttpHeaders.SET_COOKIE, createRefreshCookie(refreshToken).toString())
                     .body(authResponse);
 
         //if username and/or password is not correct, return Http status unauthorized
@@ -94,4 +104,90 @@ public class AuthenticationController {
                     .body("Incorrect username or password");
         }
     }
+
+    /*new jwt from the refresh token cookie, without password check or user lookup (see RefreshTokenService). The refresh token
+    is used up and a new one is set, sending a used refresh token again logs out all sessions of that login*/
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthenticationResponse> refresh(@CookieValue(name = REFRESH_COOKIE, required = false) String refreshTokenValue) {
+        if (refreshTokenValue == null) {
+            throw new UnauthorizedException("No refresh token, please log in");
+        }
+        RefreshTokenService.IssuedToken refreshToken = refreshTokenService.rotateToken(refreshTokenValue);
+        String jwt = jwtUtil.generateToken(refreshToken.username());
+
+        //roles are not included, they would need the user from the db
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, createJwtCookie(jwt).toString())
+                .header(HttpHeaders.SET_COOKIE, createRefreshCookie(refreshToken).toString())
+                .body(new AuthenticationResponse("token refreshed", refreshToken.username(), null));
+    }
+
+    /*logout, revokes the jwt (see TokenRevocationService) and the refresh token family of this login, and removes the cookies.
+    Other logins of the user are not affected*/
+    @PostMapping("/logout")
+    public ResponseEntity<String> logout(@CookieValue(name = "jwt", required = false) String jwtCookieValue,
+                                         @RequestHeader(name = HttpHeaders.AUTHORIZATION, required = false) String bearerToken,
+                                         @CookieValue(name = REFRESH_COOKIE, required = false) String refreshTokenValue) {
+        String jwt = bearerToken != null && bearerToken.startsWith("Bearer") ? bearerToken.substring(7) : jwtCookieValue;
+        if (jwt != null) {
+            try {
+                Claims claims = jwtUtil.extractAllClaims(jwt);
+                //jwts from before the tokens got an id can not be revoked one by one, they expire as before
+                if (claims.getId() != null) {
+                    tokenRevocationService.revokeToken(claims.getId(), claims.getExpiration());
+                }
+            } catch (JwtException | IllegalArgumentException exception) {
+                //expired or invalid, nothing to revoke
+            }
+        }
+        if (refreshTokenValue != null) {
+            refreshTokenService.revokeToken(refreshTokenValue);
+        }
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, createRemovedCookie("jwt", "/").toString())
+                .header(HttpHeaders.SET_COOKIE, createRemovedCookie(REFRESH_COOKIE, "/auth").toString())
+                .body("logout successful");
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private ResponseCookie createJwtCookie(String jwt) {
+        return ResponseCookie.from("jwt", jwt)
+                //prevents hijacking of cookie
+                .httpOnly(true)
+                //set to false during development, NB!! should be TRUE when site goes live
+                .secure(false)
+                //cookie is available all paths in application
+                .path("/")
+                //cookie is valid as long as the jwt
+                .maxAge(jwtUtil.getExpirationMs() / 1000)
+                //has three options, None, Lax and Strict - dictates strictness on request (Strict = cookie origin must be from the same site as it is used for)
+                .sameSite("Strict")
+                .build();
+    }
+
+    //only sent to /auth, so the refresh token is not in every api request
+    private ResponseCookie createRefreshCookie(RefreshTokenService.IssuedToken refreshToken) {
+        return ResponseCookie.from(REFRESH_COOKIE, refreshToken.token())
+                .httpOnly(true)
+                //set to false during development, NB!! should be TRUE when site goes live
+                .secure(false)
+                .path("/auth")
+                //valid until the family of the token expires
+                .maxAge(Math.max(0, Duration.between(LocalDateTime.now(), refreshToken.expiresAt()).getSeconds()))
+                .sameSite("Strict")
+                .build();
+    }
+
+    //empty cookie that expires right away, removes the cookie with the same name and path in the browser
+    private ResponseCookie createRemovedCookie(String name, String path) {
+        return ResponseCookie.from(name, "")
+                .httpOnly(true)
+                .secure(false)
+                .path(path)
+                .maxAge(0)
+                .sameSite("Strict")
+                .build();
+    }
 }
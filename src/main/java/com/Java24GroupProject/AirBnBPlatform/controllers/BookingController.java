@@ -1,23 +1,34 @@
 package com.Java24GroupProject.AirBnBPlatform.controllers;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingAuditReport;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingBatchItemResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingBatchRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingDecisionRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingDecisionResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingResponse;
+import com.Java24GroupProject.AirBnBPlatform.services.BookingAuditService;
 import com.Java24GroupProject.AirBnBPlatform.services.BookingService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/bookings")
 public class BookingController {
     private final BookingService bookingService;
+    private final BookingAuditService bookingAuditService;
 
-    public BookingController(BookingService bookingService) {
+    public BookingController(BookingService bookingService, BookingAuditService bookingAuditService) {
         this.bookingService = bookingService;
+        this.bookingAuditService = bookingAuditService;
     }
 
     @PostMapping
@@ -27,26 +38,50 @@ public class BookingController {
     }
 
 
+    //book several listings/stays at once, the response has the result for each booking in the same order as the request
+    //201 if any booking was made, otherwise 400 (an atomic batch with a failing booking makes no bookings)
+    @PostMapping("/batch")
+    public ResponseEntity<List<BookingBatchItemResponse>> createBookings(@Valid @RequestBody BookingBatchRequest batchRequest) {
+        List<BookingBatchItemResponse> results = bookingService.createBookings(batchRequest);
+        boolean anyBooked = results.stream().anyMatch(BookingBatchItemResponse::isSuccess);
+        return new ResponseEntity<>(results, anyBooked ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST);
+    }
+
+    //server-sent events stream of changes to bookings on the current user's listings (for host dashboards instead of polling)
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('HOST', 'ADMIN')")
+    public SseEmitter streamBookingEvents() {
+        return bookingService.streamBookingEvents();
+    }
+
     @GetMapping("/{id}")
-    public ResponseEntity<BookingResponse> getBookingById(@PathVariable String id) {
-        BookingResponse bookingResponse = bookingService.getBookingById(id);
+    public ResponseEntity<BookingResponse> getBookingById(@PathVariable String id, @RequestParam(required = false) Set<String> fields) {
+        BookingResponse bookingResponse = bookingService.getBookingById(id, fields);
         return new ResponseEntity<>(bookingResponse, HttpStatus.OK);
     }
 
     //get all bookings for a listing
     @GetMapping("/listing/{listingId}")
-    public ResponseEntity<List<BookingResponse>> getBookingsByListingId(@PathVariable String listingId) {
-        List<BookingResponse> bookingResponses = bookingService.getBookingsByListingId(listingId);
+    public ResponseEntity<List<BookingResponse>> getBookingsByListingId(@PathVariable String listingId, @RequestParam(required = false) Set<String> fields,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<BookingResponse> bookingResponses = bookingService.getBookingsByListingId(listingId, fields, includeArchived);
         return new ResponseEntity<>(bookingResponses, HttpStatus.OK);
     }
 
     //get all bookings for current user
     @GetMapping("/user")
-    public ResponseEntity<List<BookingResponse>> getBookingsCurrentUser() {
-        List<BookingResponse> bookingResponses = bookingService.getBookingsCurrentUser();
+    public ResponseEntity<List<BookingResponse>> getBookingsCurrentUser(@RequestParam(required = false) Set<String> fields,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<BookingResponse> bookingResponses = bookingService.getBookingsCurrentUser(fields, includeArchived);
         return new ResponseEntity<>(bookingResponses, HttpStatus.OK);
     }
 
+    //get completed stays of the current user that can still be reviewed, latest stay first
+    @GetMapping("/awaiting-review")
+    public ResponseEntity<List<BookingResponse>> getStaysAwaitingReviewCurrentUser(@RequestParam(required = false) Set<String> fields) {
+        return new ResponseEntity<>(bookingService.getStaysAwaitingReviewCurrentUser(fields), HttpStatus.OK);
+    }
+
     @PutMapping("/{id}")
     public ResponseEntity<BookingResponse> updateBooking(@PathVariable String id, @Valid @RequestBody BookingRequest updatedBookingRequest) {
         BookingResponse bookingResponse = bookingService.updateBooking(id, updatedBookingRequest);
@@ -59,6 +94,12 @@ public class BookingController {
         return new ResponseEntity<>(bookingResponse, HttpStatus.OK);
     }
 
+    //accept/reject several pending bookings at once (max 100), the response has the result for each decision in the same order as the request
+    @PatchMapping("/decisions")
+    public ResponseEntity<List<BookingDecisionResponse>> decideBookings(@Valid @RequestBody BookingDecisionRequest decisionRequest) {
+        return new ResponseEntity<>(bookingService.decideBookings(decisionRequest), HttpStatus.OK);
+    }
+
     @PatchMapping("/reject/{id}")
     public ResponseEntity<BookingResponse> rejectBooking(@PathVariable String id) {
         BookingResponse bookingResponse = bookingService.acceptOrRejectBooking(id, false);
@@ -75,16 +116,31 @@ public class BookingController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping
-    public ResponseEntity<List<BookingResponse>> getAllBookings() {
-        List<BookingResponse> bookingResponses = bookingService.getAllBookings();
+    public ResponseEntity<List<BookingResponse>> getAllBookings(@RequestParam(required = false) Set<String> fields) {
+        List<BookingResponse> bookingResponses = bookingService.getAllBookings(fields);
         return new ResponseEntity<>(bookingResponses, HttpStatus.OK);
     }
 
     //get all user bookings by userid
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<BookingResponse>> getBookingsByUserId(@PathVariable String userId) {
-        List<BookingResponse> bookingResponses = bookingService.getBookingsByUserId(userId);
+    public ResponseEntity<List<BookingResponse>> getBookingsByUserId(@PathVariable String userId, @RequestParam(required = false) Set<String> fields,
+            @RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<BookingResponse> bookingResponses = bookingService.getBookingsByUserId(userId, fields, includeArchived);
         return new ResponseEntity<>(bookingResponses, HttpStatus.OK);
     }
+
+    //start an audit of all bookings and listing calendars (overlapping bookings, booked dates still available, unmerged date ranges)
+    //the audit runs in the background, the result is returned by GET /bookings/audit
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/audit")
+    public ResponseEntity<BookingAuditReport> startAudit() {
+        return new ResponseEntity<>(bookingAuditService.startAudit(), HttpStatus.ACCEPTED);
+    }
+
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/audit")
+    public ResponseEntity<BookingAuditReport> getAuditReport() {
+        return new ResponseEntity<>(bookingAuditService.getLatestReport(), HttpStatus.OK);
+    }
 }
\ No newline at end of file
@@ -1,86 +1,160 @@
 package com.Java24GroupProject.AirBnBPlatform.controllers;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.FlexibleDatesResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.HostResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingBatchItem;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingMonthlyStatsResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingPricingRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingQuoteRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingQuoteResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingSearchResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingSummaryResponse;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingSearchCriteria;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.UtilityExpression;
 import com.Java24GroupProject.AirBnBPlatform.services.ListingService;
+import com.Java24GroupProject.AirBnBPlatform.services.ListingStatsService;
+import com.Java24GroupProject.AirBnBPlatform.services.RatingAggregateService;
 import jakarta.validation.Valid;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
+import java.time.YearMonth;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/listings")
 public class ListingController {
     private final ListingService listingService;
+    private final ListingStatsService listingStatsService;
+    private final RatingAggregateService ratingAggregateService;
     
-    public ListingController(ListingService listingService) {
+    public ListingController(ListingService listingService, ListingStatsService listingStatsService, RatingAggregateService ratingAggregateService) {
         this.listingService = listingService;
+        this.listingStatsService = listingStatsService;
+        this.ratingAggregateService = ratingAggregateService;
     }
 
     //GET-endpoints for listing search, accessible w/o logging in -------------------------------------------
+    //all GET-endpoints take an optional "fields" parameter (e.g. ?fields=id,title), then only those fields are loaded and returned
 
     @GetMapping()
-    public ResponseEntity<List<ListingResponse>> getAllListings() {
-        List<ListingResponse> listings = listingService.getAllListings();
+    public ResponseEntity<List<ListingSummaryResponse>> getAllListings(@RequestParam(required = false) Set<String> fields) {
+        List<ListingSummaryResponse> listings = listingService.getAllListings(fields);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
     
+    // search for listings using any combination of filters, utilities can be an expression like "WIFI AND POOL AND NOT PETS_ALLOWED"
+    // add facets=true to also get the number of listings per utility, price range, capacity range and location
+    // with startDate and endDate, minPrice/maxPrice are compared to the average price per night for those dates
+    @GetMapping("/search")
+    public ResponseEntity<ListingSearchResponse> searchListings(@RequestParam(required = false) String location,
+                                                                @RequestParam(required = false) Double minPrice,
+                                                                @RequestParam(required = false) Double maxPrice,
+                                                                @RequestParam(required = false) Integer minCapacity,
+                                                                @RequestParam(required = false) Integer maxCapacity,
+                                                                @RequestParam(required = false) String utilities,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+                                                                @RequestParam(defaultValue = "false") boolean facets,
+                                                                @RequestParam(required = false) Set<String> fields) {
+        ListingSearchCriteria criteria = new ListingSearchCriteria(location, minPrice, maxPrice, minCapacity, maxCapacity,
+                utilities == null ? null : UtilityExpression.parse(utilities), null);
+        DateRange stayDates = null;
+        if (startDate != null || endDate != null) {
+            if (startDate == null || endDate == null) {
+                throw new IllegalArgumentException("both startDate and endDate are required when searching by dates");
+            }
+            stayDates = new DateRange(startDate, endDate);
+        }
+        return new ResponseEntity<>(listingService.searchListings(criteria, stayDates, facets, fields), HttpStatus.OK);
+    }
+
+    // get up to 100 listings in one request (e.g. /listings/batch?ids=id1,id2), results are in the same order as the ids
+    // and listings that don't exist have found = false
+    @GetMapping("/batch")
+    public ResponseEntity<List<ListingBatchItem>> getListingsByIds(@RequestParam List<String> ids) {
+        return new ResponseEntity<>(listingService.getListingsByIds(ids), HttpStatus.OK);
+    }
+
+    // flexible dates search, e.g. any 3 nights in March: /listings/flexible?from=2025-03-01&to=2025-04-01&nights=3
+    // add allWindows=true to get all possible stays per listing instead of only the earliest
+    @GetMapping("/flexible")
+    public ResponseEntity<List<FlexibleDatesResponse>> searchFlexibleDates(@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                                           @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                                           @RequestParam int nights,
+                                                                           @RequestParam(required = false) String location,
+                                                                           @RequestParam(required = false) Integer guests,
+                                                                           @RequestParam(defaultValue = "false") boolean allWindows) {
+        return new ResponseEntity<>(listingService.searchFlexibleDates(from, to, nights, location, guests, allWindows), HttpStatus.OK);
+    }
+
     // search for listing by id
     @GetMapping("/{id}")
-    public ResponseEntity<ListingResponse> getListingById(@PathVariable String id) {
-        ListingResponse listingResponse = listingService.getListingById(id);
+    public ResponseEntity<ListingResponse> getListingById(@PathVariable String id, @RequestParam(required = false) Set<String> fields) {
+        ListingResponse listingResponse = listingService.getListingById(id, fields);
         return new ResponseEntity<>(listingResponse, HttpStatus.OK);
     }
 
     // search for listing between price range
     @GetMapping("/price")
-    public ResponseEntity<List<ListingResponse>> getAllListingsByPrice(@RequestParam double minPrice, @RequestParam double maxPrice) {
-        List<ListingResponse> listings = listingService.getListingByPriceRange(minPrice, maxPrice);
+    public ResponseEntity<List<ListingSummaryResponse>> getAllListingsByPrice(@RequestParam double minPrice, @RequestParam double maxPrice, @RequestParam(required = false) Set<String> fields) {
+        List<ListingSummaryResponse> listings = listingService.getListingByPriceRange(minPrice, maxPrice, fields);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
     
     //search for listing via location (city)
     @GetMapping("/location/{location}")
-    public ResponseEntity<List<ListingResponse>> getAllListingsByLocation(@PathVariable String location) {
-        List<ListingResponse> listings = listingService.getListingByLocation(location);
+    public ResponseEntity<List<ListingSummaryResponse>> getAllListingsByLocation(@PathVariable String location, @RequestParam(required = false) Set<String> fields) {
+        List<ListingSummaryResponse> listings = listingService.getListingByLocation(location, fields);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
     
     // search for listing between capacity size
     @GetMapping("/capacity")
-    public ResponseEntity<List<ListingResponse>> getAllListingsByCapacity(@RequestParam double minCapacity, @RequestParam double maxCapacity) {
-        List<ListingResponse> listing = listingService.getListingByCapacity(minCapacity, maxCapacity);
+    public ResponseEntity<List<ListingSummaryResponse>> getAllListingsByCapacity(@RequestParam double minCapacity, @RequestParam double maxCapacity, @RequestParam(required = false) Set<String> fields) {
+        List<ListingSummaryResponse> listing = listingService.getListingByCapacity(minCapacity, maxCapacity, fields);
         return new ResponseEntity<>(listing, HttpStatus.OK);
     }
     
     // search for listing with matching utilities
     @GetMapping("/utilities/{utilities}")
-    public ResponseEntity<List<ListingResponse>> getAllListingsByUtilities(@PathVariable String utilities) {
-        List<ListingResponse> listings = listingService.getListingByUtilities(utilities);
+    public ResponseEntity<List<ListingSummaryResponse>> getAllListingsByUtilities(@PathVariable String utilities, @RequestParam(required = false) Set<String> fields) {
+        List<ListingSummaryResponse> listings = listingService.getListingByUtilities(utilities, fields);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
 
     @GetMapping("/host/{hostId}")
-    public ResponseEntity<List<ListingResponse>> getListingsByHostId(@PathVariable String hostId) {
-        List<ListingResponse> listings = listingService.getListingsByHostId(hostId);
+    public ResponseEntity<List<ListingSummaryResponse>> getListingsByHostId(@PathVariable String hostId, @RequestParam(required = false) Set<String> fields) {
+        List<ListingSummaryResponse> listings = listingService.getListingsByHostId(hostId, fields);
         return new ResponseEntity<>(listings, HttpStatus.OK);
     }
 
     @GetMapping("/host/{hostId}/profile")
-    public ResponseEntity<HostResponse> getHostProfile(@PathVariable String hostId) {
-        return new ResponseEntity<>(listingService.getHostProfile(hostId), HttpStatus.OK);
+    public ResponseEntity<HostResponse> getHostProfile(@PathVariable String hostId, @RequestParam(required = false) Set<String> fields) {
+        return new ResponseEntity<>(listingService.getHostProfile(hostId, fields), HttpStatus.OK);
+    }
+
+    // availability, capacity fit and total price of a stay for up to 100 listings, nothing is booked
+    @PostMapping("/quote")
+    public ResponseEntity<List<ListingQuoteResponse>> quoteListings(@Valid @RequestBody ListingQuoteRequest quoteRequest) {
+        return new ResponseEntity<>(listingService.quoteListings(quoteRequest), HttpStatus.OK);
     }
 
     //HOST or ADMIN-specific endpoints ----------------------------------------------------------------------------
 
     @GetMapping("/user")
     @PreAuthorize("hasAnyRole('HOST', 'ADMIN')")
-    public ResponseEntity<List<ListingResponse>> getListingsCurrentUser() {
-        List<ListingResponse> listingResponses = listingService.getListingsCurrentUser();
+    public ResponseEntity<List<ListingResponse>> getListingsCurrentUser(@RequestParam(required = false) Set<String> fields) {
+        List<ListingResponse> listingResponses = listingService.getListingsCurrentUser(fields);
         return new ResponseEntity<>(listingResponses, HttpStatus.OK);
     }
 
@@ -97,10 +171,60 @@ public class ListingController {
         return ResponseEntity.ok(listingService.updateListing(id, listing));
     }
     
+    //set weekend price, price overrides and weekly/monthly discounts of a listing
+    @PutMapping("/{id}/pricing")
+    @PreAuthorize("hasAnyRole('HOST','ADMIN')")
+    public ResponseEntity<ListingResponse> updateListingPricing(@PathVariable String id, @Valid @RequestBody ListingPricingRequest pricingRequest) {
+        return new ResponseEntity<>(listingService.updatePricing(id, pricingRequest), HttpStatus.OK);
+    }
+
     @DeleteMapping("/{id}")
     @PreAuthorize("hasAnyRole('HOST','ADMIN')")
     public ResponseEntity<Void> deleteListing(@PathVariable String id) {
         listingService.deleteListing(id);
         return ResponseEntity.noContent().build();
     }
+
+    //statistics (booked nights, revenue, occupancy) per listing and month for the current host, e.g. ?from=2025-01&to=2025-12
+    //from and to are optional, the default is the last 12 months
+    @GetMapping("/stats")
+    @PreAuthorize("hasAnyRole('HOST','ADMIN')")
+    public ResponseEntity<List<ListingMonthlyStatsResponse>> getStatsCurrentHost(@RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                                                                 @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        return new ResponseEntity<>(listingStatsService.getStatsCurrentHost(from, to), HttpStatus.OK);
+    }
+
+    @GetMapping("/{id}/stats")
+    @PreAuthorize("hasAnyRole('HOST','ADMIN')")
+    public ResponseEntity<List<ListingMonthlyStatsResponse>> getStatsByListingId(@PathVariable String id,
+                                                                                 @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                                                                 @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        return new ResponseEntity<>(listingStatsService.getStatsByListingId(id, from, to), HttpStatus.OK);
+    }
+
+    //ADMIN-specific endpoints ------------------------------------------------------------------------------------
+
+    @GetMapping("/stats/host/{hostId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<ListingMonthlyStatsResponse>> getStatsByHostId(@PathVariable String hostId,
+                                                                              @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth from,
+                                                                              @RequestParam(required = false) @DateTimeFormat(pattern = "yyyy-MM") YearMonth to) {
+        return new ResponseEntity<>(listingStatsService.getStatsByHostId(hostId, from, to), HttpStatus.OK);
+    }
+
+    //recompute all statistics from the bookings (also done every week by ListingStatsService)
+    @PostMapping("/stats/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildStats() {
+        listingStatsService.rebuildStats();
+        return ResponseEntity.noContent().build();
+    }
+
+    //recompute the listing rating summaries and host ratings from the reviews (they are otherwise only changed when reviews are created/deleted)
+    @PostMapping("/ratings/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Void> rebuildRatings() {
+        ratingAggregateService.rebuildRatingAggregates();
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,32 @@
+package com.Java24GroupProject.AirBnBPlatform.controllers;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.NotificationResponse;
+import com.Java24GroupProject.AirBnBPlatform.services.NotificationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/notifications")
+public class NotificationController {
+    private final NotificationService notificationService;
+
+    public NotificationController(NotificationService notificationService) {
+        this.notificationService = notificationService;
+    }
+
+    //newest notifications of the current user first, e.g. ?unreadOnly=true&limit=20
+    @GetMapping
+    public ResponseEntity<List<NotificationResponse>> getNotificationsCurrentUser(@RequestParam(defaultValue = "false") boolean unreadOnly,
+                                                                                  @RequestParam(defaultValue = "50") int limit) {
+        return new ResponseEntity<>(notificationService.getNotificationsCurrentUser(unreadOnly, limit), HttpStatus.OK);
+    }
+
+    //mark all notifications of the current user as read, returns the number of notifications that were unread
+    @PatchMapping("/read")
+    public ResponseEntity<Long> markAllAsRead() {
+        return new ResponseEntity<>(notificationService.markAllAsReadCurrentUser(), HttpStatus.OK);
+    }
+}
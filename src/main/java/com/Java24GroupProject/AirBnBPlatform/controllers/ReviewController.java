@@ -1,30 +1,62 @@
 package com.Java24GroupProject.AirBnBPlatform.controllers;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.RatingQueueStatus;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewPageResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewResponse;
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+import com.Java24GroupProject.AirBnBPlatform.services.ListingRatingQueue;
 import com.Java24GroupProject.AirBnBPlatform.services.ReviewService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.StringJoiner;
 
 @RestController
 @RequestMapping("/reviews")
 public class ReviewController {
     private final ReviewService reviewService;
+    private final ListingRatingQueue listingRatingQueue;
 
-    public ReviewController(ReviewService reviewService) {
+    public ReviewController(ReviewService reviewService, ListingRatingQueue listingRatingQueue) {
         this.reviewService = reviewService;
+        this.listingRatingQueue = listingRatingQueue;
     }
 
-    // Get all reviews for a specific listing
+    // Get one page of reviews for a specific listing, sort is newest (default), oldest, highest_rated or lowest_rated
+    // the next page is fetched with ?cursor= set to the X-Next-Cursor header (no header on the last page)
+    // the rating summary of the listing is in the X-Review-Count, X-Average-Rating and X-Rating-Distribution headers
     @GetMapping("/listing/{listingId}")
-    public ResponseEntity<List<ReviewResponse>> getReviewsByListingId(@PathVariable String listingId) {
-        List<ReviewResponse> reviewResponses = reviewService.getReviewsByListing(listingId);
-        return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
+    public ResponseEntity<List<ReviewResponse>> getReviewsByListingId(@PathVariable String listingId,
+                                                                      @RequestParam(defaultValue = "newest") String sort,
+                                                                      @RequestParam(required = false) String cursor,
+                                                                      @RequestParam(defaultValue = "20") int limit,
+                                                                      @RequestParam(required = false) Set<String> fields) {
+        ReviewPageResponse page = reviewService.getReviewsByListing(listingId, sort, cursor, limit, fields);
+
+        HttpHeaders headers = new HttpHeaders();
+        if (page.getNextCursor() != null) {
+            headers.add("X-Next-Cursor", page.getNextCursor());
+        }
+        ListingRatingSummary summary = page.getRatingSummary();
+        headers.add("X-Review-Count", String.valueOf(summary.getReviewCount()));
+        if (summary.getAverageRating() != null) {
+            headers.add("X-Average-Rating", String.format(Locale.ROOT, "%.2f", summary.getAverageRating()));
+        }
+        //star=count from 5 to 1 stars, e.g. 5=28,4=10,3=3,2=1,1=0
+        StringJoiner distribution = new StringJoiner(",");
+        for (int star = 5; star >= 1; star--) {
+            distribution.add(star + "=" + summary.getStarCount(star));
+        }
+        headers.add("X-Rating-Distribution", distribution.toString());
+        return new ResponseEntity<>(page.getReviews(), headers, HttpStatus.OK);
     }
 
     // Create a new review
@@ -38,8 +70,8 @@ public class ReviewController {
     // Get all reviews for current user
     @PreAuthorize("hasAnyRole('ADMIN','HOST','USER')")
     @GetMapping("/user")
-    public ResponseEntity<List<ReviewResponse>> getReviewsCurrentUser() {
-        List<ReviewResponse> reviewResponses = reviewService.getReviewsCurrentUser();
+    public ResponseEntity<List<ReviewResponse>> getReviewsCurrentUser(@RequestParam(required = false) Set<String> fields) {
+        List<ReviewResponse> reviewResponses = reviewService.getReviewsCurrentUser(fields);
         return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
     }
 
@@ -54,23 +86,15 @@ public class ReviewController {
 
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<ReviewResponse>> getReviewsByUserId(@PathVariable String userId) {
-        List<ReviewResponse> reviewResponses = reviewService.getReviewsByUserId(userId);
+    public ResponseEntity<List<ReviewResponse>> getReviewsByUserId(@PathVariable String userId, @RequestParam(required = false) Set<String> fields) {
+        List<ReviewResponse> reviewResponses = reviewService.getReviewsByUserId(userId, fields);
         return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
     }
 
-
-    // Get for avg rating and reviews based on host
-    /* @GetMapping("/host/{hostId}/avgrating")
-    public ResponseEntity<Double> getAverageRatingForHost(@PathVariable String hostId) {
-        double averageRating = reviewService.getAverageRatingForHost(hostId);
-        return new ResponseEntity<>(averageRating, HttpStatus.OK);
+    //queue depth, lag and counters of the background listing average rating updates
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/rating-queue")
+    public ResponseEntity<RatingQueueStatus> getRatingQueueStatus() {
+        return new ResponseEntity<>(listingRatingQueue.getStatus(), HttpStatus.OK);
     }
-    @GetMapping("/host/{hostId}")
-    public ResponseEntity<List<ReviewResponse>> getReviewsByHost(@PathVariable String hostId) {
-        List<ReviewResponse> reviewResponses = reviewService.getReviewsByHost(hostId);
-        return new ResponseEntity<>(reviewResponses, HttpStatus.OK);
-    }*/
-
-
 }
@@ -1,8 +1,10 @@
 package com.Java24GroupProject.AirBnBPlatform.controllers;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PasswordHashingStatus;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.UserRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.UserResponse;
 import com.Java24GroupProject.AirBnBPlatform.services.UserService;
+import com.Java24GroupProject.AirBnBPlatform.util.BoundedPasswordEncoder;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,26 +13,29 @@ import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /*registration of new users is handled by AuthenticationController*/
 @RestController
 @RequestMapping("/users")
 public class UserController {
     private final UserService userService;
+    private final BoundedPasswordEncoder passwordEncoder;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, BoundedPasswordEncoder passwordEncoder) {
         this.userService = userService;
+        this.passwordEncoder = passwordEncoder;
     }
 
     //USER endpoints  ------------------------------------------------------------------
     @GetMapping("/{id}")
-    public ResponseEntity<UserResponse> getUserById(@PathVariable String id) {
-        return new ResponseEntity<>(userService.getUserById(id), HttpStatus.OK);
+    public ResponseEntity<UserResponse> getUserById(@PathVariable String id, @RequestParam(required = false) Set<String> fields) {
+        return new ResponseEntity<>(userService.getUserById(id, fields), HttpStatus.OK);
     }
 
     @GetMapping()
-    public ResponseEntity<UserResponse> getCurrentUser() {
-        return new ResponseEntity<>(userService.getCurrentUser(), HttpStatus.OK);
+    public ResponseEntity<UserResponse> getCurrentUser(@RequestParam(required = false) Set<String> fields) {
+        return new ResponseEntity<>(userService.getCurrentUser(fields), HttpStatus.OK);
     }
 
     @PutMapping
@@ -58,10 +63,17 @@ public class UserController {
 
     //ADMIN endpoints ---------------------------------------------------------------------
 
+    //queue depth and latency of the password hashing pool, used by login, registration and password changes
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/password-hashing")
+    public ResponseEntity<PasswordHashingStatus> getPasswordHashingStatus() {
+        return new ResponseEntity<>(passwordEncoder.getStatus(), HttpStatus.OK);
+    }
+
     @PreAuthorize("hasRole('ADMIN')")
     @GetMapping("/all")
-    public ResponseEntity<List<UserResponse>> getAllUsers() {
-        return new ResponseEntity<>(userService.getAllUsers(), HttpStatus.OK);
+    public ResponseEntity<List<UserResponse>> getAllUsers(@RequestParam(required = false) Set<String> fields) {
+        return new ResponseEntity<>(userService.getAllUsers(fields), HttpStatus.OK);
     }
 
     @PreAuthorize("hasRole('ADMIN')")
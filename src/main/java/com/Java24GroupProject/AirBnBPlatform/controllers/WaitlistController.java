@@ -0,0 +1,40 @@
+package com.Java24GroupProject.AirBnBPlatform.controllers;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.WaitlistRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.WaitlistResponse;
+import com.Java24GroupProject.AirBnBPlatform.services.WaitlistService;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/waitlist")
+public class WaitlistController {
+    private final WaitlistService waitlistService;
+
+    public WaitlistController(WaitlistService waitlistService) {
+        this.waitlistService = waitlistService;
+    }
+
+    //wait for dates that are not available on a listing, when they are given back the user gets a pending booking (autoBook)
+    //or a notification (GET /notifications)
+    @PostMapping
+    public ResponseEntity<WaitlistResponse> joinWaitlist(@Valid @RequestBody WaitlistRequest waitlistRequest) {
+        return new ResponseEntity<>(waitlistService.joinWaitlist(waitlistRequest), HttpStatus.CREATED);
+    }
+
+    //waitlist entries of the current user
+    @GetMapping
+    public ResponseEntity<List<WaitlistResponse>> getWaitlistCurrentUser() {
+        return new ResponseEntity<>(waitlistService.getWaitlistCurrentUser(), HttpStatus.OK);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> leaveWaitlist(@PathVariable String id) {
+        waitlistService.leaveWaitlist(id);
+        return new ResponseEntity<>(HttpStatus.NO_CONTENT);
+    }
+}
@@ -2,6 +2,7 @@ package com.Java24GroupProject.AirBnBPlatform.exceptions;
 
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.boot.autoconfigure.web.servlet.DispatcherServletAutoConfiguration;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authorization.AuthorizationDeniedException;
@@ -54,6 +55,14 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
     }
 
+    //the request can be retried, Retry-After tells the client when (in seconds)
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<String> serviceUnavailableExceptionHandler(ServiceUnavailableException ex) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return new ResponseEntity<>(ex.getMessage(), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     //error handling for @RequestBody failing @Valid check
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<String> validationExceptionHandler(MethodArgumentNotValidException ex) {
@@ -0,0 +1,267 @@
+package com.Java24GroupProject.AirBnBPlatform.filters;
+
+import com.Java24GroupProject.AirBnBPlatform.models.IdempotencyRecord;
+import com.Java24GroupProject.AirBnBPlatform.repositories.IdempotencyRecordRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.ExpiringLruCache;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*This class makes booking and review creation safe to retry. If a request has an Idempotency-Key header a record is
+inserted in the idempotency_keys collection before the request is handled and the response is stored in it afterwards
+(completed responses are also kept in a local cache). A retry with the same key gets the stored response back without
+the request being handled again. The record _id is unique, so across all instances only one request with a key is handled,
+a retry that arrives while the first request is still handled polls the record until the response is stored.
+Runs after JwtAuthenticationFilter, keys are per user*/
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final Set<String> IDEMPOTENT_POST_PATHS = Set.of("/bookings", "/bookings/batch", "/reviews");
+    private static final int MAX_KEY_LENGTH = 255;
+    //how long a retry waits for the first request with the same key to finish, and how often it checks the record
+    private static final long IN_FLIGHT_WAIT_SECONDS = 30;
+    private static final long IN_FLIGHT_POLL_MS = 100;
+    //a request that has not stored its response by then is treated as gone (e.g. the instance stopped), a retry takes the key over
+    private static final long LOCK_SECONDS = 60;
+
+    private final IdempotencyRecordRepository idempotencyRecordRepository;
+    //completed records only, same time to live as the TTL index on IdempotencyRecord.createdAt
+    private final ExpiringLruCache<String, IdempotencyRecord> recentResponses = new ExpiringLruCache<>(10_000, 86_400_000);
+
+    public IdempotencyFilter(IdempotencyRecordRepository idempotencyRecordRepository) {
+        this.idempotencyRecordRepository = idempotencyRecordRepository;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !"POST".equals(request.getMethod())
+                || !IDEMPOTENT_POST_PATHS.contains(request.getServletPath())
+                || !StringUtils.hasText(request.getHeader(IDEMPOTENCY_KEY_HEADER));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            writeError(response, HttpServletResponse.SC_BAD_REQUEST, IDEMPOTENCY_KEY_HEADER + " cannot be longer than " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+
+        //users that are not logged in are stopped later in the filter chain, nothing to store for them
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String recordId = authentication.getName() + ":" + idempotencyKey;
+        CachedBodyRequest cachedBodyRequest = new CachedBodyRequest(request);
+        String requestFingerprint = fingerprint(cachedBodyRequest);
+
+        String ownerId = UUID.randomUUID().toString();
+        long waitUntil = System.nanoTime() + TimeUnit.SECONDS.toNanos(IN_FLIGHT_WAIT_SECONDS);
+
+        while (true) {
+            IdempotencyRecord cachedRecord = recentResponses.get(recordId);
+            if (cachedRecord != null) {
+                replay(cachedRecord, requestFingerprint, response);
+                return;
+            }
+
+            //only one request can insert the record, that request is handled
+            LocalDateTime now = LocalDateTime.now();
+            IdempotencyRecord ownRecord = insertRecord(new IdempotencyRecord(recordId, requestFingerprint, ownerId, now.plusSeconds(LOCK_SECONDS), now));
+            if (ownRecord != null) {
+                handleAndStore(ownRecord, cachedBodyRequest, response, filterChain);
+                return;
+            }
+
+            IdempotencyRecord storedRecord = idempotencyRecordRepository.findById(recordId).orElse(null);
+            if (storedRecord == null) {
+                //the other request failed and removed its record, try again
+                continue;
+            }
+            if (storedRecord.isCompleted()) {
+                recentResponses.put(recordId, storedRecord);
+                replay(storedRecord, requestFingerprint, response);
+                return;
+            }
+            if (!storedRecord.getRequestFingerprint().equals(requestFingerprint)) {
+                writeError(response, 422, IDEMPOTENCY_KEY_HEADER + " has already been used for a different request");
+                return;
+            }
+
+            //the request that has the key did not finish in time, take it over
+            if (storedRecord.getLockedUntil().isBefore(now) && idempotencyRecordRepository.takeOver(recordId, ownerId, now.plusSeconds(LOCK_SECONDS), now)) {
+                handleAndStore(new IdempotencyRecord(recordId, requestFingerprint, ownerId, now.plusSeconds(LOCK_SECONDS), storedRecord.getCreatedAt()),
+                        cachedBodyRequest, response, filterChain);
+                return;
+            }
+
+            //another request with the same key is being handled, wait for it and replay its response
+            if (System.nanoTime() - waitUntil >= 0 || !sleep(IN_FLIGHT_POLL_MS)) {
+                writeError(response, HttpServletResponse.SC_CONFLICT, "A request with the same " + IDEMPOTENCY_KEY_HEADER + " is still being processed");
+                return;
+            }
+        }
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    /*let the request through and store the response in the record with a conditional update. Server errors (5xx) are not
+    stored and the record is removed, so the request can be retried*/
+    private void handleAndStore(IdempotencyRecord record, HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        boolean completed = false;
+        try {
+            ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+            byte[] body;
+            try {
+                filterChain.doFilter(request, responseWrapper);
+            } finally {
+                //copyBodyToResponse empties the cached content, so the body is read first
+                body = responseWrapper.getContentAsByteArray();
+                responseWrapper.copyBodyToResponse();
+            }
+            if (responseWrapper.getStatus() < 500) {
+                record.setResponse(responseWrapper.getStatus(), responseWrapper.getContentType(), body);
+                //false if the request took so long that a retry took the key over
+                completed = idempotencyRecordRepository.complete(record);
+                if (completed) {
+                    recentResponses.put(record.getId(), record);
+                }
+            }
+        } finally {
+            if (!completed) {
+                idempotencyRecordRepository.deleteUncompleted(record.getId(), record.getOwnerId());
+            }
+        }
+    }
+
+    //returns null if a record with the same id already exists
+    private IdempotencyRecord insertRecord(IdempotencyRecord record) {
+        try {
+            return idempotencyRecordRepository.insert(record);
+        } catch (DuplicateKeyException e) {
+            return null;
+        }
+    }
+
+    //returns false if the thread was interrupted
+    private static boolean sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    //write the stored response, a key can only be reused for the same request
+    private void replay(IdempotencyRecord record, String requestFingerprint, HttpServletResponse response) throws IOException {
+        if (!record.getRequestFingerprint().equals(requestFingerprint)) {
+            writeError(response, 422, IDEMPOTENCY_KEY_HEADER + " has already been used for a different request");
+            return;
+        }
+        response.setStatus(record.getStatus());
+        if (record.getContentType() != null) {
+            response.setContentType(record.getContentType());
+        }
+        response.setHeader("Idempotent-Replayed", "true");
+        response.getOutputStream().write(record.getBody());
+    }
+
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setContentType("text/plain;charset=UTF-8");
+        response.getWriter().write(message);
+    }
+
+    //SHA-256 of method, path and body
+    private static String fingerprint(CachedBodyRequest request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((request.getMethod() + " " + request.getServletPath() + "\n").getBytes(StandardCharsets.UTF_8));
+            digest.update(request.body);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //request wrapper that reads the body once, so it can be used for the fingerprint and still be read by the controller
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return inputStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                //the whole body is already in memory, so it can be read right away
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        if (isFinished()) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return inputStream.read();
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package com.Java24GroupProject.AirBnBPlatform.filters;
 
 import com.Java24GroupProject.AirBnBPlatform.services.CustomUserDetailsService;
+import com.Java24GroupProject.AirBnBPlatform.services.TokenRevocationService;
 import com.Java24GroupProject.AirBnBPlatform.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -27,12 +29,14 @@ import java.io.IOException;
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
     private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     //constructor injection
-    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, CustomUserDetailsService userDetailsService, TokenRevocationService tokenRevocationService) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
+        this.tokenRevocationService = tokenRevocationService;
     }
 
     //filter method to validate HttpRequest, extracts the jwt token (from header or cookie) and validates it
@@ -62,8 +66,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         //if jwt has been found, try to authenticate user
         if (jwt != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             try {
-                //extract username from token
-                String username = jwtUtil.extractUsername(jwt);
+                //extract username, id and issue time from token
+                Claims claims = jwtUtil.extractAllClaims(jwt);
+                String username = claims.getSubject();
+
+                //revoked tokens (logout, user deleted or roles changed) are checked in memory, before the user is read
+                if (tokenRevocationService.isRevoked(claims.getId(), username, claims.getIssuedAt())) {
+                    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+                    filterChain.doFilter(request, response);
+                    return;
+                }
 
                 //get user details from db
                 UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -7,6 +7,8 @@ import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -14,6 +16,20 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Document(collection = "bookings")
+@CompoundIndexes({
+        //used to find pending bookings that have expired (see PendingBookingExpiryService)
+        @CompoundIndex(name = "bookingStatus_createdAt", def = "{'bookingStatus': 1, 'createdAt': 1}"),
+        //used to find old bookings to archive (see BookingArchiveService)
+        @CompoundIndex(name = "bookingDates.endDate", def = "{'bookingDates.endDate': 1}"),
+        //used to find accepted bookings that have ended (see BookingCompletionService)
+        @CompoundIndex(name = "bookingStatus_endDate", def = "{'bookingStatus': 1, 'bookingDates.endDate': 1}"),
+        /*bookings are looked up by the id in the user and listing DBRefs. The user index also serves the completed stays
+        of a user (awaiting review) and of a user on one listing (review eligibility, newest stay first)*/
+        @CompoundIndex(name = "user_status_listing_endDate", def = "{'user.$id': 1, 'bookingStatus': 1, 'listing.$id': 1, 'bookingDates.endDate': -1}"),
+        @CompoundIndex(name = "listing_id", def = "{'listing.$id': 1}"),
+        //used to find dates of rejected/expired bookings that still have to be given back (see BookingDatesReleaseService)
+        @CompoundIndex(name = "datesReleaseDueAt", def = "{'datesReleaseDueAt': 1}", sparse = true)
+})
 public class Booking {
     @Id
     private String id;
@@ -48,6 +64,15 @@ public class Booking {
 
     private LocalDateTime updatedAt;
 
+    //set when the guest has reviewed this (completed) stay
+    private boolean reviewed;
+
+    /*set together with status REJECTED/EXPIRED and removed when the dates are given back to the listing, so a release that
+    did not happen (e.g. the application stopped) is found and made again. While a run is releasing the dates it is set
+    to the end of its claim (see BookingDatesReleaseService)*/
+    private LocalDateTime datesReleaseDueAt;
+    private String datesReleaseClaimedBy;
+
 
     public Booking() {
     }
@@ -133,4 +158,28 @@ public class Booking {
     public void setBookingDates(DateRange bookingDates) {
         this.bookingDates = bookingDates;
     }
+
+    public boolean isReviewed() {
+        return reviewed;
+    }
+
+    public void setReviewed(boolean reviewed) {
+        this.reviewed = reviewed;
+    }
+
+    public LocalDateTime getDatesReleaseDueAt() {
+        return datesReleaseDueAt;
+    }
+
+    public void setDatesReleaseDueAt(LocalDateTime datesReleaseDueAt) {
+        this.datesReleaseDueAt = datesReleaseDueAt;
+    }
+
+    public String getDatesReleaseClaimedBy() {
+        return datesReleaseClaimedBy;
+    }
+
+    public void setDatesReleaseClaimedBy(String datesReleaseClaimedBy) {
+        this.datesReleaseClaimedBy = datesReleaseClaimedBy;
+    }
 }
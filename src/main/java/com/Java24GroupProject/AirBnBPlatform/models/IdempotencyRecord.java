@@ -0,0 +1,84 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*a request made with an Idempotency-Key header and its stored response (see IdempotencyFilter), removed by MongoDB after
+24 hours. The record is inserted when the request starts (completed = false) and the response is filled in when it is done,
+the unique _id makes sure only one request with the same key is handled*/
+@Document(collection = "idempotency_keys")
+public class IdempotencyRecord {
+    //username + ":" + Idempotency-Key
+    @Id
+    private String id;
+
+    //hash of the method, path and body of the original request
+    private String requestFingerprint;
+
+    //the request handling it, and until when it has the key (another request takes the key over after that, e.g. the instance stopped)
+    private String ownerId;
+    private LocalDateTime lockedUntil;
+
+    private boolean completed;
+    private int status;
+    private String contentType;
+    private byte[] body;
+
+    @Indexed(expireAfterSeconds = 86400)
+    private LocalDateTime createdAt;
+
+    public IdempotencyRecord(String id, String requestFingerprint, String ownerId, LocalDateTime lockedUntil, LocalDateTime createdAt) {
+        this.id = id;
+        this.requestFingerprint = requestFingerprint;
+        this.ownerId = ownerId;
+        this.lockedUntil = lockedUntil;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRequestFingerprint() {
+        return requestFingerprint;
+    }
+
+    public String getOwnerId() {
+        return ownerId;
+    }
+
+    public LocalDateTime getLockedUntil() {
+        return lockedUntil;
+    }
+
+    public boolean isCompleted() {
+        return completed;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    //the response of the request, stored with IdempotencyRecordRepository.complete
+    public void setResponse(int status, String contentType, byte[] body) {
+        this.completed = true;
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+    }
+}
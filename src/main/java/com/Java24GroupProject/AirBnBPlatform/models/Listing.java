@@ -3,12 +3,14 @@ package com.Java24GroupProject.AirBnBPlatform.models;
 
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.PriceOverride;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -41,6 +43,7 @@ public class Listing {
     @Positive(message = "capacity must be greater than zero")
     private Integer capacity;
 
+    @Indexed
     private Set<ListingUtilities> utilities;
 
     @NotNull(message = "listing must have a host")
@@ -57,6 +60,14 @@ public class Listing {
 
     private List<DateRange> availableDates;
 
+    //optional dynamic pricing, see PricingService. Friday and Saturday nights cost weekendPricePerNight (if set),
+    //price overrides win over both, and stays of 7+/28+ nights get the weekly/monthly discount
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal weekendPricePerNight;
+    private List<PriceOverride> priceOverrides;
+    private Integer weeklyDiscountPercent;
+    private Integer monthlyDiscountPercent;
+
     private Double averageRating;
 
     @CreatedDate
@@ -155,6 +166,38 @@ public class Listing {
         this.availableDates = availableDates;
     }
 
+    public BigDecimal getWeekendPricePerNight() {
+        return weekendPricePerNight;
+    }
+
+    public void setWeekendPricePerNight(BigDecimal weekendPricePerNight) {
+        this.weekendPricePerNight = weekendPricePerNight;
+    }
+
+    public List<PriceOverride> getPriceOverrides() {
+        return priceOverrides;
+    }
+
+    public void setPriceOverrides(List<PriceOverride> priceOverrides) {
+        this.priceOverrides = priceOverrides;
+    }
+
+    public Integer getWeeklyDiscountPercent() {
+        return weeklyDiscountPercent;
+    }
+
+    public void setWeeklyDiscountPercent(Integer weeklyDiscountPercent) {
+        this.weeklyDiscountPercent = weeklyDiscountPercent;
+    }
+
+    public Integer getMonthlyDiscountPercent() {
+        return monthlyDiscountPercent;
+    }
+
+    public void setMonthlyDiscountPercent(Integer monthlyDiscountPercent) {
+        this.monthlyDiscountPercent = monthlyDiscountPercent;
+    }
+
     public Double getAverageRating() {
         return averageRating;
     }
@@ -179,6 +222,43 @@ public class Listing {
         this.updatedAt = updatedAt;
     }
 
+    //check if the dates fall within one of the available date ranges
+    public boolean isDateRangeAvailable(DateRange bookingDates) {
+        return findAvailableDateRangeContaining(bookingDates) != null;
+    }
+
+    //remove booked dates from the available dates, returns false (and leaves the available dates unchanged) if the dates are not available
+    public boolean reserveDateRange(DateRange bookingDates) {
+        DateRange availableDateRange = findAvailableDateRangeContaining(bookingDates);
+        if (availableDateRange == null) {
+            return false;
+        }
+        if (bookingDates.isIdenticalToAnotherDateRange(availableDateRange)) {
+            availableDates.remove(availableDateRange);
+        } else if (bookingDates.getStartDate().isEqual(availableDateRange.getStartDate())) {
+            availableDateRange.setStartDate(bookingDates.getEndDate());
+        } else if (bookingDates.getEndDate().isEqual(availableDateRange.getEndDate())) {
+            availableDateRange.setEndDate(bookingDates.getStartDate());
+        } else {
+            DateRange newDateRange = new DateRange(bookingDates.getEndDate(), availableDateRange.getEndDate());
+            availableDates.add(newDateRange);
+            availableDateRange.setEndDate(bookingDates.getStartDate());
+        }
+        return true;
+    }
+
+    private DateRange findAvailableDateRangeContaining(DateRange bookingDates) {
+        if (availableDates == null) {
+            return null;
+        }
+        for (DateRange availableDateRange : availableDates) {
+            if (bookingDates.isWithinAnotherDateRange(availableDateRange)) {
+                return availableDateRange;
+            }
+        }
+        return null;
+    }
+
     public void addAvailableDateRange(DateRange dateRange) {
 
         DateRange startsWhereNewDateRangeEnds = null;
@@ -0,0 +1,115 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/*pre-aggregated booking counters for one listing and one month, kept up to date by ListingStatsService when bookings are
+accepted, rejected or deleted (so host dashboards don't have to load all bookings)*/
+@Document(collection = "listing_monthly_stats")
+@CompoundIndexes({
+        @CompoundIndex(name = "hostId_month", def = "{'hostId': 1, 'month': 1}"),
+        @CompoundIndex(name = "listingId_month", def = "{'listingId': 1, 'month': 1}")
+})
+public class ListingMonthlyStats {
+    //listingId + ":" + month
+    @Id
+    private String id;
+
+    private String listingId;
+    private String hostId;
+
+    //yyyy-MM, sorts the same way as the months
+    private String month;
+
+    //nights of accepted bookings in this month (a booking over a month change counts in both months)
+    private long bookedNights;
+
+    //accepted/rejected bookings starting in this month
+    private long acceptedBookings;
+    private long rejectedBookings;
+
+    //total price of the accepted bookings, split over the months by number of nights
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal revenue;
+
+    //last increment, or the start of the rebuild that wrote it, older months are removed by a rebuild (see replaceAll)
+    private LocalDateTime updatedAt;
+
+    public ListingMonthlyStats() {
+    }
+
+    public ListingMonthlyStats(String listingId, String hostId, String month) {
+        this.id = listingId + ":" + month;
+        this.listingId = listingId;
+        this.hostId = hostId;
+        this.month = month;
+        this.revenue = BigDecimal.ZERO;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public String getHostId() {
+        return hostId;
+    }
+
+    public void setHostId(String hostId) {
+        this.hostId = hostId;
+    }
+
+    public String getMonth() {
+        return month;
+    }
+
+    public long getBookedNights() {
+        return bookedNights;
+    }
+
+    public void setBookedNights(long bookedNights) {
+        this.bookedNights = bookedNights;
+    }
+
+    public long getAcceptedBookings() {
+        return acceptedBookings;
+    }
+
+    public void setAcceptedBookings(long acceptedBookings) {
+        this.acceptedBookings = acceptedBookings;
+    }
+
+    public long getRejectedBookings() {
+        return rejectedBookings;
+    }
+
+    public void setRejectedBookings(long rejectedBookings) {
+        this.rejectedBookings = rejectedBookings;
+    }
+
+    public BigDecimal getRevenue() {
+        return revenue;
+    }
+
+    public void setRevenue(BigDecimal revenue) {
+        this.revenue = revenue;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
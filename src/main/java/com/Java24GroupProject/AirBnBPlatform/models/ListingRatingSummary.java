@@ -0,0 +1,67 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*pre-aggregated rating distribution of one listing, changed with $inc by ReviewService when a review is created or
+deleted, so the rating summary of a listing is read without loading its reviews*/
+@Document(collection = "listing_rating_summaries")
+public class ListingRatingSummary {
+    //the listing id
+    @Id
+    private String id;
+
+    private double ratingSum;
+    private long reviewCount;
+
+    //star ("1" - "5") -> number of reviews, the rating is rounded to the nearest star
+    private Map<String, Long> starCounts;
+
+    public ListingRatingSummary() {
+    }
+
+    public ListingRatingSummary(String listingId) {
+        this.id = listingId;
+        this.starCounts = new HashMap<>();
+    }
+
+    //the star a rating is counted under (ratings are between 1 and 5, x.5 is rounded up)
+    public static String starOf(double rating) {
+        return String.valueOf(Math.round(rating));
+    }
+
+    //add reviews with the given rating, used when rebuilding the summaries
+    public void addRating(double rating, long count) {
+        ratingSum += rating * count;
+        reviewCount += count;
+        starCounts.merge(starOf(rating), count, Long::sum);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public double getRatingSum() {
+        return ratingSum;
+    }
+
+    public long getReviewCount() {
+        return reviewCount;
+    }
+
+    //null if the listing has no reviews
+    public Double getAverageRating() {
+        return reviewCount > 0 ? ratingSum / reviewCount : null;
+    }
+
+    public long getStarCount(int star) {
+        return starCounts == null ? 0 : starCounts.getOrDefault(String.valueOf(star), 0L);
+    }
+
+    public Map<String, Long> getStarCounts() {
+        return starCounts;
+    }
+}
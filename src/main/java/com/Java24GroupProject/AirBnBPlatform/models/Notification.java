@@ -0,0 +1,72 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.NotificationType;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+//a message in a user's in-app notification feed (GET /notifications), removed by MongoDB after 30 days
+@Document(collection = "notifications")
+@CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': -1}")
+public class Notification {
+    @Id
+    private String id;
+
+    private String userId;
+    private NotificationType type;
+    private String message;
+    private String listingId;
+    //set for WAITLIST_BOOKED
+    private String bookingId;
+    private boolean read;
+
+    @Indexed(expireAfterSeconds = 30 * 24 * 60 * 60)
+    private LocalDateTime createdAt;
+
+    public Notification() {
+    }
+
+    public Notification(String userId, NotificationType type, String message, String listingId, String bookingId) {
+        this.userId = userId;
+        this.type = type;
+        this.message = message;
+        this.listingId = listingId;
+        this.bookingId = bookingId;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public NotificationType getType() {
+        return type;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public boolean isRead() {
+        return read;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
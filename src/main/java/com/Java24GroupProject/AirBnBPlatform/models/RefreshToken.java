@@ -0,0 +1,83 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*a long-lived token that gives a new access jwt without a password login (see RefreshTokenService). Only the hash of the
+token is stored. Every refresh marks the token as used and creates the next token in the same family, a used token that is
+sent again has been copied, and then the whole family is removed*/
+@Document(collection = "refresh_tokens")
+public class RefreshToken {
+    @Id
+    private String id;
+
+    //HMAC-SHA256 of the token
+    @Indexed(unique = true)
+    private String tokenHash;
+
+    //all tokens created from the same login
+    @Indexed
+    private String familyId;
+
+    @Indexed
+    private String userId;
+
+    //subject of the access jwt, so a refresh does not read the user
+    private String username;
+
+    //null until the token has been exchanged for the next one
+    private LocalDateTime usedAt;
+
+    private LocalDateTime createdAt;
+
+    //same for the whole family (a login is valid for jwt.refreshExpirationMs), removed by MongoDB when passed
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+
+    public RefreshToken() {
+    }
+
+    public RefreshToken(String tokenHash, String familyId, String userId, String username, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.tokenHash = tokenHash;
+        this.familyId = familyId;
+        this.userId = userId;
+        this.username = username;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getTokenHash() {
+        return tokenHash;
+    }
+
+    public String getFamilyId() {
+        return familyId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public LocalDateTime getUsedAt() {
+        return usedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,60 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*dates given back to a listing that have not been matched against the waitlist yet. Stored so they are not lost on a restart
+and every instance sees them, the waitlist job claims a batch, handles it and removes it (see WaitlistService)*/
+@Document(collection = "released_dates")
+public class ReleasedDates {
+    @Id
+    private String id;
+
+    @Indexed
+    private String listingId;
+    private DateRange releasedDates;
+    private LocalDateTime createdAt;
+
+    //the waitlist run handling the dates, the claim can be taken over when it is older than the claim timeout
+    @Indexed
+    private String claimedBy;
+    @Indexed
+    private LocalDateTime claimedAt;
+
+    public ReleasedDates() {
+    }
+
+    public ReleasedDates(String listingId, DateRange releasedDates, LocalDateTime createdAt) {
+        this.listingId = listingId;
+        this.releasedDates = releasedDates;
+        this.createdAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public DateRange getReleasedDates() {
+        return releasedDates;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public String getClaimedBy() {
+        return claimedBy;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+}
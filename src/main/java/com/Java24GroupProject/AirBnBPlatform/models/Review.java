@@ -5,6 +5,8 @@ import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 
@@ -12,6 +14,11 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Document(collection = "reviews")
+//the paginated reviews of a listing are read from these indexes, sorted by date or by rating (see ReviewSort)
+@CompoundIndexes({
+        @CompoundIndex(name = "listing_createdAt", def = "{'listing.$id': 1, 'createdAt': -1, '_id': -1}"),
+        @CompoundIndex(name = "listing_rating", def = "{'listing.$id': 1, 'rating': -1, 'createdAt': -1, '_id': -1}")
+})
 public class Review {
     @Id
     private String id;
@@ -27,6 +34,9 @@ public class Review {
     @NotNull(message = "An end date is required")
     private LocalDate endDate;
 
+    //the completed booking (stay) that was reviewed, null for reviews from before stays were marked as reviewed
+    private String bookingId;
+
     @NotNull(message = "rating is a required field")
     @Min(value = 1, message = "rating must be between 1 and 5")
     @Max(value = 5, message = "rating must be between 1 and 5")
@@ -103,4 +113,11 @@ public class Review {
         this.createdAt = createdAt;
     }
 
+    public String getBookingId() {
+        return bookingId;
+    }
+
+    public void setBookingId(String bookingId) {
+        this.bookingId = bookingId;
+    }
 }
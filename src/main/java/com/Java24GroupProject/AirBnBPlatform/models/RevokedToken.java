@@ -0,0 +1,52 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*a revoked access jwt (logout) or all access jwts of a user issued before notBefore (user deleted or roles changed), see
+TokenRevocationService. Removed by MongoDB when the revoked jwts have expired anyway*/
+@Document(collection = "revoked_tokens")
+public class RevokedToken {
+    //"jti:" + jwt id or "user:" + username
+    @Id
+    private String id;
+
+    //only for user entries, jwts issued at or before this time are revoked
+    private LocalDateTime notBefore;
+
+    //used to load the entries added by other instances
+    @Indexed
+    private LocalDateTime createdAt;
+
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String id, LocalDateTime notBefore, LocalDateTime createdAt, LocalDateTime expiresAt) {
+        this.id = id;
+        this.notBefore = notBefore;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public LocalDateTime getNotBefore() {
+        return notBefore;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
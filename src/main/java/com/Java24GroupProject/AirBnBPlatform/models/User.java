@@ -62,6 +62,17 @@ public class User {
 
     private LocalDateTime updatedAt;
 
+    //sum and count of the ratings of all reviews on the listings of this user (as host), changed with $inc by RatingAggregateService
+    private double hostRatingSum;
+
+    @Indexed
+    private long hostReviewCount;
+    //last change of the host rating fields, or the start of the rebuild that wrote them (see UserRepository.replaceHostRatings)
+    private LocalDateTime hostRatingUpdatedAt;
+
+    //set every night by RatingAggregateService, superhostUpdatedAt is the start of the run that made the user superhost
+    private boolean superhost;
+    private LocalDateTime superhostUpdatedAt;
 
     public User() {
     }
@@ -70,6 +81,10 @@ public class User {
         return id;
     }
 
+    public void setId(String id) {
+        this.id = id;
+    }
+
     public @NotNull(message = "username is a required field") @NotEmpty(message = "username is a required field") @NotBlank(message = "username is a required field") String getUsername() {
         return username;
     }
@@ -167,6 +182,51 @@ public class User {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public double getHostRatingSum() {
+        return hostRatingSum;
+    }
+
+    public void setHostRatingSum(double hostRatingSum) {
+        this.hostRatingSum = hostRatingSum;
+    }
+
+    public long getHostReviewCount() {
+        return hostReviewCount;
+    }
+
+    public void setHostReviewCount(long hostReviewCount) {
+        this.hostReviewCount = hostReviewCount;
+    }
+
+    //null if there are no reviews on the listings of the host
+    public Double getHostAverageRating() {
+        return hostReviewCount > 0 ? hostRatingSum / hostReviewCount : null;
+    }
+
+    public boolean isSuperhost() {
+        return superhost;
+    }
+
+    public void setSuperhost(boolean superhost) {
+        this.superhost = superhost;
+    }
+
+    public LocalDateTime getHostRatingUpdatedAt() {
+        return hostRatingUpdatedAt;
+    }
+
+    public void setHostRatingUpdatedAt(LocalDateTime hostRatingUpdatedAt) {
+        this.hostRatingUpdatedAt = hostRatingUpdatedAt;
+    }
+
+    public LocalDateTime getSuperhostUpdatedAt() {
+        return superhostUpdatedAt;
+    }
+
+    public void setSuperhostUpdatedAt(LocalDateTime superhostUpdatedAt) {
+        this.superhostUpdatedAt = superhostUpdatedAt;
+    }
 }
 
 
@@ -0,0 +1,104 @@
+package com.Java24GroupProject.AirBnBPlatform.models;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/*a guest waiting for dates on a listing that were not available. When dates on the listing are given back, the entry is
+booked (autoBook) or the guest is notified and the entry is removed (see WaitlistService)*/
+@Document(collection = "waitlist")
+@CompoundIndexes({
+        //used to find the entries that overlap the dates given back on a listing
+        @CompoundIndex(name = "listingId_wantedDates", def = "{'listingId': 1, 'wantedDates.startDate': 1, 'wantedDates.endDate': 1}"),
+        @CompoundIndex(name = "userId_createdAt", def = "{'userId': 1, 'createdAt': 1}")
+})
+public class WaitlistEntry {
+    @Id
+    private String id;
+
+    private String listingId;
+    private String userId;
+    private String username;
+    private DateRange wantedDates;
+    private Integer numberOfGuests;
+
+    //true = book the dates (pending booking) when they are available, false = only notify the guest
+    private boolean autoBook;
+
+    @CreatedDate
+    private LocalDateTime createdAt;
+
+    //removed by MongoDB when the wanted stay has started
+    @Indexed(expireAfterSeconds = 0)
+    private LocalDateTime expiresAt;
+
+    public WaitlistEntry() {
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getListingId() {
+        return listingId;
+    }
+
+    public void setListingId(String listingId) {
+        this.listingId = listingId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public DateRange getWantedDates() {
+        return wantedDates;
+    }
+
+    public void setWantedDates(DateRange wantedDates) {
+        this.wantedDates = wantedDates;
+        this.expiresAt = wantedDates.getStartDate().atStartOfDay();
+    }
+
+    public Integer getNumberOfGuests() {
+        return numberOfGuests;
+    }
+
+    public void setNumberOfGuests(Integer numberOfGuests) {
+        this.numberOfGuests = numberOfGuests;
+    }
+
+    public boolean isAutoBook() {
+        return autoBook;
+    }
+
+    public void setAutoBook(boolean autoBook) {
+        this.autoBook = autoBook;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,5 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+//the dates of a rejected or expired booking that have to be given back to the listing, loaded without resolving the booking DBRefs
+public record BookingDatesRelease(String bookingId, String listingId, DateRange bookingDates, BookingStatus bookingStatus) {
+}
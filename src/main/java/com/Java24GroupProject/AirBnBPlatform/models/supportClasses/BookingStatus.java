@@ -1,5 +1,6 @@
 package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
 
+//COMPLETED = an accepted booking whose end date has passed (set by BookingCompletionService), only completed stays can be reviewed
 public enum BookingStatus {
-    PENDING, ACCEPTED, REJECTED
+    PENDING, ACCEPTED, REJECTED, EXPIRED, COMPLETED
 }
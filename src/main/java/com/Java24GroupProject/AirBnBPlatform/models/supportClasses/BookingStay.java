@@ -0,0 +1,7 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import java.math.BigDecimal;
+
+//the parts of a booking used by the listing statistics, loaded without resolving the booking DBRefs (used when rebuilding the statistics)
+public record BookingStay(String listingId, DateRange bookingDates, BigDecimal totalPrice, BookingStatus bookingStatus) {
+}
@@ -3,6 +3,8 @@ package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
 
 public class DateRange {
     private LocalDate startDate;
@@ -45,4 +47,20 @@ public class DateRange {
         return !((this.endDate.isEqual(dateRange.startDate) || this.endDate.isBefore(dateRange.startDate))
                 || (dateRange.endDate.isEqual(this.startDate) || dateRange.endDate.isBefore(this.startDate)));
     }
+
+    //the parts of this range that are not in dateRange (none, one or two ranges)
+    public List<DateRange> subtract(DateRange dateRange) {
+        List<DateRange> remainingRanges = new ArrayList<>();
+        if (!hasOverlapWithAnotherDateRange(dateRange)) {
+            remainingRanges.add(new DateRange(startDate, endDate));
+            return remainingRanges;
+        }
+        if (startDate.isBefore(dateRange.startDate)) {
+            remainingRanges.add(new DateRange(startDate, dateRange.startDate));
+        }
+        if (endDate.isAfter(dateRange.endDate)) {
+            remainingRanges.add(new DateRange(dateRange.endDate, endDate));
+        }
+        return remainingRanges;
+    }
 }
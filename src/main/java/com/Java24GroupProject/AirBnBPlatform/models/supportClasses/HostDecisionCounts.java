@@ -0,0 +1,5 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+//accepted and rejected bookings of all listings of a host, summed from the listing statistics (used for superhost eligibility)
+public record HostDecisionCounts(String hostId, long acceptedBookings, long rejectedBookings) {
+}
@@ -0,0 +1,14 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import java.util.Map;
+
+//number of listings per utility, price range, capacity range and location for a listing search
+public record ListingFacetCounts(long total,
+                                 Map<String, Long> utilities,
+                                 Map<String, Long> priceRanges,
+                                 Map<String, Long> capacityRanges,
+                                 Map<String, Long> locations) {
+    //lower bounds of the price and capacity ranges, the last range has no upper bound
+    public static final int[] PRICE_RANGE_BOUNDARIES = {0, 500, 1000, 1500, 2000, 3000};
+    public static final int[] CAPACITY_RANGE_BOUNDARIES = {1, 3, 5, 7};
+}
@@ -0,0 +1,23 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import java.util.Set;
+
+/*holds the optional filters for a listing search, a null value means that the filter is not used.
+utilities is a parsed utility expression, e.g. "WIFI AND NOT PETS_ALLOWED" (see UtilityExpression),
+listingIds limits the search to the given listings (set by ListingService from the bitmap index when the utility filter is selective)*/
+public record ListingSearchCriteria(String location,
+                                    Double minPrice,
+                                    Double maxPrice,
+                                    Integer minCapacity,
+                                    Integer maxCapacity,
+                                    UtilityExpression utilities,
+                                    Set<String> listingIds) {
+
+    public ListingSearchCriteria withListingIds(Set<String> listingIds) {
+        return new ListingSearchCriteria(location, minPrice, maxPrice, minCapacity, maxCapacity, utilities, listingIds);
+    }
+
+    public ListingSearchCriteria withoutPrice() {
+        return new ListingSearchCriteria(location, null, null, minCapacity, maxCapacity, utilities, listingIds);
+    }
+}
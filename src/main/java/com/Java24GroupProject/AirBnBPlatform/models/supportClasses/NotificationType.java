@@ -0,0 +1,8 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+public enum NotificationType {
+    //a waitlisted stay was booked (pending host approval)
+    WAITLIST_BOOKED,
+    //waitlisted dates are available and can be booked
+    WAITLIST_DATES_AVAILABLE
+}
@@ -0,0 +1,5 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+//the dates a pending booking holds on a listing, loaded without resolving the booking DBRefs (used when expiring pending bookings)
+public record PendingBookingHold(String bookingId, String listingId, DateRange bookingDates) {
+}
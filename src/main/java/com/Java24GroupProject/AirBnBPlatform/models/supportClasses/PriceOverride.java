@@ -0,0 +1,44 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import org.springframework.data.mongodb.core.mapping.Field;
+import org.springframework.data.mongodb.core.mapping.FieldType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//a special price per night for the nights from startDate up to (not including) endDate, e.g. for holidays or high season
+public class PriceOverride {
+    private LocalDate startDate;
+    private LocalDate endDate;
+    @Field(targetType = FieldType.DECIMAL128)
+    private BigDecimal pricePerNight;
+
+    public PriceOverride(LocalDate startDate, LocalDate endDate, BigDecimal pricePerNight) {
+        if (startDate == null || endDate == null || !endDate.isAfter(startDate)) {
+            throw new IllegalArgumentException("price override start date must be before end date");
+        }
+        if (pricePerNight == null || pricePerNight.signum() <= 0) {
+            throw new IllegalArgumentException("price override pricePerNight must be greater than zero");
+        }
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.pricePerNight = pricePerNight;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public BigDecimal getPricePerNight() {
+        return pricePerNight;
+    }
+
+    public boolean includesNight(LocalDate date) {
+        return !date.isBefore(startDate) && date.isBefore(endDate);
+    }
+}
@@ -0,0 +1,5 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+//sum and count of the review ratings of a listing or host, id is the listing or host id (used when rebuilding the host ratings)
+public record RatingTotals(String id, double ratingSum, long reviewCount) {
+}
@@ -0,0 +1,31 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import org.bson.types.ObjectId;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+//the sort values of the last review of a page, the next page starts after this review (rating is only used when sorting by rating)
+public record ReviewPageCursor(double rating, LocalDateTime createdAt, String reviewId) {
+
+    //the cursor sent to clients, base64 encoded so clients treat it as an opaque string
+    public String encode() {
+        String value = rating + "|" + createdAt + "|" + reviewId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ReviewPageCursor decode(String cursor) {
+        try {
+            String[] values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (values.length != 3 || !ObjectId.isValid(values[2])) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new ReviewPageCursor(Double.parseDouble(values[0]), LocalDateTime.parse(values[1]), values[2]);
+        } catch (java.lang.IllegalArgumentException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+
+import java.util.Locale;
+
+/*sort orders of the paginated reviews of a listing. The ties are broken by createdAt and id, so every review has a unique
+place in the order and a page can continue after the last review of the previous page (see ReviewPageCursor).
+Every order is served by the listing_createdAt or listing_rating index of Review, read forwards or backwards*/
+public enum ReviewSort {
+    NEWEST(false, false),
+    OLDEST(false, true),
+    HIGHEST_RATED(true, false),
+    LOWEST_RATED(true, true);
+
+    private final boolean byRating;
+    private final boolean ascending;
+
+    ReviewSort(boolean byRating, boolean ascending) {
+        this.byRating = byRating;
+        this.ascending = ascending;
+    }
+
+    public boolean isByRating() {
+        return byRating;
+    }
+
+    public boolean isAscending() {
+        return ascending;
+    }
+
+    //parse the ?sort= parameter, e.g. "newest" or "highest_rated"
+    public static ReviewSort fromParameter(String sort) {
+        try {
+            return ReviewSort.valueOf(sort.trim().toUpperCase(Locale.ROOT));
+        } catch (java.lang.IllegalArgumentException e) {
+            throw new IllegalArgumentException("sort must be one of newest, oldest, highest_rated or lowest_rated");
+        }
+    }
+}
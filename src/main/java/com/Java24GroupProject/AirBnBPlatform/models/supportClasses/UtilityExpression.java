@@ -0,0 +1,126 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.StringTokenizer;
+import java.util.stream.Collectors;
+
+/*a parsed utility search, e.g. "WIFI AND (POOL OR KITCHEN) AND NOT PETS_ALLOWED" (a comma works as AND, case does not matter).
+Evaluated on the bitmaps by ListingBitmapIndex, or turned into a query on the utilities field by ListingRepository.
+Two searches that mean the same are equal, so the expression can be used in cache keys (toString gives the normalized form)*/
+public sealed interface UtilityExpression {
+
+    static UtilityExpression parse(String expression) {
+        return new Parser(expression).parse();
+    }
+
+    record Utility(ListingUtilities utility) implements UtilityExpression {
+        @Override
+        public String toString() {
+            return utility.name();
+        }
+    }
+
+    record Not(UtilityExpression operand) implements UtilityExpression {
+        @Override
+        public String toString() {
+            return "NOT " + inParentheses(operand);
+        }
+    }
+
+    record And(List<UtilityExpression> operands) implements UtilityExpression {
+        @Override
+        public String toString() {
+            return operands.stream().map(UtilityExpression::inParentheses).collect(Collectors.joining(" AND "));
+        }
+    }
+
+    record Or(List<UtilityExpression> operands) implements UtilityExpression {
+        @Override
+        public String toString() {
+            return operands.stream().map(UtilityExpression::inParentheses).collect(Collectors.joining(" OR "));
+        }
+    }
+
+    private static String inParentheses(UtilityExpression expression) {
+        return expression instanceof And || expression instanceof Or ? "(" + expression + ")" : expression.toString();
+    }
+
+    /*recursive descent parser
+    expression = term { OR term }, term = factor { AND factor }, factor = NOT factor | ( expression ) | UTILITY*/
+    final class Parser {
+        private final List<String> tokens = new ArrayList<>();
+        private int position = 0;
+
+        private Parser(String expression) {
+            StringTokenizer tokenizer = new StringTokenizer(expression == null ? "" : expression, " ,()", true);
+            while (tokenizer.hasMoreTokens()) {
+                String token = tokenizer.nextToken().trim();
+                if (token.equals(",")) {
+                    tokens.add("AND");
+                } else if (!token.isEmpty()) {
+                    tokens.add(token.toUpperCase());
+                }
+            }
+        }
+
+        private UtilityExpression parse() {
+            if (tokens.isEmpty()) {
+                throw new IllegalArgumentException("Utility cannot be empty or null");
+            }
+            UtilityExpression result = parseExpression();
+            if (position < tokens.size()) {
+                throw new IllegalArgumentException("Unexpected '" + tokens.get(position) + "' in utility search");
+            }
+            return result;
+        }
+
+        private UtilityExpression parseExpression() {
+            List<UtilityExpression> terms = new ArrayList<>(List.of(parseTerm()));
+            while (nextTokenIs("OR")) {
+                position++;
+                terms.add(parseTerm());
+            }
+            return terms.size() == 1 ? terms.get(0) : new Or(List.copyOf(terms));
+        }
+
+        private UtilityExpression parseTerm() {
+            List<UtilityExpression> factors = new ArrayList<>(List.of(parseFactor()));
+            while (nextTokenIs("AND")) {
+                position++;
+                factors.add(parseFactor());
+            }
+            return factors.size() == 1 ? factors.get(0) : new And(List.copyOf(factors));
+        }
+
+        private UtilityExpression parseFactor() {
+            if (position >= tokens.size()) {
+                throw new IllegalArgumentException("Utility search ends unexpectedly");
+            }
+            String token = tokens.get(position++);
+            if (token.equals("NOT")) {
+                return new Not(parseFactor());
+            }
+            if (token.equals("(")) {
+                UtilityExpression result = parseExpression();
+                if (!nextTokenIs(")")) {
+                    throw new IllegalArgumentException("Missing ')' in utility search");
+                }
+                position++;
+                return result;
+            }
+            try {
+                return new Utility(ListingUtilities.valueOf(token));
+            } catch (java.lang.IllegalArgumentException exception) {
+                throw new IllegalArgumentException("'" + token + "' is not a valid utility, valid utilities are " + Arrays.toString(ListingUtilities.values()));
+            }
+        }
+
+        private boolean nextTokenIs(String expected) {
+            return position < tokens.size() && tokens.get(position).equals(expected);
+        }
+    }
+}
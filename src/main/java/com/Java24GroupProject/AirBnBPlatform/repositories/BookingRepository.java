@@ -3,17 +3,18 @@ package com.Java24GroupProject.AirBnBPlatform.repositories;
 import com.Java24GroupProject.AirBnBPlatform.models.Booking;
 import com.Java24GroupProject.AirBnBPlatform.models.Listing;
 import com.Java24GroupProject.AirBnBPlatform.models.User;
+import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
-import java.util.Optional;
 
-public interface BookingRepository extends MongoRepository<Booking, String> {
+public interface BookingRepository extends MongoRepository<Booking, String>, BookingRepositoryCustom {
     List<Booking> findByUser(User user);
     List<Booking> findByListing(Listing listing);
     void deleteByListing(Listing listing);
     List<Booking> deleteByUser(User user);
-    // Find a booking by user and listing
-    Optional<Booking> findByUserAndListing(User user, Listing listing);
-    // Find all bookings for a specific user that have ended (end date is in the past)
+    //pending, accepted and completed bookings of a listing (the bookings that hold dates), with only dates and status (DBRefs are not loaded)
+    @Query(value = "{ 'listing.$id': ?0, 'bookingStatus': { $in: ['PENDING', 'ACCEPTED', 'COMPLETED'] } }", fields = "{ 'bookingDates': 1, 'bookingStatus': 1 }")
+    List<Booking> findDateHoldingByListingId(ObjectId listingId);
 }
@@ -0,0 +1,62 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingDatesRelease;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStay;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.PendingBookingHold;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+//booking queries implemented with MongoTemplate in BookingRepositoryCustomImpl
+public interface BookingRepositoryCustom {
+    //the *WithFields queries only load the fields needed for the BookingResponse fields in "fields" (null = all BookingResponse fields)
+    Optional<Booking> findByIdWithFields(String id, Set<String> fields);
+    List<Booking> findAllWithFields(Set<String> fields);
+    List<Booking> findByUserIdWithFields(String userId, Set<String> fields);
+    List<Booking> findByListingIdWithFields(String listingId, Set<String> fields);
+
+    //the oldest pending bookings created before createdBefore (max limit), with only the listing id and booking dates
+    List<PendingBookingHold> findPendingHoldsCreatedBefore(LocalDateTime createdBefore, int limit);
+    /*set status EXPIRED on the bookings that are still pending (a host may have accepted/rejected a booking in the meantime)
+    with one bulk write, the dates are marked as due to be given back (datesReleaseDueAt). Returns the number of expired bookings*/
+    int markPendingAsExpired(Collection<String> bookingIds);
+    /*claim max limit bookings whose dates are due to be given back (only the bookings in bookingIds, null = any), so no other run
+    gives them back at the same time. The claim ends at claimedUntil, after that another run can claim them again*/
+    List<BookingDatesRelease> claimDatesReleases(Collection<String> bookingIds, String claimId, LocalDateTime now, LocalDateTime claimedUntil, int limit);
+    //the dates of the bookings are given back, removes the release marker if the bookings are still claimed by claimId
+    void completeDatesReleases(Collection<String> bookingIds, String claimId);
+
+    //set status COMPLETED on accepted bookings that ended on or before endDate, returns the number of completed bookings
+    long completeEndedOnOrBefore(LocalDate endDate);
+    //the completed stay of a user on a listing with the latest end date that has not been reviewed, with only the booking dates
+    Optional<Booking> findLatestUnreviewedStay(String userId, String listingId);
+    //completed stays of a user that have not been reviewed, latest end date first
+    List<Booking> findAwaitingReviewByUserIdWithFields(String userId, Set<String> fields);
+    //mark a stay as reviewed, returns false if it already was (two reviews of the same stay at the same time)
+    boolean markReviewed(String bookingId);
+    void unmarkReviewed(String bookingId);
+
+    //bookings without resolving the listing and user DBRefs, listing and user only have their id set
+    List<Booking> findByIdsWithoutReferences(Collection<String> ids);
+    /*write bookingStatus and updatedAt of the bookings that are still pending, returns the ids of the bookings that were changed.
+    The dates of rejected bookings are marked as due to be given back (datesReleaseDueAt)*/
+    List<String> updatePendingStatuses(Collection<Booking> bookings);
+
+    /*archived bookings are kept in one collection per year of the booking end date (bookings_archive_<year>).
+    Moves max batchSize bookings that are not pending and ended before endedBefore, returns the number of moved bookings.
+    Archived rejected bookings are removed by MongoDB rejectedTtlDays after archiving (null = kept)*/
+    int archiveEndedBefore(LocalDate endedBefore, int batchSize, Integer rejectedTtlDays);
+    List<Booking> findArchivedByUserIdWithFields(String userId, Set<String> fields);
+    List<Booking> findArchivedByListingIdWithFields(String listingId, Set<String> fields);
+    void deleteArchivedByUserId(String userId);
+    void deleteArchivedByListingId(String listingId);
+
+    //call consumer for every accepted (incl. completed) or rejected booking, incl. archived bookings (used when rebuilding the listing statistics)
+    void forEachAcceptedOrRejectedStay(Consumer<BookingStay> consumer);
+}
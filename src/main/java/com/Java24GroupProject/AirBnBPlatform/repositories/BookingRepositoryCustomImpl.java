@@ -0,0 +1,381 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingDatesRelease;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStay;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.PendingBookingHold;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.PartialIndexFilter;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+//Spring Data picks up this class by name and adds the methods to BookingRepository
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+    //BookingResponse field -> Booking document fields needed to fill it in
+    private static final Map<String, List<String>> DOCUMENT_FIELDS = Map.ofEntries(
+            Map.entry("listing", List.of("listing", "listingTitle")),
+            Map.entry("userId", List.of("user")),
+            Map.entry("username", List.of("user")),
+            Map.entry("userEmail", List.of("user")),
+            Map.entry("userPhoneNr", List.of("user")),
+            Map.entry("startDate", List.of("bookingDates")),
+            Map.entry("endDate", List.of("bookingDates")),
+            Map.entry("numberOfGuests", List.of("numberOfGuests")),
+            Map.entry("totalPrice", List.of("totalPrice")),
+            Map.entry("status", List.of("bookingStatus"))
+    );
+
+    private static final String BOOKINGS_COLLECTION = "bookings";
+    private static final String ARCHIVE_COLLECTION_PREFIX = "bookings_archive_";
+
+    //archive collections that have had their indexes created since startup
+    private final Set<String> indexedArchiveCollections = ConcurrentHashMap.newKeySet();
+
+    private final MongoTemplate mongoTemplate;
+
+    public BookingRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<Booking> findByIdWithFields(String id, Set<String> fields) {
+        Query query = FieldProjection.withFields(new Query(Criteria.where("_id").is(id)), fields, DOCUMENT_FIELDS);
+        return Optional.ofNullable(mongoTemplate.findOne(query, Booking.class));
+    }
+
+    @Override
+    public List<Booking> findAllWithFields(Set<String> fields) {
+        return mongoTemplate.find(FieldProjection.withFields(new Query(), fields, DOCUMENT_FIELDS), Booking.class);
+    }
+
+    @Override
+    public List<Booking> findByUserIdWithFields(String userId, Set<String> fields) {
+        return findByReference("user", userId, fields);
+    }
+
+    @Override
+    public List<Booking> findByListingIdWithFields(String listingId, Set<String> fields) {
+        return findByReference("listing", listingId, fields);
+    }
+
+    @Override
+    public List<PendingBookingHold> findPendingHoldsCreatedBefore(LocalDateTime createdBefore, int limit) {
+        Query query = new Query(Criteria.where("bookingStatus").is(BookingStatus.PENDING).and("createdAt").lt(createdBefore))
+                .with(Sort.by("createdAt"))
+                .limit(limit);
+        query.fields().include("listing", "bookingDates");
+
+        //read as plain documents so the listing DBRef is not resolved (one extra query per booking)
+        List<PendingBookingHold> holds = new ArrayList<>();
+        for (Document document : mongoTemplate.find(query, Document.class, BOOKINGS_COLLECTION)) {
+            DBRef listing = document.get("listing", DBRef.class);
+            DateRange bookingDates = mongoTemplate.getConverter().read(DateRange.class, document.get("bookingDates", Document.class));
+            holds.add(new PendingBookingHold(document.getObjectId("_id").toString(), listing.getId().toString(), bookingDates));
+        }
+        return holds;
+    }
+
+    @Override
+    public int markPendingAsExpired(Collection<String> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Update update = new Update()
+                .set("bookingStatus", BookingStatus.EXPIRED)
+                .set("updatedAt", now)
+                .set("datesReleaseDueAt", now);
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+        for (String bookingId : bookingIds) {
+            bulkOperations.updateOne(new Query(Criteria.where("_id").is(bookingId).and("bookingStatus").is(BookingStatus.PENDING)), update);
+        }
+        return bulkOperations.execute().getModifiedCount();
+    }
+
+    @Override
+    public List<BookingDatesRelease> claimDatesReleases(Collection<String> bookingIds, String claimId, LocalDateTime now, LocalDateTime claimedUntil, int limit) {
+        Criteria due = Criteria.where("datesReleaseDueAt").lte(now);
+        if (bookingIds != null) {
+            due.and("_id").in(bookingIds.stream().filter(ObjectId::isValid).map(ObjectId::new).collect(Collectors.toList()));
+        }
+        Query candidatesQuery = new Query(due).with(Sort.by("datesReleaseDueAt")).limit(limit);
+        candidatesQuery.fields().include("_id");
+        List<ObjectId> candidateIds = mongoTemplate.find(candidatesQuery, Document.class, BOOKINGS_COLLECTION).stream()
+                .map(document -> document.getObjectId("_id"))
+                .collect(Collectors.toList());
+        if (candidateIds.isEmpty()) {
+            return List.of();
+        }
+
+        //the due condition is checked again, so releases another run claimed in the meantime are left to that run
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(candidateIds).and("datesReleaseDueAt").lte(now)),
+                new Update().set("datesReleaseDueAt", claimedUntil).set("datesReleaseClaimedBy", claimId), Booking.class);
+        Query claimedQuery = new Query(Criteria.where("datesReleaseClaimedBy").is(claimId));
+        claimedQuery.fields().include("listing", "bookingDates", "bookingStatus");
+
+        //read as plain documents so the listing DBRef is not resolved
+        List<BookingDatesRelease> releases = new ArrayList<>();
+        for (Document document : mongoTemplate.find(claimedQuery, Document.class, BOOKINGS_COLLECTION)) {
+            DBRef listing = document.get("listing", DBRef.class);
+            DateRange bookingDates = mongoTemplate.getConverter().read(DateRange.class, document.get("bookingDates", Document.class));
+            releases.add(new BookingDatesRelease(document.getObjectId("_id").toString(), listing.getId().toString(), bookingDates,
+                    BookingStatus.valueOf(document.getString("bookingStatus"))));
+        }
+        return releases;
+    }
+
+    @Override
+    public void completeDatesReleases(Collection<String> bookingIds, String claimId) {
+        mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(bookingIds).and("datesReleaseClaimedBy").is(claimId)),
+                new Update().unset("datesReleaseDueAt").unset("datesReleaseClaimedBy"), Booking.class);
+    }
+
+    @Override
+    public long completeEndedOnOrBefore(LocalDate endDate) {
+        Query query = new Query(Criteria.where("bookingStatus").is(BookingStatus.ACCEPTED).and("bookingDates.endDate").lte(endDate));
+        Update update = new Update()
+                .set("bookingStatus", BookingStatus.COMPLETED)
+                .set("updatedAt", LocalDateTime.now());
+        return mongoTemplate.updateMulti(query, update, Booking.class).getModifiedCount();
+    }
+
+    @Override
+    public Optional<Booking> findLatestUnreviewedStay(String userId, String listingId) {
+        if (!ObjectId.isValid(userId) || !ObjectId.isValid(listingId)) {
+            return Optional.empty();
+        }
+        Query query = new Query(completedStays(userId).and("listing.$id").is(new ObjectId(listingId)).and("reviewed").ne(true))
+                .with(Sort.by(Sort.Direction.DESC, "bookingDates.endDate"));
+        query.fields().include("bookingDates");
+        return Optional.ofNullable(mongoTemplate.findOne(query, Booking.class));
+    }
+
+    @Override
+    public List<Booking> findAwaitingReviewByUserIdWithFields(String userId, Set<String> fields) {
+        if (!ObjectId.isValid(userId)) {
+            return List.of();
+        }
+        Query query = new Query(completedStays(userId).and("reviewed").ne(true))
+                .with(Sort.by(Sort.Direction.DESC, "bookingDates.endDate"));
+        return mongoTemplate.find(FieldProjection.withFields(query, fields, DOCUMENT_FIELDS), Booking.class);
+    }
+
+    @Override
+    public boolean markReviewed(String bookingId) {
+        Query query = new Query(Criteria.where("_id").is(bookingId).and("reviewed").ne(true));
+        return mongoTemplate.updateFirst(query, new Update().set("reviewed", true), Booking.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public void unmarkReviewed(String bookingId) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(bookingId)), new Update().set("reviewed", false), Booking.class);
+    }
+
+    @Override
+    public List<Booking> findByIdsWithoutReferences(Collection<String> ids) {
+        List<ObjectId> objectIds = ids.stream().filter(ObjectId::isValid).map(ObjectId::new).collect(Collectors.toList());
+        List<Booking> bookings = new ArrayList<>();
+        for (Document document : mongoTemplate.find(new Query(Criteria.where("_id").in(objectIds)), Document.class, BOOKINGS_COLLECTION)) {
+            //remove the DBRefs before mapping, so they are not resolved (one query each)
+            DBRef listingReference = (DBRef) document.remove("listing");
+            DBRef userReference = (DBRef) document.remove("user");
+            Booking booking = mongoTemplate.getConverter().read(Booking.class, document);
+            if (listingReference != null) {
+                Listing listing = new Listing();
+                listing.setId(listingReference.getId().toString());
+                booking.setListing(listing);
+            }
+            if (userReference != null) {
+                User user = new User();
+                user.setId(userReference.getId().toString());
+                booking.setUser(user);
+            }
+            bookings.add(booking);
+        }
+        return bookings;
+    }
+
+    @Override
+    public List<String> updatePendingStatuses(Collection<Booking> bookings) {
+        //one conditional update per booking, a bulk write only gives the total modified count
+        List<String> changedIds = new ArrayList<>();
+        for (Booking booking : bookings) {
+            Query query = new Query(Criteria.where("_id").is(booking.getId()).and("bookingStatus").is(BookingStatus.PENDING));
+            Update update = new Update().set("bookingStatus", booking.getBookingStatus()).set("updatedAt", booking.getUpdatedAt());
+            //a rejected booking no longer holds its dates, they are marked as due in the same write (see BookingDatesReleaseService)
+            if (booking.getBookingStatus() == BookingStatus.REJECTED) {
+                update.set("datesReleaseDueAt", booking.getUpdatedAt());
+            }
+            if (mongoTemplate.updateFirst(query, update, Booking.class).getModifiedCount() == 1) {
+                changedIds.add(booking.getId());
+            }
+        }
+        return changedIds;
+    }
+
+    @Override
+    public int archiveEndedBefore(LocalDate endedBefore, int batchSize, Integer rejectedTtlDays) {
+        //bookings whose dates are still to be given back stay until that is done
+        Query query = new Query(Criteria.where("bookingStatus").ne(BookingStatus.PENDING.name()).and("bookingDates.endDate").lt(endedBefore)
+                .and("datesReleaseDueAt").exists(false))
+                .limit(batchSize);
+        List<Document> bookings = mongoTemplate.find(query, Document.class, BOOKINGS_COLLECTION);
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+
+        //group by archive collection (year of the end date)
+        Date archivedAt = new Date();
+        Map<String, List<Document>> bookingsByArchive = new HashMap<>();
+        for (Document booking : bookings) {
+            DateRange bookingDates = mongoTemplate.getConverter().read(DateRange.class, booking.get("bookingDates", Document.class));
+            booking.put("archivedAt", archivedAt);
+            bookingsByArchive.computeIfAbsent(ARCHIVE_COLLECTION_PREFIX + bookingDates.getEndDate().getYear(), name -> new ArrayList<>()).add(booking);
+        }
+
+        //copy with upserts first and remove afterwards, so a batch that fails half way can be run again without duplicates
+        bookingsByArchive.forEach((archiveCollection, archiveBookings) -> {
+            ensureArchiveIndexes(archiveCollection, rejectedTtlDays);
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, archiveCollection);
+            for (Document booking : archiveBookings) {
+                bulkOperations.replaceOne(new Query(Criteria.where("_id").is(booking.get("_id"))), booking, FindAndReplaceOptions.options().upsert());
+            }
+            bulkOperations.execute();
+        });
+        List<Object> bookingIds = bookings.stream().map(booking -> booking.get("_id")).collect(Collectors.toList());
+        mongoTemplate.remove(new Query(Criteria.where("_id").in(bookingIds)), BOOKINGS_COLLECTION);
+        return bookings.size();
+    }
+
+    @Override
+    public List<Booking> findArchivedByUserIdWithFields(String userId, Set<String> fields) {
+        return findArchivedByReference("user", userId, fields);
+    }
+
+    @Override
+    public List<Booking> findArchivedByListingIdWithFields(String listingId, Set<String> fields) {
+        return findArchivedByReference("listing", listingId, fields);
+    }
+
+    @Override
+    public void deleteArchivedByUserId(String userId) {
+        deleteArchivedByReference("user", userId);
+    }
+
+    @Override
+    public void deleteArchivedByListingId(String listingId) {
+        deleteArchivedByReference("listing", listingId);
+    }
+
+    @Override
+    public void forEachAcceptedOrRejectedStay(Consumer<BookingStay> consumer) {
+        List<String> collections = new ArrayList<>(getArchiveCollectionNames());
+        collections.add(BOOKINGS_COLLECTION);
+        for (String collection : collections) {
+            Query query = new Query(Criteria.where("bookingStatus").in(BookingStatus.ACCEPTED.name(), BookingStatus.COMPLETED.name(), BookingStatus.REJECTED.name()));
+            query.fields().include("listing", "bookingDates", "totalPrice", "bookingStatus");
+
+            //streamed as plain documents so all bookings are not held in memory and the listing DBRef is not resolved
+            try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+                documents.forEach(document -> {
+                    DBRef listing = document.get("listing", DBRef.class);
+                    DateRange bookingDates = mongoTemplate.getConverter().read(DateRange.class, document.get("bookingDates", Document.class));
+                    //totalPrice is stored as a string (BigDecimal default), Decimal128.toString() also gives the number
+                    Object totalPrice = document.get("totalPrice");
+                    consumer.accept(new BookingStay(listing.getId().toString(), bookingDates,
+                            totalPrice == null ? BigDecimal.ZERO : new BigDecimal(totalPrice.toString()),
+                            BookingStatus.valueOf(document.getString("bookingStatus"))));
+                });
+            }
+        }
+    }
+
+    //completed stays of a user, in the order of the user_status_listing_endDate index
+    private static Criteria completedStays(String userId) {
+        return Criteria.where("user.$id").is(new ObjectId(userId)).and("bookingStatus").is(BookingStatus.COMPLETED);
+    }
+
+    //find bookings where a DBRef field points to the document with the given id
+    private List<Booking> findByReference(String referenceField, String id, Set<String> fields) {
+        if (!ObjectId.isValid(id)) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where(referenceField + ".$id").is(new ObjectId(id)));
+        return mongoTemplate.find(FieldProjection.withFields(query, fields, DOCUMENT_FIELDS), Booking.class);
+    }
+
+    //same as findByReference in all archive collections, newest year first
+    private List<Booking> findArchivedByReference(String referenceField, String id, Set<String> fields) {
+        if (!ObjectId.isValid(id)) {
+            return List.of();
+        }
+        List<Booking> bookings = new ArrayList<>();
+        for (String archiveCollection : getArchiveCollectionNames()) {
+            Query query = new Query(Criteria.where(referenceField + ".$id").is(new ObjectId(id)));
+            bookings.addAll(mongoTemplate.find(FieldProjection.withFields(query, fields, DOCUMENT_FIELDS), Booking.class, archiveCollection));
+        }
+        return bookings;
+    }
+
+    private void deleteArchivedByReference(String referenceField, String id) {
+        if (!ObjectId.isValid(id)) {
+            return;
+        }
+        for (String archiveCollection : getArchiveCollectionNames()) {
+            mongoTemplate.remove(new Query(Criteria.where(referenceField + ".$id").is(new ObjectId(id))), archiveCollection);
+        }
+    }
+
+    private List<String> getArchiveCollectionNames() {
+        return mongoTemplate.getCollectionNames().stream()
+                .filter(name -> name.startsWith(ARCHIVE_COLLECTION_PREFIX))
+                .sorted(Comparator.reverseOrder())
+                .collect(Collectors.toList());
+    }
+
+    //archive collections are created by the archiving, so their indexes are created here (once per collection)
+    private void ensureArchiveIndexes(String archiveCollection, Integer rejectedTtlDays) {
+        if (!indexedArchiveCollections.add(archiveCollection)) {
+            return;
+        }
+        IndexOperations indexOperations = mongoTemplate.indexOps(archiveCollection);
+        indexOperations.ensureIndex(new Index().on("user.$id", Sort.Direction.ASC).named("user_id"));
+        indexOperations.ensureIndex(new Index().on("listing.$id", Sort.Direction.ASC).named("listing_id"));
+        if (rejectedTtlDays != null) {
+            indexOperations.ensureIndex(new Index().on("archivedAt", Sort.Direction.ASC).named("rejected_ttl")
+                    .expire(rejectedTtlDays, TimeUnit.DAYS)
+                    .partial(PartialIndexFilter.of(Criteria.where("bookingStatus").is(BookingStatus.REJECTED.name()))));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*helper for sparse fieldsets (?fields=), translates the response DTO field names asked for by the client to the document
+fields that are needed to fill them in, and adds them as a projection to the query. Fields that are not asked for are not
+loaded, which also means that DBRefs that are not asked for are never resolved*/
+final class FieldProjection {
+
+    private FieldProjection() {
+    }
+
+    //fields == null means that the client did not use ?fields=, then all fields of the response DTO are loaded
+    static Query withFields(Query query, Set<String> fields, Map<String, List<String>> documentFieldsByResponseField) {
+        for (String field : fields == null ? documentFieldsByResponseField.keySet() : fields) {
+            for (String documentField : documentFieldsByResponseField.getOrDefault(field, List.of())) {
+                query.fields().include(documentField);
+            }
+        }
+        //_id is always included, this also makes sure the projection is not empty (an empty projection loads all fields)
+        query.fields().include("_id");
+        return query;
+    }
+}
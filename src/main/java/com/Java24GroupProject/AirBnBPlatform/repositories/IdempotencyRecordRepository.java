@@ -0,0 +1,7 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.IdempotencyRecord;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface IdempotencyRecordRepository extends MongoRepository<IdempotencyRecord, String>, IdempotencyRecordRepositoryCustom {
+}
@@ -0,0 +1,15 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.IdempotencyRecord;
+
+import java.time.LocalDateTime;
+
+//conditional writes of idempotency records, a record is only changed by the request that owns it (see IdempotencyFilter)
+public interface IdempotencyRecordRepositoryCustom {
+    //make ownerId the owner of a record that is not completed and whose owner's lock ended before now, returns false if another request has it
+    boolean takeOver(String id, String ownerId, LocalDateTime lockedUntil, LocalDateTime now);
+    //store the response of the record if it is still owned by its owner and not completed, returns false otherwise
+    boolean complete(IdempotencyRecord record);
+    //remove a record that is not completed and still owned by ownerId, so the request can be retried
+    void deleteUncompleted(String id, String ownerId);
+}
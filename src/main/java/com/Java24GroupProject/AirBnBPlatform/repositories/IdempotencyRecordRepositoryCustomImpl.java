@@ -0,0 +1,41 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.IdempotencyRecord;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+
+//Spring Data picks up this class by name and adds the methods to IdempotencyRecordRepository
+public class IdempotencyRecordRepositoryCustomImpl implements IdempotencyRecordRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public IdempotencyRecordRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean takeOver(String id, String ownerId, LocalDateTime lockedUntil, LocalDateTime now) {
+        Query query = new Query(Criteria.where("_id").is(id).and("completed").is(false).and("lockedUntil").lt(now));
+        Update update = new Update().set("ownerId", ownerId).set("lockedUntil", lockedUntil);
+        return mongoTemplate.updateFirst(query, update, IdempotencyRecord.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public boolean complete(IdempotencyRecord record) {
+        Query query = new Query(Criteria.where("_id").is(record.getId()).and("ownerId").is(record.getOwnerId()).and("completed").is(false));
+        Update update = new Update()
+                .set("completed", true)
+                .set("status", record.getStatus())
+                .set("contentType", record.getContentType())
+                .set("body", record.getBody());
+        return mongoTemplate.updateFirst(query, update, IdempotencyRecord.class).getModifiedCount() == 1;
+    }
+
+    @Override
+    public void deleteUncompleted(String id, String ownerId) {
+        mongoTemplate.remove(new Query(Criteria.where("_id").is(id).and("ownerId").is(ownerId).and("completed").is(false)), IdempotencyRecord.class);
+    }
+}
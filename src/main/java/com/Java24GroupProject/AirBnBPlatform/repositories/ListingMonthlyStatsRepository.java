@@ -0,0 +1,18 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingMonthlyStats;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.util.List;
+
+public interface ListingMonthlyStatsRepository extends MongoRepository<ListingMonthlyStats, String>, ListingMonthlyStatsRepositoryCustom {
+    //months are yyyy-MM strings, both fromMonth and toMonth are included
+    @Query(value = "{ 'hostId': ?0, 'month': { $gte: ?1, $lte: ?2 } }", sort = "{ 'month': 1, 'listingId': 1 }")
+    List<ListingMonthlyStats> findByHostIdAndMonthRange(String hostId, String fromMonth, String toMonth);
+
+    @Query(value = "{ 'listingId': ?0, 'month': { $gte: ?1, $lte: ?2 } }", sort = "{ 'month': 1 }")
+    List<ListingMonthlyStats> findByListingIdAndMonthRange(String listingId, String fromMonth, String toMonth);
+
+    void deleteByListingId(String listingId);
+}
@@ -0,0 +1,20 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingMonthlyStats;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.HostDecisionCounts;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface ListingMonthlyStatsRepositoryCustom {
+    //add the counters of each (listingId, month) to the stored counters ($inc, negative values subtract), missing months are created
+    void incrementAll(Collection<ListingMonthlyStats> increments);
+
+    /*replace all stored statistics with the given statistics (used when rebuilding from the bookings). The statistics are
+    written with updatedAt = rebuildStartedAt, months that were not written and not incremented since the rebuild started are removed*/
+    void replaceAll(Collection<ListingMonthlyStats> stats, LocalDateTime rebuildStartedAt);
+
+    //accepted and rejected bookings per host, summed over all listings of the host from fromMonth to toMonth ("yyyy-MM", included)
+    List<HostDecisionCounts> sumDecisionsByHostIds(Collection<String> hostIds, String fromMonth, String toMonth);
+}
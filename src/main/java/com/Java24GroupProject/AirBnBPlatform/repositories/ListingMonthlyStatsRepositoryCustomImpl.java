@@ -0,0 +1,81 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingMonthlyStats;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.HostDecisionCounts;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+//Spring Data picks up this class by name and adds the methods to ListingMonthlyStatsRepository
+public class ListingMonthlyStatsRepositoryCustomImpl implements ListingMonthlyStatsRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public ListingMonthlyStatsRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void incrementAll(Collection<ListingMonthlyStats> increments) {
+        if (increments.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ListingMonthlyStats.class);
+        for (ListingMonthlyStats increment : increments) {
+            Update update = new Update()
+                    .setOnInsert("listingId", increment.getListingId())
+                    .setOnInsert("month", increment.getMonth())
+                    .set("hostId", increment.getHostId())
+                    .inc("bookedNights", increment.getBookedNights())
+                    .inc("acceptedBookings", increment.getAcceptedBookings())
+                    .inc("rejectedBookings", increment.getRejectedBookings())
+                    //$inc needs a number, the BigDecimal would otherwise be written as a string
+                    .inc("revenue", new Decimal128(increment.getRevenue()))
+                    .set("updatedAt", LocalDateTime.now());
+            bulkOperations.upsert(new Query(Criteria.where("_id").is(increment.getId())), update);
+        }
+        bulkOperations.execute();
+    }
+
+    @Override
+    public void replaceAll(Collection<ListingMonthlyStats> stats, LocalDateTime rebuildStartedAt) {
+        //upsert first and remove the months that no longer have bookings afterwards, so the statistics are never empty
+        if (!stats.isEmpty()) {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ListingMonthlyStats.class);
+            for (ListingMonthlyStats monthlyStats : stats) {
+                monthlyStats.setUpdatedAt(rebuildStartedAt);
+                bulkOperations.replaceOne(new Query(Criteria.where("_id").is(monthlyStats.getId())), monthlyStats, FindAndReplaceOptions.options().upsert());
+            }
+            bulkOperations.execute();
+        }
+        /*a range on the stamp instead of a list of all kept ids. Months incremented after the rebuild started (bookings decided
+        while it was running) are kept*/
+        mongoTemplate.remove(new Query(new Criteria().orOperator(Criteria.where("updatedAt").lt(rebuildStartedAt), Criteria.where("updatedAt").exists(false))),
+                ListingMonthlyStats.class);
+    }
+
+    @Override
+    public List<HostDecisionCounts> sumDecisionsByHostIds(Collection<String> hostIds, String fromMonth, String toMonth) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("hostId").in(hostIds).and("month").gte(fromMonth).lte(toMonth)),
+                Aggregation.group("hostId").sum("acceptedBookings").as("acceptedBookings").sum("rejectedBookings").as("rejectedBookings"));
+
+        List<HostDecisionCounts> counts = new ArrayList<>();
+        for (Document document : mongoTemplate.aggregate(aggregation, ListingMonthlyStats.class, Document.class)) {
+            counts.add(new HostDecisionCounts(document.getString("_id"),
+                    document.get("acceptedBookings", Number.class).longValue(),
+                    document.get("rejectedBookings", Number.class).longValue()));
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,7 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ListingRatingSummaryRepository extends MongoRepository<ListingRatingSummary, String>, ListingRatingSummaryRepositoryCustom {
+}
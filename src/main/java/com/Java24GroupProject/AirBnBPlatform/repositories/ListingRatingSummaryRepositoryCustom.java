@@ -0,0 +1,13 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+
+import java.util.Collection;
+
+public interface ListingRatingSummaryRepositoryCustom {
+    //add (countDelta 1) or remove (countDelta -1) a review with the given rating ($inc), a missing summary is created
+    void incrementRating(String listingId, double rating, long countDelta);
+
+    //replace all stored summaries with the given summaries (used when rebuilding from the reviews)
+    void replaceAll(Collection<ListingRatingSummary> summaries);
+}
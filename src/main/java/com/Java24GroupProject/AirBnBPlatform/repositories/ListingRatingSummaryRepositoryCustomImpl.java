@@ -0,0 +1,45 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Spring Data picks up this class by name and adds the methods to ListingRatingSummaryRepository
+public class ListingRatingSummaryRepositoryCustomImpl implements ListingRatingSummaryRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public ListingRatingSummaryRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void incrementRating(String listingId, double rating, long countDelta) {
+        Update update = new Update()
+                .inc("ratingSum", rating * countDelta)
+                .inc("reviewCount", countDelta)
+                .inc("starCounts." + ListingRatingSummary.starOf(rating), countDelta);
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(listingId)), update, ListingRatingSummary.class);
+    }
+
+    @Override
+    public void replaceAll(Collection<ListingRatingSummary> summaries) {
+        //upsert first and remove the listings that no longer have reviews afterwards, so the summaries are never empty
+        if (!summaries.isEmpty()) {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ListingRatingSummary.class);
+            for (ListingRatingSummary summary : summaries) {
+                bulkOperations.replaceOne(new Query(Criteria.where("_id").is(summary.getId())), summary, FindAndReplaceOptions.options().upsert());
+            }
+            bulkOperations.execute();
+        }
+        List<String> ids = summaries.stream().map(ListingRatingSummary::getId).collect(Collectors.toList());
+        mongoTemplate.remove(new Query(Criteria.where("_id").nin(ids)), ListingRatingSummary.class);
+    }
+}
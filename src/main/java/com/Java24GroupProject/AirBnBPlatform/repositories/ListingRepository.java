@@ -6,21 +6,20 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 
 import java.util.List;
+import java.util.stream.Stream;
 
-public interface ListingRepository extends MongoRepository<Listing, String> {
+public interface ListingRepository extends MongoRepository<Listing, String>, ListingRepositoryCustom {
     //find based on host
     List<Listing> findByHost(User user);
-    //find based on location (city)
-    List<Listing> findByLocation(String location);
     //delete by user
     List<Listing> deleteByHost(User user);
-    //find based on price interval
-    // query to get listings that matches min/max price. https://stackoverflow.com/questions/32846996/mongodb-query-using-gte-and-lte-in-java
-    @Query("{ 'pricePerNight': { $gte: ?0, $lte: ?1 } }")
-    List<Listing> findByPricePerNightBetween(double minPrice, double maxPrice);
-    @Query("{ 'capacity': { $gte:  ?0, $lte:  ?1 } }")
-    List<Listing> findByCapacityBetween(double minCapacity, double maxCapacity);
-    List<Listing> findByUtilities(String utility);
+    //searches by location, price, capacity and utilities are in ListingRepositoryCustom
+    //all listings with only the fields used by ListingBitmapIndex (host is not loaded)
+    @Query(value = "{}", fields = "{ 'utilities': 1, 'pricePerNight': 1, 'location': 1 }")
+    List<Listing> findAllForBitmapIndex();
+    //all listings with only the available dates (used by BookingAuditService), the stream must be closed
+    @Query(value = "{}", fields = "{ 'availableDates': 1 }")
+    Stream<Listing> streamAllAvailableDates();
 
 
 }
@@ -0,0 +1,47 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingFacetCounts;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingSearchCriteria;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+//queries for listings that are too complex for derived/@Query methods, implemented in ListingRepositoryCustomImpl
+public interface ListingRepositoryCustom {
+    //find listings matching all filters in the search criteria, only the fields needed for the ListingSummaryResponse fields in "fields" are loaded (null = all summary fields)
+    List<Listing> findSummaries(ListingSearchCriteria criteria, Set<String> fields);
+    //find all listings for a host, only the fields needed for the ListingSummaryResponse fields in "fields" are loaded
+    List<Listing> findSummariesByHostId(String hostId, Set<String> fields);
+    //find listing(s) with only the fields needed for the ListingResponse fields in "fields" (null = all ListingResponse fields)
+    Optional<Listing> findByIdWithFields(String id, Set<String> fields);
+    List<Listing> findByHostIdWithFields(String hostId, Set<String> fields);
+    //find listings with only the fields needed to price a stay (see PricingService)
+    List<Listing> findPricingByIds(Collection<String> ids);
+    //find listings with only the fields needed for a quote: capacity, available dates and pricing
+    List<Listing> findForQuoteByIds(Collection<String> ids);
+    //find listings with available dates overlapping [from, to), with the summary, availability and pricing fields (location and minCapacity are optional)
+    List<Listing> findForFlexibleDates(String location, Integer minCapacity, LocalDate from, LocalDate to);
+    //listings of a host with only the available dates, listings of other hosts are not returned
+    List<Listing> findAvailableDatesByIdsAndHostId(Collection<String> ids, String hostId);
+    /*write the changes made to the available dates of a listing (compared to previousAvailableDates) and updatedAt with one
+    conditional update, the rest of the stored ranges and the other fields are not overwritten. Returns false (nothing written)
+    if a range that was changed or removed is no longer stored, i.e. another write changed the dates in the meantime*/
+    boolean updateAvailableDates(Listing listing, List<DateRange> previousAvailableDates);
+    //write title, description, price per night, capacity, utilities, location, image urls and updatedAt of the listing, the other fields are not overwritten
+    void updateDetails(Listing listing);
+    //write the weekend price, price overrides, discounts and updatedAt of the listing, the other fields are not overwritten
+    void updatePricing(Listing listing);
+    //write averageRating and updatedAt of the listings (listing id -> average rating) with one bulk write
+    void updateAverageRatingsInBulk(Map<String, Double> averageRatings, LocalDateTime updatedAt);
+    //listing id -> host id, without loading the listings or hosts
+    Map<String, String> findHostIdsByIds(Collection<String> ids);
+    //count listings per utility, price range, capacity range and location in one aggregation
+    ListingFacetCounts countFacets(ListingSearchCriteria criteria);
+}
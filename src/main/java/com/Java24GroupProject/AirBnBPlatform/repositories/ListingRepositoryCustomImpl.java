@@ -0,0 +1,361 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingFacetCounts;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingSearchCriteria;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.UtilityExpression;
+import com.mongodb.DBRef;
+import org.bson.Document;
+import org.bson.types.Decimal128;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationUpdate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.data.util.TypeInformation;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingFacetCounts.CAPACITY_RANGE_BOUNDARIES;
+import static com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingFacetCounts.PRICE_RANGE_BOUNDARIES;
+
+//Spring Data picks up this class by name and adds the methods to ListingRepository
+public class ListingRepositoryCustomImpl implements ListingRepositoryCustom {
+    //ListingResponse field -> Listing document fields needed to fill it in
+    private static final Map<String, List<String>> DOCUMENT_FIELDS = Map.ofEntries(
+            Map.entry("title", List.of("title")),
+            Map.entry("host", List.of("host", "hostName")),
+            Map.entry("description", List.of("description")),
+            Map.entry("pricePerNight", List.of("pricePerNight")),
+            Map.entry("weekendPricePerNight", List.of("weekendPricePerNight")),
+            Map.entry("priceOverrides", List.of("priceOverrides")),
+            Map.entry("weeklyDiscountPercent", List.of("weeklyDiscountPercent")),
+            Map.entry("monthlyDiscountPercent", List.of("monthlyDiscountPercent")),
+            Map.entry("capacity", List.of("capacity")),
+            Map.entry("utilities", List.of("utilities")),
+            Map.entry("availableDates", List.of("availableDates")),
+            Map.entry("location", List.of("location")),
+            Map.entry("imageUrls", List.of("imageUrls")),
+            Map.entry("averageRating", List.of("averageRating")),
+            Map.entry("createdAt", List.of("createdAt")),
+            Map.entry("updatedAt", List.of("updatedAt"))
+    );
+
+    //ListingSummaryResponse field -> Listing document fields, the thumbnail is loaded separately as the first image url
+    private static final Map<String, List<String>> SUMMARY_DOCUMENT_FIELDS = Map.of(
+            "title", List.of("title"),
+            "pricePerNight", List.of("pricePerNight"),
+            "averageRating", List.of("averageRating"),
+            "location", List.of("location")
+    );
+
+    //Listing document fields used by PricingService
+    private static final String[] PRICING_FIELDS = {"pricePerNight", "weekendPricePerNight", "priceOverrides", "weeklyDiscountPercent", "monthlyDiscountPercent"};
+
+    private final MongoTemplate mongoTemplate;
+
+    public ListingRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Listing> findSummaries(ListingSearchCriteria criteria, Set<String> fields) {
+        return mongoTemplate.find(withSummaryFields(new Query(toMongoCriteria(criteria)), fields), Listing.class);
+    }
+
+    @Override
+    public List<Listing> findSummariesByHostId(String hostId, Set<String> fields) {
+        if (!ObjectId.isValid(hostId)) {
+            return List.of();
+        }
+        return mongoTemplate.find(withSummaryFields(new Query(Criteria.where("host.$id").is(new ObjectId(hostId))), fields), Listing.class);
+    }
+
+    @Override
+    public Optional<Listing> findByIdWithFields(String id, Set<String> fields) {
+        Query query = FieldProjection.withFields(new Query(Criteria.where("_id").is(id)), fields, DOCUMENT_FIELDS);
+        return Optional.ofNullable(mongoTemplate.findOne(query, Listing.class));
+    }
+
+    @Override
+    public List<Listing> findByHostIdWithFields(String hostId, Set<String> fields) {
+        if (!ObjectId.isValid(hostId)) {
+            return List.of();
+        }
+        Query query = FieldProjection.withFields(new Query(Criteria.where("host.$id").is(new ObjectId(hostId))), fields, DOCUMENT_FIELDS);
+        return mongoTemplate.find(query, Listing.class);
+    }
+
+    @Override
+    public List<Listing> findPricingByIds(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include(PRICING_FIELDS);
+        return mongoTemplate.find(query, Listing.class);
+    }
+
+    @Override
+    public List<Listing> findForQuoteByIds(Collection<String> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids));
+        query.fields().include(PRICING_FIELDS).include("capacity", "availableDates");
+        return mongoTemplate.find(query, Listing.class);
+    }
+
+    @Override
+    public List<Listing> findForFlexibleDates(String location, Integer minCapacity, LocalDate from, LocalDate to) {
+        Criteria criteria = Criteria.where("availableDates").elemMatch(Criteria.where("startDate").lt(to).and("endDate").gt(from));
+        if (location != null) {
+            criteria.and("location").is(location);
+        }
+        if (minCapacity != null) {
+            criteria.and("capacity").gte(minCapacity);
+        }
+        Query query = withSummaryFields(new Query(criteria), null);
+        query.fields().include(PRICING_FIELDS).include("availableDates");
+        return mongoTemplate.find(query, Listing.class);
+    }
+
+    @Override
+    public List<Listing> findAvailableDatesByIdsAndHostId(Collection<String> ids, String hostId) {
+        if (!ObjectId.isValid(hostId)) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where("_id").in(ids).and("host.$id").is(new ObjectId(hostId)));
+        query.fields().include("availableDates");
+        return mongoTemplate.find(query, Listing.class);
+    }
+
+    @Override
+    public boolean updateAvailableDates(Listing listing, List<DateRange> previousAvailableDates) {
+        List<DateRange> availableDates = listing.getAvailableDates() == null ? List.of() : listing.getAvailableDates();
+        List<Document> removedRanges = previousAvailableDates.stream()
+                .filter(previous -> availableDates.stream().noneMatch(previous::isIdenticalToAnotherDateRange))
+                .map(this::toDocument)
+                .collect(Collectors.toList());
+        List<Document> addedRanges = availableDates.stream()
+                .filter(current -> previousAvailableDates.stream().noneMatch(current::isIdenticalToAnotherDateRange))
+                .map(this::toDocument)
+                .collect(Collectors.toList());
+        if (removedRanges.isEmpty() && addedRanges.isEmpty()) {
+            return true;
+        }
+
+        //only if the ranges that are removed are all still stored
+        Criteria criteria = Criteria.where("_id").is(listing.getId());
+        if (!removedRanges.isEmpty()) {
+            criteria.and("availableDates").all(removedRanges);
+        }
+        //pipeline update, a plain update cannot $pull and $push the same array
+        Document keptRanges = new Document("$filter", new Document("input", new Document("$ifNull", List.of("$availableDates", List.of())))
+                .append("as", "range")
+                .append("cond", new Document("$not", List.of(new Document("$in", List.of("$$range", new Document("$literal", removedRanges)))))));
+        Document set = new Document("$set", new Document("availableDates", new Document("$concatArrays", List.of(keptRanges, new Document("$literal", addedRanges))))
+                .append("updatedAt", mongoTemplate.getConverter().convertToMongoType(listing.getUpdatedAt())));
+        AggregationUpdate update = AggregationUpdate.from(List.of(context -> set));
+        return mongoTemplate.updateFirst(new Query(criteria), update, Listing.class).getMatchedCount() == 1;
+    }
+
+    @Override
+    public void updateDetails(Listing listing) {
+        Update update = new Update()
+                .set("title", listing.getTitle())
+                .set("description", listing.getDescription())
+                .set("pricePerNight", listing.getPricePerNight())
+                .set("capacity", listing.getCapacity())
+                .set("utilities", listing.getUtilities())
+                .set("location", listing.getLocation())
+                .set("imageUrls", listing.getImageUrls())
+                .set("updatedAt", listing.getUpdatedAt());
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(listing.getId())), update, Listing.class);
+    }
+
+    @Override
+    public void updatePricing(Listing listing) {
+        Update update = new Update()
+                .set("weekendPricePerNight", listing.getWeekendPricePerNight())
+                .set("priceOverrides", listing.getPriceOverrides())
+                .set("weeklyDiscountPercent", listing.getWeeklyDiscountPercent())
+                .set("monthlyDiscountPercent", listing.getMonthlyDiscountPercent())
+                .set("updatedAt", listing.getUpdatedAt());
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(listing.getId())), update, Listing.class);
+    }
+
+    //a date range as it is stored in the availableDates array
+    private Document toDocument(DateRange dateRange) {
+        return (Document) mongoTemplate.getConverter().convertToMongoType(dateRange, TypeInformation.of(DateRange.class));
+    }
+
+    @Override
+    public void updateAverageRatingsInBulk(Map<String, Double> averageRatings, LocalDateTime updatedAt) {
+        if (averageRatings.isEmpty()) {
+            return;
+        }
+        BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Listing.class);
+        averageRatings.forEach((listingId, averageRating) -> bulkOperations.updateOne(new Query(Criteria.where("_id").is(listingId)),
+                new Update().set("averageRating", averageRating).set("updatedAt", updatedAt)));
+        bulkOperations.execute();
+    }
+
+    @Override
+    public Map<String, String> findHostIdsByIds(Collection<String> ids) {
+        List<ObjectId> objectIds = ids.stream().filter(ObjectId::isValid).map(ObjectId::new).collect(Collectors.toList());
+        Query query = new Query(Criteria.where("_id").in(objectIds));
+        query.fields().include("host");
+
+        //read as plain documents so the host DBRef is not resolved
+        Map<String, String> hostIds = new HashMap<>();
+        for (Document document : mongoTemplate.find(query, Document.class, mongoTemplate.getCollectionName(Listing.class))) {
+            DBRef host = document.get("host", DBRef.class);
+            if (host != null) {
+                hostIds.put(document.getObjectId("_id").toString(), host.getId().toString());
+            }
+        }
+        return hostIds;
+    }
+
+    @Override
+    public ListingFacetCounts countFacets(ListingSearchCriteria criteria) {
+        //one $match followed by one $facet stage, so all counts are computed in a single pass over the matching listings
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(toMongoCriteria(criteria)),
+                Aggregation.facet(Aggregation.count().as("count")).as("total")
+                        .and(Aggregation.unwind("utilities"), Aggregation.sortByCount("utilities")).as("utilities")
+                        .and(Aggregation.bucket("pricePerNight")
+                                .withBoundaries(toBoundaryValues(PRICE_RANGE_BOUNDARIES))
+                                .withDefaultBucket(toOpenRangeName(PRICE_RANGE_BOUNDARIES))
+                                .andOutputCount().as("count")).as("priceRanges")
+                        .and(Aggregation.bucket("capacity")
+                                .withBoundaries(toBoundaryValues(CAPACITY_RANGE_BOUNDARIES))
+                                .withDefaultBucket(toOpenRangeName(CAPACITY_RANGE_BOUNDARIES))
+                                .andOutputCount().as("count")).as("capacityRanges")
+                        .and(Aggregation.sortByCount("location")).as("locations")
+        );
+
+        Document result = mongoTemplate.aggregate(aggregation, Listing.class, Document.class).getUniqueMappedResult();
+        if (result == null) {
+            return new ListingFacetCounts(0, Map.of(), Map.of(), Map.of(), Map.of());
+        }
+
+        List<Document> total = result.getList("total", Document.class);
+        return new ListingFacetCounts(
+                total.isEmpty() ? 0 : ((Number) total.get(0).get("count")).longValue(),
+                toCountMap(result.getList("utilities", Document.class)),
+                toRangeCountMap(result.getList("priceRanges", Document.class), PRICE_RANGE_BOUNDARIES),
+                toRangeCountMap(result.getList("capacityRanges", Document.class), CAPACITY_RANGE_BOUNDARIES),
+                toCountMap(result.getList("locations", Document.class)));
+    }
+
+    /*only load the fields shown in a search result card and only the first image url. The host DBRef is not included,
+    so it is never resolved (which would be one extra query per listing)*/
+    private static Query withSummaryFields(Query query, Set<String> fields) {
+        FieldProjection.withFields(query, fields, SUMMARY_DOCUMENT_FIELDS);
+        if (fields == null || fields.contains("thumbnailUrl")) {
+            query.fields().slice("imageUrls", 1);
+        }
+        return query;
+    }
+
+    //build one mongo criteria from all filters that are set in the search criteria
+    private Criteria toMongoCriteria(ListingSearchCriteria criteria) {
+        List<Criteria> filters = new ArrayList<>();
+        if (criteria.location() != null) {
+            filters.add(Criteria.where("location").is(criteria.location()));
+        }
+        if (criteria.minPrice() != null) {
+            filters.add(Criteria.where("pricePerNight").gte(new Decimal128(BigDecimal.valueOf(criteria.minPrice()))));
+        }
+        if (criteria.maxPrice() != null) {
+            filters.add(Criteria.where("pricePerNight").lte(new Decimal128(BigDecimal.valueOf(criteria.maxPrice()))));
+        }
+        if (criteria.minCapacity() != null) {
+            filters.add(Criteria.where("capacity").gte(criteria.minCapacity()));
+        }
+        if (criteria.maxCapacity() != null) {
+            filters.add(Criteria.where("capacity").lte(criteria.maxCapacity()));
+        }
+        //selective utility expressions are resolved to listing ids by ListingBitmapIndex before the query is made
+        if (criteria.listingIds() != null) {
+            filters.add(Criteria.where("_id").in(criteria.listingIds()));
+        } else if (criteria.utilities() != null) {
+            filters.add(toUtilitiesCriteria(criteria.utilities()));
+        }
+        return filters.isEmpty() ? new Criteria() : new Criteria().andOperator(filters);
+    }
+
+    //utility expression as a query on the utilities array (served by its multikey index)
+    private static Criteria toUtilitiesCriteria(UtilityExpression expression) {
+        if (expression instanceof UtilityExpression.Utility utility) {
+            return Criteria.where("utilities").is(utility.utility().name());
+        }
+        if (expression instanceof UtilityExpression.Not not) {
+            //listings without utilities match NOT, like in the bitmap index
+            return not.operand() instanceof UtilityExpression.Utility utility
+                    ? Criteria.where("utilities").ne(utility.utility().name())
+                    : new Criteria().norOperator(toUtilitiesCriteria(not.operand()));
+        }
+        if (expression instanceof UtilityExpression.And and) {
+            return new Criteria().andOperator(and.operands().stream().map(ListingRepositoryCustomImpl::toUtilitiesCriteria).toList());
+        }
+        UtilityExpression.Or or = (UtilityExpression.Or) expression;
+        return new Criteria().orOperator(or.operands().stream().map(ListingRepositoryCustomImpl::toUtilitiesCriteria).toList());
+    }
+
+    private static Object[] toBoundaryValues(int[] boundaries) {
+        Object[] values = new Object[boundaries.length];
+        for (int i = 0; i < boundaries.length; i++) {
+            values[i] = boundaries[i];
+        }
+        return values;
+    }
+
+    //$sortByCount result (_id = value, count = number of listings) to map
+    private static Map<String, Long> toCountMap(List<Document> documents) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document document : documents) {
+            counts.put(String.valueOf(document.get("_id")), ((Number) document.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    //$bucket result (_id = lower boundary of the range, or the default bucket name) to map with readable range names, e.g. "500-1000"
+    private static Map<String, Long> toRangeCountMap(List<Document> documents, int[] boundaries) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        for (Document document : documents) {
+            Object bucketId = document.get("_id");
+            String rangeName = bucketId instanceof Number lowerBoundary
+                    ? toRangeName(lowerBoundary.intValue(), boundaries)
+                    : String.valueOf(bucketId);
+            counts.put(rangeName, ((Number) document.get("count")).longValue());
+        }
+        return counts;
+    }
+
+    //name of the range starting at lowerBoundary (upper boundary is not included in the range)
+    static String toRangeName(int lowerBoundary, int[] boundaries) {
+        for (int i = 0; i < boundaries.length - 1; i++) {
+            if (boundaries[i] == lowerBoundary) {
+                return boundaries[i] + "-" + boundaries[i + 1];
+            }
+        }
+        return toOpenRangeName(boundaries);
+    }
+
+    //values above the last boundary end up in the default bucket, e.g. "3000+"
+    static String toOpenRangeName(int[] boundaries) {
+        return boundaries[boundaries.length - 1] + "+";
+    }
+}
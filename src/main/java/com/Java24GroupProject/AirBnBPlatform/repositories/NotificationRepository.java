@@ -0,0 +1,15 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Notification;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+
+public interface NotificationRepository extends MongoRepository<Notification, String>, NotificationRepositoryCustom {
+    List<Notification> findByUserIdOrderByCreatedAtDesc(String userId, Pageable pageable);
+
+    List<Notification> findByUserIdAndReadFalseOrderByCreatedAtDesc(String userId, Pageable pageable);
+
+    void deleteByUserId(String userId);
+}
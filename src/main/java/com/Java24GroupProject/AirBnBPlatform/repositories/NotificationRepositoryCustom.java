@@ -0,0 +1,6 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+public interface NotificationRepositoryCustom {
+    //set read on all unread notifications of the user, returns the number of changed notifications
+    long markAllAsRead(String userId);
+}
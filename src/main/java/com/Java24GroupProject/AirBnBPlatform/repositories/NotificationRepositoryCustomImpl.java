@@ -0,0 +1,22 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Notification;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+//Spring Data picks up this class by name and adds the methods to NotificationRepository
+public class NotificationRepositoryCustomImpl implements NotificationRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public NotificationRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public long markAllAsRead(String userId) {
+        Query query = new Query(Criteria.where("userId").is(userId).and("read").is(false));
+        return mongoTemplate.updateMulti(query, new Update().set("read", true), Notification.class).getModifiedCount();
+    }
+}
@@ -0,0 +1,14 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.RefreshToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface RefreshTokenRepository extends MongoRepository<RefreshToken, String>, RefreshTokenRepositoryCustom {
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    long deleteByFamilyId(String familyId);
+
+    long deleteByUserId(String userId);
+}
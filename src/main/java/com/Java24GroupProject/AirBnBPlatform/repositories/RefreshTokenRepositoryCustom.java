@@ -0,0 +1,12 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.RefreshToken;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface RefreshTokenRepositoryCustom {
+    /*set usedAt on the token if it is not used and not expired, returns the token as it was before. Empty if the token does not
+    exist, is expired or was already used (only one of two refreshes with the same token gets it)*/
+    Optional<RefreshToken> markUsed(String tokenHash, LocalDateTime usedAt);
+}
@@ -0,0 +1,28 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.RefreshToken;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+//Spring Data picks up this class by name and adds the methods to RefreshTokenRepository
+public class RefreshTokenRepositoryCustomImpl implements RefreshTokenRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public RefreshTokenRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<RefreshToken> markUsed(String tokenHash, LocalDateTime usedAt) {
+        //uses the unique tokenHash index, expired tokens can still be there until the TTL monitor runs (every 60 seconds)
+        Query query = new Query(Criteria.where("tokenHash").is(tokenHash)
+                .and("usedAt").is(null)
+                .and("expiresAt").gt(usedAt));
+        return Optional.ofNullable(mongoTemplate.findAndModify(query, new Update().set("usedAt", usedAt), RefreshToken.class));
+    }
+}
@@ -0,0 +1,8 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ReleasedDates;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface ReleasedDatesRepository extends MongoRepository<ReleasedDates, String>, ReleasedDatesRepositoryCustom {
+    void deleteByListingId(String listingId);
+}
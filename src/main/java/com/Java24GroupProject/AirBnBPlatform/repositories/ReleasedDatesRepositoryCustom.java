@@ -0,0 +1,12 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ReleasedDates;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ReleasedDatesRepositoryCustom {
+    /*claim up to limit released dates that are not claimed, or whose claim is from before staleBefore (the run failed or the
+    instance stopped), oldest first. Returns the claimed dates, a date range is only claimed by one of two runs at the same time*/
+    List<ReleasedDates> claimBatch(String claimId, LocalDateTime claimedAt, LocalDateTime staleBefore, int limit);
+}
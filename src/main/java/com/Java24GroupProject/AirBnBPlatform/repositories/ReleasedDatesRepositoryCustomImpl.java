@@ -0,0 +1,40 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ReleasedDates;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//Spring Data picks up this class by name and adds the methods to ReleasedDatesRepository
+public class ReleasedDatesRepositoryCustomImpl implements ReleasedDatesRepositoryCustom {
+    private final MongoTemplate mongoTemplate;
+
+    public ReleasedDatesRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<ReleasedDates> claimBatch(String claimId, LocalDateTime claimedAt, LocalDateTime staleBefore, int limit) {
+        Criteria claimable = new Criteria().orOperator(Criteria.where("claimedAt").is(null), Criteria.where("claimedAt").lt(staleBefore));
+        Query candidatesQuery = new Query(claimable).with(Sort.by(Sort.Direction.ASC, "createdAt")).limit(limit);
+        candidatesQuery.fields().include("_id");
+        List<String> candidateIds = mongoTemplate.find(candidatesQuery, ReleasedDates.class).stream()
+                .map(ReleasedDates::getId)
+                .collect(Collectors.toList());
+        if (candidateIds.isEmpty()) {
+            return List.of();
+        }
+
+        //the claimable condition is checked again, so dates another run claimed in the meantime are left to that run
+        Criteria stillClaimable = new Criteria().orOperator(Criteria.where("claimedAt").is(null), Criteria.where("claimedAt").lt(staleBefore));
+        mongoTemplate.updateMulti(new Query(new Criteria().andOperator(Criteria.where("_id").in(candidateIds), stillClaimable)),
+                new Update().set("claimedBy", claimId).set("claimedAt", claimedAt), ReleasedDates.class);
+        return mongoTemplate.find(new Query(Criteria.where("claimedBy").is(claimId)).with(Sort.by(Sort.Direction.ASC, "createdAt")), ReleasedDates.class);
+    }
+}
@@ -0,0 +1,19 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ReviewPageCursor;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ReviewSort;
+
+import java.util.List;
+import java.util.Set;
+
+//review queries that only load the fields needed for the ReviewResponse fields in "fields" (null = all ReviewResponse fields)
+public interface ReviewRepositoryCustom {
+    List<Review> findByUserIdWithFields(String userId, Set<String> fields);
+
+    //one page of the reviews of a listing in the given order, starting after the cursor (null = first page)
+    List<Review> findPageByListingId(String listingId, ReviewSort sort, ReviewPageCursor after, int limit, Set<String> fields);
+    //rating distribution of every listing with reviews, computed from the reviews (used when rebuilding the summaries)
+    List<ListingRatingSummary> findRatingSummariesForAllListings();
+}
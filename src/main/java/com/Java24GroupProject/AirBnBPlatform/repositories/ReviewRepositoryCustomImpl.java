@@ -0,0 +1,106 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ReviewPageCursor;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ReviewSort;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+//Spring Data picks up this class by name and adds the methods to ReviewRepository
+public class ReviewRepositoryCustomImpl implements ReviewRepositoryCustom {
+    //ReviewResponse field -> Review document fields needed to fill it in
+    private static final Map<String, List<String>> DOCUMENT_FIELDS = Map.of(
+            "listingId", List.of("listing"),
+            "user", List.of("user", "username"),
+            "rating", List.of("rating"),
+            "createdAt", List.of("createdAt")
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReviewRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public List<Review> findByUserIdWithFields(String userId, Set<String> fields) {
+        return findByReference("user", userId, fields);
+    }
+
+    @Override
+    public List<Review> findPageByListingId(String listingId, ReviewSort sort, ReviewPageCursor after, int limit, Set<String> fields) {
+        if (!ObjectId.isValid(listingId)) {
+            return List.of();
+        }
+        Criteria criteria = Criteria.where("listing.$id").is(new ObjectId(listingId));
+        if (after != null) {
+            criteria = new Criteria().andOperator(criteria, afterCursor(sort, after));
+        }
+
+        Sort.Direction direction = sort.isAscending() ? Sort.Direction.ASC : Sort.Direction.DESC;
+        Query query = new Query(criteria)
+                .with(sort.isByRating() ? Sort.by(direction, "rating", "createdAt", "_id") : Sort.by(direction, "createdAt", "_id"))
+                .limit(limit);
+        FieldProjection.withFields(query, fields, DOCUMENT_FIELDS);
+        //the sort values of the last review are needed for the cursor of the next page
+        query.fields().include("rating").include("createdAt");
+        return mongoTemplate.find(query, Review.class);
+    }
+
+    @Override
+    public List<ListingRatingSummary> findRatingSummariesForAllListings() {
+        //the listing id is read from the DBRef with $objectToArray ($ref is element 0, $id element 1), field paths cannot contain $id
+        Document listingId = new Document("$let", new Document("vars",
+                new Document("ref", new Document("$arrayElemAt", List.of(new Document("$objectToArray", "$listing"), 1))))
+                .append("in", "$$ref.v"));
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("listing", new Document("$ne", null)).append("rating", new Document("$ne", null))),
+                new Document("$group", new Document("_id", new Document("listingId", listingId).append("rating", "$rating"))
+                        .append("count", new Document("$sum", 1))));
+
+        //one result per listing and distinct rating
+        Map<String, ListingRatingSummary> summaries = new HashMap<>();
+        for (Document document : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Review.class)).aggregate(pipeline)) {
+            Document group = document.get("_id", Document.class);
+            summaries.computeIfAbsent(group.get("listingId").toString(), ListingRatingSummary::new)
+                    .addRating(group.get("rating", Number.class).doubleValue(), document.get("count", Number.class).longValue());
+        }
+        return new ArrayList<>(summaries.values());
+    }
+
+    //find reviews where a DBRef field points to the document with the given id
+    private List<Review> findByReference(String referenceField, String id, Set<String> fields) {
+        if (!ObjectId.isValid(id)) {
+            return List.of();
+        }
+        Query query = new Query(Criteria.where(referenceField + ".$id").is(new ObjectId(id)));
+        return mongoTemplate.find(FieldProjection.withFields(query, fields, DOCUMENT_FIELDS), Review.class);
+    }
+
+    //reviews after the cursor in the sort order, the createdAt and id ties are compared in the same direction as the sort
+    static Criteria afterCursor(ReviewSort sort, ReviewPageCursor after) {
+        ObjectId id = new ObjectId(after.reviewId());
+        Criteria afterTime = sort.isAscending()
+                ? new Criteria().orOperator(Criteria.where("createdAt").gt(after.createdAt()),
+                        Criteria.where("createdAt").is(after.createdAt()).and("_id").gt(id))
+                : new Criteria().orOperator(Criteria.where("createdAt").lt(after.createdAt()),
+                        Criteria.where("createdAt").is(after.createdAt()).and("_id").lt(id));
+        if (!sort.isByRating()) {
+            return afterTime;
+        }
+        return new Criteria().orOperator(
+                sort.isAscending() ? Criteria.where("rating").gt(after.rating()) : Criteria.where("rating").lt(after.rating()),
+                new Criteria().andOperator(Criteria.where("rating").is(after.rating()), afterTime));
+    }
+}
@@ -0,0 +1,11 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.RevokedToken;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RevokedTokenRepository extends MongoRepository<RevokedToken, String> {
+    List<RevokedToken> findByCreatedAtAfter(LocalDateTime createdAt);
+}
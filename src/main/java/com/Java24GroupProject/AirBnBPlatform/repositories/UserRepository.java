@@ -2,14 +2,21 @@ package com.Java24GroupProject.AirBnBPlatform.repositories;
 
 import com.Java24GroupProject.AirBnBPlatform.models.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 //NOTE: not finished, just made what needed to be there for Security implementation.
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     Optional<User> findByUsername(String username);
-    Optional<User> findByEmail(String email);
-    Optional<User> findByPhoneNr(String phoneNr);
+    //users with only the fields shown in a BookingResponse (favorites are not loaded)
+    @Query(value = "{ '_id': { $in: ?0 } }", fields = "{ 'username': 1, 'email': 1, 'phoneNr': 1 }")
+    List<User> findContactDetailsByIds(Collection<String> ids);
+    //hosts with at least minReviews reviews on their listings, only with the host rating fields (used for superhost eligibility)
+    @Query(value = "{ 'hostReviewCount': { $gte: ?0 } }", fields = "{ 'hostRatingSum': 1, 'hostReviewCount': 1 }")
+    List<User> findHostRatingsWithMinReviews(long minReviews);
 
 
 
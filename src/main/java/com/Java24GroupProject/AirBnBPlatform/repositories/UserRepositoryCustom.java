@@ -0,0 +1,39 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.RatingTotals;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+//user queries and targeted updates, the queries only load the fields needed for the UserResponse/HostResponse fields in "fields" (null = all response fields)
+public interface UserRepositoryCustom {
+    Optional<User> findByIdWithFields(String id, Set<String> fields);
+    Optional<User> findByUsernameWithFields(String username, Set<String> fields);
+    List<User> findAllWithFields(Set<String> fields);
+
+    /*which of username, email and phoneNr ("username", "email", "phoneNr") are already used by another user than excludedUserId,
+    with one $or query. null values are not checked, excludedUserId may be null*/
+    List<String> findTakenUniqueFields(String username, String email, String phoneNr, String excludedUserId);
+
+    /*write the fields a user can change (username, password, email, phoneNr, address, profile picture, description, roles)
+    and updatedAt with $set, so the host rating fields and superhost status written by other updates are not overwritten.
+    Throws DuplicateKeyException if another user has the username, email or phoneNr*/
+    void updateProfile(User user);
+
+    //write the favorites of a user with $set, the other fields are not overwritten
+    void updateFavorites(User user);
+
+    //add to the host rating sum and review count of a user ($inc, negative values subtract)
+    void incrementHostRating(String hostId, double ratingDelta, long countDelta);
+
+    /*set the host rating sum and review count of the given hosts, all other users get 0 (used when rebuilding from the reviews).
+    Users whose host rating changed after the rebuild started are not set to 0*/
+    void replaceHostRatings(Collection<RatingTotals> hostTotals, LocalDateTime rebuildStartedAt);
+
+    //make the given users superhosts and remove the superhost status from all users that were not made superhost by this run
+    void updateSuperhosts(Collection<String> superhostIds, LocalDateTime runStartedAt);
+}
@@ -0,0 +1,156 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.RatingTotals;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+//Spring Data picks up this class by name and adds the methods to UserRepository
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+    //UserResponse/HostResponse field -> User document fields needed to fill it in (password and favorites are never needed)
+    private static final Map<String, List<String>> DOCUMENT_FIELDS = Map.ofEntries(
+            Map.entry("username", List.of("username")),
+            Map.entry("email", List.of("email")),
+            Map.entry("phoneNr", List.of("phoneNr")),
+            Map.entry("address", List.of("address")),
+            Map.entry("profilePictureURL", List.of("profilePictureURL")),
+            Map.entry("description", List.of("description")),
+            Map.entry("roles", List.of("roles")),
+            Map.entry("createdAt", List.of("createdAt")),
+            Map.entry("updatedAt", List.of("updatedAt")),
+            Map.entry("averageRating", List.of("hostRatingSum", "hostReviewCount")),
+            Map.entry("reviewCount", List.of("hostReviewCount")),
+            Map.entry("superhost", List.of("superhost"))
+    );
+
+    private final MongoTemplate mongoTemplate;
+
+    public UserRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Optional<User> findByIdWithFields(String id, Set<String> fields) {
+        return findOne(Criteria.where("_id").is(id), fields);
+    }
+
+    @Override
+    public Optional<User> findByUsernameWithFields(String username, Set<String> fields) {
+        return findOne(Criteria.where("username").is(username), fields);
+    }
+
+    @Override
+    public List<User> findAllWithFields(Set<String> fields) {
+        return mongoTemplate.find(FieldProjection.withFields(new Query(), fields, DOCUMENT_FIELDS), User.class);
+    }
+
+    @Override
+    public List<String> findTakenUniqueFields(String username, String email, String phoneNr, String excludedUserId) {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("username", username);
+        values.put("email", email);
+        values.put("phoneNr", phoneNr);
+        values.values().removeIf(Objects::isNull);
+        if (values.isEmpty()) {
+            return List.of();
+        }
+
+        //each field has a unique index, so every branch of the $or is one index lookup and matches max one user
+        Criteria criteria = new Criteria().orOperator(values.entrySet().stream()
+                .map(entry -> Criteria.where(entry.getKey()).is(entry.getValue()))
+                .collect(Collectors.toList()));
+        if (excludedUserId != null) {
+            criteria = criteria.and("_id").ne(excludedUserId);
+        }
+        Query query = new Query(criteria).limit(values.size());
+        values.keySet().forEach(field -> query.fields().include(field));
+
+        List<User> users = mongoTemplate.find(query, User.class);
+        List<String> takenFields = new ArrayList<>();
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            boolean taken = users.stream().anyMatch(user -> entry.getValue().equals(switch (entry.getKey()) {
+                case "username" -> user.getUsername();
+                case "email" -> user.getEmail();
+                default -> user.getPhoneNr();
+            }));
+            if (taken) {
+                takenFields.add(entry.getKey());
+            }
+        }
+        return takenFields;
+    }
+
+    @Override
+    public void updateProfile(User user) {
+        Update update = new Update()
+                .set("username", user.getUsername())
+                .set("password", user.getPassword())
+                .set("email", user.getEmail())
+                .set("phoneNr", user.getPhoneNr())
+                .set("address", user.getAddress())
+                .set("profilePictureURL", user.getProfilePictureURL())
+                .set("description", user.getDescription())
+                .set("roles", user.getRoles())
+                .set("updatedAt", user.getUpdatedAt());
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(user.getId())), update, User.class);
+    }
+
+    @Override
+    public void updateFavorites(User user) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(user.getId())), new Update().set("favorites", user.getFavorites()), User.class);
+    }
+
+    @Override
+    public void incrementHostRating(String hostId, double ratingDelta, long countDelta) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(hostId)),
+                new Update().inc("hostRatingSum", ratingDelta).inc("hostReviewCount", countDelta).set("hostRatingUpdatedAt", LocalDateTime.now()), User.class);
+    }
+
+    @Override
+    public void replaceHostRatings(Collection<RatingTotals> hostTotals, LocalDateTime rebuildStartedAt) {
+        if (!hostTotals.isEmpty()) {
+            BulkOperations bulkOperations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class);
+            for (RatingTotals totals : hostTotals) {
+                bulkOperations.updateOne(new Query(Criteria.where("_id").is(totals.id())),
+                        new Update().set("hostRatingSum", totals.ratingSum()).set("hostReviewCount", totals.reviewCount()).set("hostRatingUpdatedAt", rebuildStartedAt));
+            }
+            bulkOperations.execute();
+        }
+        //users without reviews on their listings: not written above (a range on the stamp instead of a list of all host ids)
+        Criteria notWritten = new Criteria().orOperator(Criteria.where("hostRatingUpdatedAt").lt(rebuildStartedAt), Criteria.where("hostRatingUpdatedAt").exists(false));
+        Criteria hasRating = new Criteria().orOperator(Criteria.where("hostReviewCount").ne(0), Criteria.where("hostRatingSum").ne(0));
+        mongoTemplate.updateMulti(new Query(new Criteria().andOperator(notWritten, hasRating)),
+                new Update().set("hostRatingSum", 0.0).set("hostReviewCount", 0L).set("hostRatingUpdatedAt", rebuildStartedAt), User.class);
+    }
+
+    @Override
+    public void updateSuperhosts(Collection<String> superhostIds, LocalDateTime runStartedAt) {
+        //the superhosts get the stamp of this run, the superhosts with an older stamp are no longer superhosts
+        if (!superhostIds.isEmpty()) {
+            mongoTemplate.updateMulti(new Query(Criteria.where("_id").in(superhostIds)),
+                    new Update().set("superhost", true).set("superhostUpdatedAt", runStartedAt), User.class);
+        }
+        Criteria notMadeSuperhost = new Criteria().orOperator(Criteria.where("superhostUpdatedAt").lt(runStartedAt), Criteria.where("superhostUpdatedAt").exists(false));
+        mongoTemplate.updateMulti(new Query(new Criteria().andOperator(Criteria.where("superhost").is(true), notMadeSuperhost)),
+                new Update().set("superhost", false), User.class);
+    }
+
+    private Optional<User> findOne(Criteria criteria, Set<String> fields) {
+        Query query = FieldProjection.withFields(new Query(criteria), fields, DOCUMENT_FIELDS);
+        return Optional.ofNullable(mongoTemplate.findOne(query, User.class));
+    }
+}
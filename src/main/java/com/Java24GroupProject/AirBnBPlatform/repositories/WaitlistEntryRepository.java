@@ -0,0 +1,22 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.WaitlistEntry;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface WaitlistEntryRepository extends MongoRepository<WaitlistEntry, String> {
+    //entries of a listing with wanted dates overlapping [from, to), oldest first
+    @Query(value = "{ 'listingId': ?0, 'wantedDates.startDate': { $lt: ?2 }, 'wantedDates.endDate': { $gt: ?1 } }", sort = "{ 'createdAt': 1 }")
+    List<WaitlistEntry> findByListingIdOverlapping(String listingId, LocalDate from, LocalDate to);
+
+    List<WaitlistEntry> findByUserIdOrderByCreatedAtAsc(String userId);
+
+    boolean existsByListingIdAndUserIdAndWantedDates_StartDateAndWantedDates_EndDate(String listingId, String userId, LocalDate startDate, LocalDate endDate);
+
+    void deleteByListingId(String listingId);
+
+    void deleteByUserId(String userId);
+}
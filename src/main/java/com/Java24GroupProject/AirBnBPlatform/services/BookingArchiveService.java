@@ -0,0 +1,50 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/*Bookings that ended more than booking.archiveAfterDays ago (and are not pending) are moved from the bookings collection
+to one archive collection per year of the end date (bookings_archive_<year>). This keeps the bookings collection and its
+indexes small, the archived bookings can still be seen with ?includeArchived=true on the booking history endpoints*/
+@Service
+public class BookingArchiveService {
+    private static final Logger logger = LoggerFactory.getLogger(BookingArchiveService.class);
+    //max amount of bookings moved per query/bulk write
+    private static final int BATCH_SIZE = 1000;
+
+    private final BookingRepository bookingRepository;
+    private final int archiveAfterDays;
+    private final Integer archivedRejectedTtlDays;
+
+    public BookingArchiveService(BookingRepository bookingRepository,
+                                 @Value("${booking.archiveAfterDays:365}") int archiveAfterDays,
+                                 @Value("${booking.archivedRejectedTtlDays:0}") int archivedRejectedTtlDays) {
+        this.bookingRepository = bookingRepository;
+        this.archiveAfterDays = archiveAfterDays;
+        //0 = archived rejected bookings are kept
+        this.archivedRejectedTtlDays = archivedRejectedTtlDays > 0 ? archivedRejectedTtlDays : null;
+    }
+
+    //runs at night by default, when there are few bookings being made
+    @Scheduled(cron = "${booking.archiveCron:0 30 3 * * *}")
+    public void archiveOldBookings() {
+        LocalDate endedBefore = LocalDate.now().minusDays(archiveAfterDays);
+        int archivedCount = 0;
+
+        int movedCount = bookingRepository.archiveEndedBefore(endedBefore, BATCH_SIZE, archivedRejectedTtlDays);
+        while (movedCount > 0) {
+            archivedCount += movedCount;
+            movedCount = bookingRepository.archiveEndedBefore(endedBefore, BATCH_SIZE, archivedRejectedTtlDays);
+        }
+
+        if (archivedCount > 0) {
+            logger.info("Archived {} bookings that ended before {}", archivedCount, endedBefore);
+        }
+    }
+}
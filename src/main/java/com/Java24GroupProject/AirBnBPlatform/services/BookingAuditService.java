@@ -0,0 +1,214 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingAuditIssue;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingAuditReport;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundException;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.UnsupportedOperationException;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.IntervalTree;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/*Checks the stored booking data for problems the availability logic can leave behind: pending/accepted bookings with
+overlapping dates, pending/accepted bookings whose dates are still available on the listing, and available date ranges
+that touch or overlap but were not merged. Listings are streamed one at a time and checked in parallel, for every listing
+the bookings and available dates are put in interval trees (O(n log n) per listing). Started by an admin on POST /bookings/audit*/
+@Service
+public class BookingAuditService {
+    private static final Logger logger = LoggerFactory.getLogger(BookingAuditService.class);
+    //max issues kept in the report and per listing, a badly broken listing would otherwise fill the report
+    private static final int MAX_REPORTED_ISSUES = 1000;
+    private static final int MAX_ISSUES_PER_LISTING = 20;
+
+    private final BookingRepository bookingRepository;
+    private final ListingRepository listingRepository;
+    private final int threads;
+    //runs the audit, so the request that starts it returns right away
+    private final ExecutorService auditRunner = Executors.newSingleThreadExecutor();
+    private final AtomicReference<Audit> latestAudit = new AtomicReference<>();
+
+    public BookingAuditService(BookingRepository bookingRepository, ListingRepository listingRepository,
+                               @Value("${booking.auditThreads:0}") int auditThreads) {
+        this.bookingRepository = bookingRepository;
+        this.listingRepository = listingRepository;
+        //0 = one thread per processor
+        this.threads = auditThreads > 0 ? auditThreads : Runtime.getRuntime().availableProcessors();
+    }
+
+    //METHODS used by BOOKING CONTROLLER CLASS -----------------------------------------------------------------------
+
+    //start a new audit, only one audit can run at a time
+    public BookingAuditReport startAudit() {
+        Audit previous = latestAudit.get();
+        Audit audit = new Audit();
+        if ((previous != null && previous.finishedAt == null) || !latestAudit.compareAndSet(previous, audit)) {
+            throw new UnsupportedOperationException("A booking audit is already running");
+        }
+        auditRunner.execute(() -> runAudit(audit));
+        return audit.toReport();
+    }
+
+    //the report of the running or last finished audit
+    public BookingAuditReport getLatestReport() {
+        Audit audit = latestAudit.get();
+        if (audit == null) {
+            throw new ResourceNotFoundException("No booking audit has been run since the application started");
+        }
+        return audit.toReport();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        auditRunner.shutdownNow();
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private void runAudit(Audit audit) {
+        /*listings are checked by a pool with a short queue, when the queue is full the streaming thread checks the listing
+        itself, so only a few listings and their bookings are in memory at the same time*/
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+        try (Stream<Listing> listings = listingRepository.streamAllAvailableDates()) {
+            listings.forEach(listing -> pool.execute(() -> auditListing(listing, audit)));
+            pool.shutdown();
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            audit.finish(null);
+            logger.info("Booking audit checked {} listings and {} bookings, found {} issues",
+                    audit.listingsChecked.get(), audit.bookingsChecked.get(), audit.issueCount.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pool.shutdownNow();
+            audit.finish("The audit was interrupted");
+        } catch (RuntimeException e) {
+            pool.shutdownNow();
+            audit.finish(e.getMessage());
+            logger.error("Booking audit failed", e);
+        }
+    }
+
+    private void auditListing(Listing listing, Audit audit) {
+        try {
+            List<Booking> bookings = bookingRepository.findDateHoldingByListingId(new ObjectId(listing.getId()));
+            List<DateRange> availableDates = listing.getAvailableDates() == null ? List.of() : listing.getAvailableDates();
+
+            IntervalTree<Booking> bookingTree = new IntervalTree<>(bookings,
+                    booking -> booking.getBookingDates().getStartDate().toEpochDay(),
+                    booking -> booking.getBookingDates().getEndDate().toEpochDay());
+            IntervalTree<DateRange> availableTree = new IntervalTree<>(availableDates,
+                    dateRange -> dateRange.getStartDate().toEpochDay(),
+                    dateRange -> dateRange.getEndDate().toEpochDay());
+
+            List<BookingAuditIssue> issues = new ArrayList<>();
+            findOverlappingBookings(listing.getId(), bookingTree, issues);
+            findBookingDatesAvailable(listing.getId(), bookingTree, availableTree, issues);
+            findUnmergedAvailableRanges(listing.getId(), availableTree, issues);
+            audit.addListingResult(bookings.size(), issues);
+        } catch (RuntimeException e) {
+            //one broken listing should not stop the audit
+            logger.warn("Booking audit could not check listing {}", listing.getId(), e);
+            audit.addListingResult(0, List.of());
+        }
+    }
+
+    //every overlapping pair is reported once, by the booking that comes first in start order
+    private static void findOverlappingBookings(String listingId, IntervalTree<Booking> bookingTree, List<BookingAuditIssue> issues) {
+        for (int i = 0; i < bookingTree.size() && issues.size() < MAX_ISSUES_PER_LISTING; i++) {
+            int first = i;
+            Booking booking = bookingTree.get(i);
+            bookingTree.forEachOverlap(booking.getBookingDates().getStartDate().toEpochDay(), booking.getBookingDates().getEndDate().toEpochDay(), other -> {
+                if (other > first) {
+                    Booking otherBooking = bookingTree.get(other);
+                    issues.add(new BookingAuditIssue(BookingAuditIssue.Type.OVERLAPPING_BOOKINGS, listingId,
+                            List.of(booking.getId(), otherBooking.getId()),
+                            List.of(booking.getBookingDates(), otherBooking.getBookingDates())));
+                }
+                return issues.size() < MAX_ISSUES_PER_LISTING;
+            });
+        }
+    }
+
+    //booked dates should have been removed from the available dates of the listing
+    private static void findBookingDatesAvailable(String listingId, IntervalTree<Booking> bookingTree, IntervalTree<DateRange> availableTree, List<BookingAuditIssue> issues) {
+        for (int i = 0; i < bookingTree.size() && issues.size() < MAX_ISSUES_PER_LISTING; i++) {
+            Booking booking = bookingTree.get(i);
+            availableTree.forEachOverlap(booking.getBookingDates().getStartDate().toEpochDay(), booking.getBookingDates().getEndDate().toEpochDay(), available -> {
+                issues.add(new BookingAuditIssue(BookingAuditIssue.Type.BOOKING_DATES_AVAILABLE, listingId,
+                        List.of(booking.getId()),
+                        List.of(booking.getBookingDates(), availableTree.get(available))));
+                return issues.size() < MAX_ISSUES_PER_LISTING;
+            });
+        }
+    }
+
+    //the tree has the ranges in start order, so ranges that should have been merged are next to each other
+    private static void findUnmergedAvailableRanges(String listingId, IntervalTree<DateRange> availableTree, List<BookingAuditIssue> issues) {
+        for (int i = 1; i < availableTree.size() && issues.size() < MAX_ISSUES_PER_LISTING; i++) {
+            DateRange previous = availableTree.get(i - 1);
+            DateRange current = availableTree.get(i);
+            if (!previous.getEndDate().isBefore(current.getStartDate())) {
+                issues.add(new BookingAuditIssue(BookingAuditIssue.Type.UNMERGED_AVAILABLE_RANGES, listingId,
+                        List.of(), List.of(previous, current)));
+            }
+        }
+    }
+
+    //progress and result of one audit, updated by the pool threads
+    private static class Audit {
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final AtomicLong listingsChecked = new AtomicLong();
+        private final AtomicLong bookingsChecked = new AtomicLong();
+        private final AtomicLong issueCount = new AtomicLong();
+        private final List<BookingAuditIssue> issues = new ArrayList<>();
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        void addListingResult(int bookingCount, List<BookingAuditIssue> listingIssues) {
+            listingsChecked.incrementAndGet();
+            bookingsChecked.addAndGet(bookingCount);
+            issueCount.addAndGet(listingIssues.size());
+            synchronized (issues) {
+                for (BookingAuditIssue issue : listingIssues) {
+                    if (issues.size() >= MAX_REPORTED_ISSUES) {
+                        break;
+                    }
+                    issues.add(issue);
+                }
+            }
+        }
+
+        void finish(String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+        }
+
+        BookingAuditReport toReport() {
+            List<BookingAuditIssue> reportedIssues;
+            synchronized (issues) {
+                reportedIssues = new ArrayList<>(issues);
+            }
+            return new BookingAuditReport(finishedAt == null, startedAt, finishedAt, listingsChecked.get(), bookingsChecked.get(),
+                    issueCount.get(), reportedIssues, error);
+        }
+    }
+}
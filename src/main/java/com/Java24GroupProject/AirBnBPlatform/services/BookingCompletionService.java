@@ -0,0 +1,33 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+
+/*Accepted bookings get status COMPLETED when their end date has come, with one update of all ended bookings. Completed
+stays can be reviewed by the guest (see ReviewService), and the stays that have not been reviewed yet are listed
+on GET /bookings/awaiting-review*/
+@Service
+public class BookingCompletionService {
+    private static final Logger logger = LoggerFactory.getLogger(BookingCompletionService.class);
+
+    private final BookingRepository bookingRepository;
+
+    public BookingCompletionService(BookingRepository bookingRepository) {
+        this.bookingRepository = bookingRepository;
+    }
+
+    //runs just after midnight by default, stays ending that day can be reviewed from then on
+    @Scheduled(cron = "${booking.completionCron:0 5 0 * * *}")
+    public void completeEndedBookings() {
+        LocalDate today = LocalDate.now();
+        long completedCount = bookingRepository.completeEndedOnOrBefore(today);
+        if (completedCount > 0) {
+            logger.info("Completed {} bookings that ended on or before {}", completedCount, today);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingEvent;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingDatesRelease;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/*Gives the dates of rejected and expired bookings back to their listings. The status change marks the booking
+(datesReleaseDueAt) in the same write, so the dates are never held for good: a release that fails or is cut off is
+made again by releaseOverdueDates (called by PendingBookingExpiryService). A run claims the bookings before it gives
+their dates back, so two runs do not give back the same dates*/
+@Service
+public class BookingDatesReleaseService {
+    private static final Logger logger = LoggerFactory.getLogger(BookingDatesReleaseService.class);
+    //max amount of bookings claimed at once
+    private static final int BATCH_SIZE = 500;
+    //a run that has not finished its releases by then is considered gone, and another run can claim them
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+
+    private final BookingRepository bookingRepository;
+    private final ListingRepository listingRepository;
+    private final BookingEventHub bookingEventHub;
+    private final WaitlistService waitlistService;
+    private final ListingResponseCache listingResponseCache;
+
+    public BookingDatesReleaseService(BookingRepository bookingRepository, ListingRepository listingRepository, BookingEventHub bookingEventHub, WaitlistService waitlistService, ListingResponseCache listingResponseCache) {
+        this.bookingRepository = bookingRepository;
+        this.listingRepository = listingRepository;
+        this.bookingEventHub = bookingEventHub;
+        this.waitlistService = waitlistService;
+        this.listingResponseCache = listingResponseCache;
+    }
+
+    //METHODS used by other SERVICE CLASSES -------------------------------------------------------------------------
+
+    //give back the dates of the bookings that were just rejected or expired, returns the releases made by this call
+    public List<BookingDatesRelease> releaseDates(Collection<String> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return List.of();
+        }
+        String claimId = UUID.randomUUID().toString();
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingDatesRelease> releases = bookingRepository.claimDatesReleases(bookingIds, claimId, now, now.plus(CLAIM_TIMEOUT), bookingIds.size());
+        releaseClaimed(releases, claimId);
+        return releases;
+    }
+
+    //give back the dates of all bookings whose release is due, i.e. releases that failed or were never finished
+    public int releaseOverdueDates() {
+        int releasedCount = 0;
+        List<BookingDatesRelease> releases;
+        do {
+            String claimId = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
+            releases = bookingRepository.claimDatesReleases(null, claimId, now, now.plus(CLAIM_TIMEOUT), BATCH_SIZE);
+            releasedCount += releaseClaimed(releases, claimId);
+        } while (releases.size() == BATCH_SIZE);
+        return releasedCount;
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    /*one conditional update of the available dates per listing. A listing that fails keeps its bookings claimed, they are
+    released again when the claim times out. Returns the amount of bookings whose release is done*/
+    private int releaseClaimed(List<BookingDatesRelease> releases, String claimId) {
+        if (releases.isEmpty()) {
+            return 0;
+        }
+        Map<String, List<BookingDatesRelease>> releasesByListingId = releases.stream()
+                .collect(Collectors.groupingBy(BookingDatesRelease::listingId));
+        Map<String, Listing> listingsById = new HashMap<>();
+        listingRepository.findAllById(releasesByListingId.keySet()).forEach(listing -> listingsById.put(listing.getId(), listing));
+
+        int releasedCount = 0;
+        for (Map.Entry<String, List<BookingDatesRelease>> entry : releasesByListingId.entrySet()) {
+            List<BookingDatesRelease> listingReleases = entry.getValue();
+            try {
+                //a deleted listing has no dates to give back
+                Listing listing = listingsById.get(entry.getKey());
+                if (listing != null) {
+                    List<DateRange> releasedDates = ListingService.giveBackDates(listing,
+                            listingReleases.stream().map(BookingDatesRelease::bookingDates).collect(Collectors.toList()), listingRepository, listingResponseCache);
+
+                    //the dates are stored, now the waitlist can have them
+                    waitlistService.datesReleased(listing.getId(), releasedDates);
+                    for (BookingDatesRelease release : listingReleases) {
+                        if (release.bookingStatus() == BookingStatus.EXPIRED) {
+                            bookingEventHub.publish(listing.getHost().getId(), new BookingEvent(BookingEvent.Type.EXPIRED, release.bookingId(), listing.getId(), null));
+                        }
+                    }
+                }
+                bookingRepository.completeDatesReleases(listingReleases.stream().map(BookingDatesRelease::bookingId).collect(Collectors.toList()), claimId);
+                releasedCount += listingReleases.size();
+            } catch (RuntimeException e) {
+                logger.warn("Dates of {} bookings could not be given back to listing '{}', they are released again later", listingReleases.size(), entry.getKey(), e);
+            }
+        }
+        return releasedCount;
+    }
+}
@@ -0,0 +1,204 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/*sends booking changes to hosts over server-sent events (GET /bookings/stream). Open connections do not use a thread,
+events are put in a small buffer per subscriber and written by a shared sender pool. If a subscriber is slow, a newer event
+for the same booking replaces the older one in the buffer, and if the buffer is still full the oldest event is dropped and
+the subscriber gets a "resync" event telling it to reload its bookings. A comment line is sent on idle streams every
+booking.streamHeartbeatMs, so proxies do not close them and closed connections are found without waiting for an event.
+A write to a client that does not read blocks its sender thread, so a stream whose write takes longer than
+booking.streamSendTimeoutMs gets no more events and is closed (the client reconnects and resyncs). Each stream uses
+at most one sender thread, so the other streams keep getting their events from the rest of the pool*/
+@Component
+public class BookingEventHub {
+    private static final int MAX_PENDING_EVENTS = 100;
+    //the client reconnects automatically when the stream times out
+    private static final long STREAM_TIMEOUT_MS = 30 * 60 * 1000;
+    //max threads writing to streams at the same time, idle threads are stopped
+    private static final int SENDER_THREADS = 16;
+    private static final long STALLED_CHECK_INTERVAL_MS = 1000;
+
+    private final Map<String, Set<Subscriber>> subscribersByHostId = new ConcurrentHashMap<>();
+    private final ThreadPoolExecutor sender = new ThreadPoolExecutor(SENDER_THREADS, SENDER_THREADS, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+    private final long sendTimeoutNanos;
+
+    public BookingEventHub(@Value("${booking.streamSendTimeoutMs:10000}") long sendTimeoutMs) {
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        sender.allowCoreThreadTimeOut(true);
+    }
+
+    //open a new stream for a host, gets events for all bookings on the hosts listings
+    public SseEmitter subscribe(String hostId) {
+        SseEmitter emitter = new SseEmitter(STREAM_TIMEOUT_MS);
+        Subscriber subscriber = new Subscriber(hostId, emitter);
+        subscribersByHostId.computeIfAbsent(hostId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+
+        emitter.onCompletion(() -> unsubscribe(subscriber));
+        emitter.onTimeout(() -> {
+            unsubscribe(subscriber);
+            emitter.complete();
+        });
+        emitter.onError(error -> unsubscribe(subscriber));
+        return emitter;
+    }
+
+    //send an event to all streams of the host, returns right away
+    public void publish(String hostId, BookingEvent event) {
+        Set<Subscriber> subscribers = subscribersByHostId.get(hostId);
+        if (subscribers != null) {
+            subscribers.forEach(subscriber -> subscriber.offer(event));
+        }
+    }
+
+    //queue a heartbeat on every open stream, it is written by the sender pool like the events
+    @Scheduled(fixedDelayString = "${booking.streamHeartbeatMs:15000}", initialDelayString = "${booking.streamHeartbeatMs:15000}")
+    public void sendHeartbeats() {
+        subscribersByHostId.values().forEach(subscribers -> subscribers.forEach(Subscriber::offerHeartbeat));
+    }
+
+    //close the streams whose client has not taken a write for longer than the send timeout
+    @Scheduled(fixedDelay = STALLED_CHECK_INTERVAL_MS)
+    public void closeStalledStreams() {
+        long now = System.nanoTime();
+        subscribersByHostId.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            if (subscriber.isStalled(now)) {
+                subscriber.close();
+            }
+        }));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private void unsubscribe(Subscriber subscriber) {
+        subscribersByHostId.computeIfPresent(subscriber.hostId, (hostId, subscribers) -> {
+            subscribers.remove(subscriber);
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private class Subscriber {
+        private final String hostId;
+        private final SseEmitter emitter;
+        //events not yet sent, by booking id (only the latest event per booking is kept)
+        private final LinkedHashMap<String, BookingEvent> pendingEvents = new LinkedHashMap<>();
+        private boolean eventsDropped = false;
+        private boolean heartbeatDue = false;
+        private boolean sendScheduled = false;
+        private boolean closed = false;
+        //System.nanoTime() when the current write started, 0 when not writing
+        private volatile long sendStartedAt = 0;
+
+        Subscriber(String hostId, SseEmitter emitter) {
+            this.hostId = hostId;
+            this.emitter = emitter;
+        }
+
+        synchronized void offer(BookingEvent event) {
+            if (closed) {
+                return;
+            }
+            //remove first, so the new event is sent in the order it happened
+            pendingEvents.remove(event.getBookingId());
+            pendingEvents.put(event.getBookingId(), event);
+            if (pendingEvents.size() > MAX_PENDING_EVENTS) {
+                Iterator<BookingEvent> oldest = pendingEvents.values().iterator();
+                oldest.next();
+                oldest.remove();
+                eventsDropped = true;
+            }
+            scheduleSend();
+        }
+
+        synchronized void offerHeartbeat() {
+            heartbeatDue = true;
+            scheduleSend();
+        }
+
+        boolean isStalled(long now) {
+            long startedAt = sendStartedAt;
+            return startedAt != 0 && now - startedAt > sendTimeoutNanos;
+        }
+
+        //no more events are queued, and the emitter is completed (complete does not wait for the write in progress)
+        void close() {
+            synchronized (this) {
+                closed = true;
+                pendingEvents.clear();
+            }
+            unsubscribe(this);
+            emitter.complete();
+        }
+
+        private void scheduleSend() {
+            if (!sendScheduled && !closed) {
+                sendScheduled = true;
+                sender.execute(this::sendPendingEvents);
+            }
+        }
+
+        //runs on the sender pool, only one at a time per subscriber
+        private void sendPendingEvents() {
+            while (true) {
+                List<BookingEvent> events;
+                boolean dropped;
+                boolean heartbeat;
+                synchronized (this) {
+                    if (closed || (pendingEvents.isEmpty() && !eventsDropped && !heartbeatDue)) {
+                        sendScheduled = false;
+                        return;
+                    }
+                    events = new ArrayList<>(pendingEvents.values());
+                    pendingEvents.clear();
+                    dropped = eventsDropped;
+                    eventsDropped = false;
+                    heartbeat = heartbeatDue;
+                    heartbeatDue = false;
+                }
+
+                sendStartedAt = System.nanoTime();
+                try {
+                    //events also keep the connection open, so the heartbeat is only sent on an idle stream
+                    if (heartbeat && events.isEmpty() && !dropped) {
+                        emitter.send(SseEmitter.event().comment("heartbeat"));
+                    }
+                    if (dropped) {
+                        emitter.send(SseEmitter.event().name("resync").data("Some booking events were dropped, reload bookings"));
+                    }
+                    for (BookingEvent event : events) {
+                        emitter.send(SseEmitter.event().name("booking").data(event));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    //the connection has been closed
+                    unsubscribe(this);
+                    emitter.completeWithError(e);
+                    return;
+                } finally {
+                    sendStartedAt = 0;
+                }
+            }
+        }
+    }
+}
@@ -1,9 +1,16 @@
 package com.Java24GroupProject.AirBnBPlatform.services;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingBatchItemResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingBatchRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingDecision;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingDecisionRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingDecisionResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingEvent;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingResponse;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundException;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ServiceUnavailableException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.UnsupportedOperationException;
 import com.Java24GroupProject.AirBnBPlatform.models.Booking;
@@ -15,38 +22,76 @@ import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
 import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class BookingService {
+    private static final Logger logger = LoggerFactory.getLogger(BookingService.class);
+    //max amount of bookings in one batch
+    private static final int MAX_BATCH_SIZE = 20;
+    private static final int MAX_DECISION_BATCH_SIZE = 100;
+
     private final BookingRepository bookingRepository;
     private final UserRepository userRepository;
     private final ListingRepository listingRepository;
-
-    public BookingService(BookingRepository bookingRepository, UserRepository userRepository, ListingRepository listingRepository) {
+    private final BookingEventHub bookingEventHub;
+    private final PricingService pricingService;
+    private final ListingStatsService listingStatsService;
+    private final ListingResponseCache listingResponseCache;
+    private final WaitlistService waitlistService;
+    private final BookingDatesReleaseService bookingDatesReleaseService;
+
+    public BookingService(BookingRepository bookingRepository, UserRepository userRepository, ListingRepository listingRepository, BookingEventHub bookingEventHub, PricingService pricingService, ListingStatsService listingStatsService, ListingResponseCache listingResponseCache, WaitlistService waitlistService, BookingDatesReleaseService bookingDatesReleaseService) {
         this.bookingRepository = bookingRepository;
         this.userRepository = userRepository;
         this.listingRepository = listingRepository;
+        this.bookingEventHub = bookingEventHub;
+        this.pricingService = pricingService;
+        this.listingStatsService = listingStatsService;
+        this.listingResponseCache = listingResponseCache;
+        this.waitlistService = waitlistService;
+        this.bookingDatesReleaseService = bookingDatesReleaseService;
+    }
+
+    //open a stream of changes to bookings on the current user's listings
+    public SseEmitter streamBookingEvents() {
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        return bookingEventHub.subscribe(currentUser.getId());
     }
 
     //METHODS used by BOOKING CONTROLLER CLASS -----------------------------------------------------------------------
 
     public BookingResponse createBooking(BookingRequest bookingRequest) {
+        //get current user and listing
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        Listing listing = validateListingIdAndGetListing(bookingRequest);
+
         //validate that bookingRequest data is valid
-        validateBooking(bookingRequest);
+        validateBooking(bookingRequest, currentUser, listing);
 
         //convert from RequestDTO to Booking
-        Booking booking = convertRequestToBooking(bookingRequest);
+        Booking booking = convertRequestToBooking(bookingRequest, currentUser, listing);
 
         //validate that booking dates are available and update listing dates
-        validateBookingDatesAndUpdateListing(booking);
+        validateBookingDatesAndUpdateListing(booking, listing);
         booking.setBookingStatus(BookingStatus.PENDING);
         booking.setUpdatedAt(null);
 
@@ -54,42 +99,114 @@ public class BookingService {
         bookingRepository.save(booking);
 
         //return as DTO
-        return convertToDTOResponse(booking);
+        return publishEvent(BookingEvent.Type.CREATED, booking);
     }
 
-    //get bookings by id
-    public BookingResponse getBookingById(String id) {
-        Booking booking = validateBookingIdAndGetBooking(id);
+    /*book several listings/stays at once. All bookings are validated and their dates reserved on the listings in memory
+    first, then the dates are written to the listings and the bookings inserted (see saveBookingsAndListings). If the batch
+    is atomic and any booking fails, nothing is saved. Results are per booking, in the same order as the request*/
+    public List<BookingBatchItemResponse> createBookings(BookingBatchRequest batchRequest) {
+        List<BookingRequest> bookingRequests = batchRequest.getBookings();
+        if (bookingRequests.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Cannot make more than " + MAX_BATCH_SIZE + " bookings at once");
+        }
+
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+
+        //load all listings in the batch with one query
+        Set<String> listingIds = bookingRequests.stream()
+                .filter(Objects::nonNull)
+                .map(BookingRequest::getListingId)
+                .collect(Collectors.toSet());
+        Map<String, Listing> listingsById = new HashMap<>();
+        listingRepository.findAllById(listingIds).forEach(listing -> listingsById.put(listing.getId(), listing));
+        //the dates as loaded, the reservations below change the listing objects
+        Map<String, List<DateRange>> loadedDatesByListingId = new HashMap<>();
+        listingsById.values().forEach(listing -> loadedDatesByListingId.put(listing.getId(), copyDateRanges(listing.getAvailableDates())));
+
+        //validate and reserve dates, bookings on the same listing are reserved one after the other on the same listing object
+        Booking[] bookings = new Booking[bookingRequests.size()];
+        String[] errors = new String[bookingRequests.size()];
+        for (int i = 0; i < bookingRequests.size(); i++) {
+            BookingRequest bookingRequest = bookingRequests.get(i);
+            try {
+                if (bookingRequest == null) {
+                    throw new IllegalArgumentException("booking cannot be null");
+                }
+                Listing listing = listingsById.get(bookingRequest.getListingId());
+                if (listing == null) {
+                    throw new ResourceNotFoundException("No listing with id '"+ bookingRequest.getListingId() +"' in database");
+                }
+                validateBooking(bookingRequest, currentUser, listing);
+                Booking booking = convertRequestToBooking(bookingRequest, currentUser, listing);
+                reserveBookingDates(booking, listing);
+                booking.setBookingStatus(BookingStatus.PENDING);
+                booking.setUpdatedAt(null);
+                bookings[i] = booking;
+            } catch (IllegalArgumentException | ResourceNotFoundException | DateTimeParseException e) {
+                errors[i] = e.getMessage();
+            }
+        }
+
+        boolean anyFailed = Arrays.stream(errors).anyMatch(Objects::nonNull);
+        if (batchRequest.isAtomic() && anyFailed) {
+            //nothing has been saved, the reserved dates only exist on the listing objects in memory
+            failRemainingBookings(bookings, errors);
+        } else {
+            saveBookingsAndListings(bookings, errors, loadedDatesByListingId, batchRequest.isAtomic());
+        }
+
+        List<BookingBatchItemResponse> results = new ArrayList<>();
+        for (int i = 0; i < bookingRequests.size(); i++) {
+            BookingRequest bookingRequest = bookingRequests.get(i);
+            results.add(new BookingBatchItemResponse(i, bookingRequest == null ? null : bookingRequest.getListingId(),
+                    bookings[i] == null ? null : publishEvent(BookingEvent.Type.CREATED, bookings[i]), errors[i]));
+        }
+        return results;
+    }
+
+    //get bookings by id, only the fields asked for are loaded (all fields if fields is null)
+    public BookingResponse getBookingById(String id, Set<String> fields) {
+        Booking booking = bookingRepository.findByIdWithFields(id, fields)
+                .orElseThrow(() -> new ResourceNotFoundException("No booking with id '"+id+"' in database"));
 
         //convert to DTO
         return convertToDTOResponse(booking);
     }
 
     //get all bookings
-    public List<BookingResponse> getAllBookings() {
-        List<Booking> bookings = bookingRepository.findAll();
+    public List<BookingResponse> getAllBookings(Set<String> fields) {
+        List<Booking> bookings = bookingRepository.findAllWithFields(fields);
         return bookings.stream()
-                .map(this::convertToDTOResponse)
+                .map(BookingService::convertToDTOResponse)
                 .collect(Collectors.toList());
     }
 
-    //get bookings any user
-    public List<BookingResponse> getBookingsByUserId(String userId) {
+    //get bookings any user, archived bookings (see BookingArchiveService) are only included if includeArchived is true
+    public List<BookingResponse> getBookingsByUserId(String userId, Set<String> fields, boolean includeArchived) {
         //validate user id
         User user = UserService.validateUserIdAndReturnUser(userId, userRepository);
 
-        return getUserBookings(user);
+        return getUserBookings(user, fields, includeArchived);
     }
 
     //get bookings current user
-    public List<BookingResponse> getBookingsCurrentUser() {
+    public List<BookingResponse> getBookingsCurrentUser(Set<String> fields, boolean includeArchived) {
         //get current user
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        return getUserBookings(currentUser);
+        return getUserBookings(currentUser, fields, includeArchived);
+    }
+
+    //get completed stays of the current user that have not been reviewed yet
+    public List<BookingResponse> getStaysAwaitingReviewCurrentUser(Set<String> fields) {
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        return bookingRepository.findAwaitingReviewByUserIdWithFields(currentUser.getId(), fields).stream()
+                .map(BookingService::convertToDTOResponse)
+                .collect(Collectors.toList());
     }
 
     //get current listings bookingId
-    public List<BookingResponse> getBookingsByListingId(String listingId) {
+    public List<BookingResponse> getBookingsByListingId(String listingId, Set<String> fields, boolean includeArchived) {
         Listing listing = ListingService.validateListingIdAndGetListing(listingId, listingRepository);
         //check that current user is owner of listing or admin
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
@@ -98,9 +215,12 @@ public class BookingService {
         }
 
         //convert toDTO and return
-        List<Booking> bookings = bookingRepository.findByListing(listing);
+        List<Booking> bookings = bookingRepository.findByListingIdWithFields(listing.getId(), fields);
+        if (includeArchived) {
+            bookings.addAll(bookingRepository.findArchivedByListingIdWithFields(listing.getId(), fields));
+        }
         return bookings.stream()
-                .map(this::convertToDTOResponse)
+                .map(BookingService::convertToDTOResponse)
                 .collect(Collectors.toList());
     }
 
@@ -116,7 +236,7 @@ public class BookingService {
 
         //check if status is pending, otherwise cannot be changed
         if (booking.getBookingStatus() != BookingStatus.PENDING) {
-            throw new UnsupportedOperationException("Accepted or rejected bookings cannot be updated");
+            throw new UnsupportedOperationException("Accepted, rejected or expired bookings cannot be updated");
         }
 
         //listing of booking cannot be changed
@@ -125,27 +245,31 @@ public class BookingService {
         }
 
         //validate data in new booking
-        validateBooking(updatedBookingRequest);
+        Listing bookingListing = validateListingIdAndGetListing(updatedBookingRequest);
+        validateBooking(updatedBookingRequest, currentUser, bookingListing);
 
         //convert DTO to booking object
-        Booking updatedBooking = convertRequestToBooking(updatedBookingRequest);
+        Booking updatedBooking = convertRequestToBooking(updatedBookingRequest, currentUser, bookingListing);
+        DateRange oldBookingDates = booking.getBookingDates();
+        BigDecimal oldTotalPrice = booking.getTotalPrice();
 
         //if booking dates are changed
         if (!booking.getBookingDates().getStartDate().equals(updatedBooking.getBookingDates().getStartDate()) ||
                 !booking.getBookingDates().getEndDate().equals(updatedBooking.getBookingDates().getEndDate())) {
 
-            //add back the old dates
-            Listing listing = validateListingIdAndGetListing(booking);
-            listing.addAvailableDateRange(booking.getBookingDates());
-            listingRepository.save(listing);
-
-            //subtract new dates from listing
-            validateBookingDatesAndUpdateListing(updatedBooking);
+            //add back the old dates and subtract the new dates with one conditional update of the listing dates
+            ListingService.changeAvailableDates(bookingListing, changedListing -> {
+                changedListing.addAvailableDateRange(oldBookingDates);
+                reserveBookingDates(updatedBooking, changedListing);
+            }, listingRepository, listingResponseCache);
+            //only the old dates that the new dates do not cover are free for the waitlist
+            waitlistService.datesReleased(bookingListing.getId(), oldBookingDates.subtract(updatedBooking.getBookingDates()));
             booking.setBookingDates(updatedBooking.getBookingDates());
         }
 
-        //update other booking data booking
+        //update other booking data booking, the price is calculated again for the new dates and guests
         booking.setNumberOfGuests(updatedBooking.getNumberOfGuests());
+        booking.setTotalPrice(updatedBooking.getTotalPrice());
 
         //update updatedAt
         booking.setUpdatedAt(LocalDateTime.now());
@@ -153,8 +277,11 @@ public class BookingService {
         //save booking
         bookingRepository.save(booking);
 
+        //statistics count the dates and price of accepted and rejected bookings
+        listingStatsService.recordChanged(booking, oldBookingDates, oldTotalPrice, bookingListing);
+
         //return as DTO
-        return convertToDTOResponse(booking);
+        return publishEvent(BookingEvent.Type.UPDATED, booking);
     }
 
     public BookingResponse acceptOrRejectBooking(String id, boolean isAccepted) {
@@ -163,7 +290,7 @@ public class BookingService {
 
         //check that booking status is pending
         if (booking.getBookingStatus() != BookingStatus.PENDING) {
-            throw new UnsupportedOperationException("Booking has already been accepted or rejected");
+            throw new UnsupportedOperationException("Booking has already been accepted, rejected or has expired");
         }
 
         //get current logged-in user
@@ -177,22 +304,111 @@ public class BookingService {
             throw new UnauthorizedException("only the listing host can accept/reject a booking");
         }
 
-        //if booking is accepted change status to accepted
+        //change status with a conditional update, the booking may have expired or been decided since it was loaded
+        booking.setBookingStatus(isAccepted ? BookingStatus.ACCEPTED : BookingStatus.REJECTED);
+        booking.setUpdatedAt(LocalDateTime.now());
+        if (bookingRepository.updatePendingStatuses(List.of(booking)).isEmpty()) {
+            throw new UnsupportedOperationException("Booking has already been accepted, rejected or has expired");
+        }
+
+        //if the booking is rejected, add back the booking dates to available dates (made again later if this fails)
+        if (!isAccepted) {
+            bookingDatesReleaseService.releaseDates(List.of(booking.getId()));
+        }
+
+        //update the listing statistics
         if (isAccepted) {
-            booking.setBookingStatus(BookingStatus.ACCEPTED);
-        //if the booking is rejected, add back the booking dates to available dates and change status to rejected
+            listingStatsService.recordAccepted(booking, listing);
         } else {
-            listing.addAvailableDateRange(booking.getBookingDates());
-            listing.setUpdatedAt(LocalDateTime.now());
-            listingRepository.save(listing);
-            booking.setBookingStatus(BookingStatus.REJECTED);
+            listingStatsService.recordRejected(booking, listing);
         }
 
-        //save updated booking
-        booking.setUpdatedAt(LocalDateTime.now());
-        bookingRepository.save(booking);
+        return publishEvent(isAccepted ? BookingEvent.Type.ACCEPTED : BookingEvent.Type.REJECTED, booking);
+    }
 
-        return convertToDTOResponse(booking);
+    /*accept/reject many pending bookings at once. The bookings are loaded with one query (without their listings and users),
+    ownership is checked with one query for the current user's listings. Each booking gets its new status with a conditional
+    update, and only the bookings that were still pending get their dates added back (rejected), statistics and events, so a
+    booking that expired or was decided in the meantime is reported as an error. The status update marks the dates of rejected
+    bookings as due, so they are given back later if the release fails. Results are per decision, in the same order as the request*/
+    public List<BookingDecisionResponse> decideBookings(BookingDecisionRequest decisionRequest) {
+        List<BookingDecision> decisions = decisionRequest.getDecisions();
+        if (decisions.size() > MAX_DECISION_BATCH_SIZE) {
+            throw new IllegalArgumentException("Cannot accept/reject more than " + MAX_DECISION_BATCH_SIZE + " bookings at once");
+        }
+
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+
+        //load the bookings, and the listings they are on that belong to the current user
+        Map<String, Booking> bookingsById = new HashMap<>();
+        bookingRepository.findByIdsWithoutReferences(decisions.stream().map(BookingDecision::getBookingId).collect(Collectors.toSet()))
+                .forEach(booking -> bookingsById.put(booking.getId(), booking));
+        Set<String> listingIds = bookingsById.values().stream()
+                .map(booking -> booking.getListing().getId())
+                .collect(Collectors.toSet());
+        Map<String, Listing> hostListingsById = new HashMap<>();
+        listingRepository.findAvailableDatesByIdsAndHostId(listingIds, currentUser.getId())
+                .forEach(listing -> hostListingsById.put(listing.getId(), listing));
+
+        //validate and apply the decisions in memory
+        LocalDateTime now = LocalDateTime.now();
+        Booking[] decidedBookings = new Booking[decisions.size()];
+        String[] errors = new String[decisions.size()];
+        Set<String> decidedIds = new HashSet<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingDecision decision = decisions.get(i);
+            Booking booking = bookingsById.get(decision.getBookingId());
+            if (booking == null) {
+                errors[i] = "No booking with id '" + decision.getBookingId() + "' in database";
+            } else if (!decidedIds.add(booking.getId())) {
+                errors[i] = "booking is already in this request";
+            } else if (!hostListingsById.containsKey(booking.getListing().getId())) {
+                errors[i] = "only the listing host can accept/reject a booking";
+            } else if (booking.getBookingStatus() != BookingStatus.PENDING) {
+                errors[i] = "Booking has already been accepted, rejected or has expired";
+            } else {
+                Listing listing = hostListingsById.get(booking.getListing().getId());
+                booking.setBookingStatus(decision.getAccept() ? BookingStatus.ACCEPTED : BookingStatus.REJECTED);
+                booking.setUpdatedAt(now);
+                //the listing is only needed for the host id when publishing the event
+                listing.setHost(currentUser);
+                booking.setListing(listing);
+                decidedBookings[i] = booking;
+            }
+        }
+
+        //write the statuses, the rest is only done for the bookings that were still pending
+        Set<String> changedIds = new HashSet<>(bookingRepository.updatePendingStatuses(
+                Arrays.stream(decidedBookings).filter(Objects::nonNull).collect(Collectors.toList())));
+        for (int i = 0; i < decidedBookings.length; i++) {
+            if (decidedBookings[i] != null && !changedIds.contains(decidedBookings[i].getId())) {
+                decidedBookings[i] = null;
+                errors[i] = "Booking has already been accepted, rejected or has expired";
+            }
+        }
+        List<Booking> decided = Arrays.stream(decidedBookings).filter(Objects::nonNull).collect(Collectors.toList());
+        listingStatsService.recordDecisions(decided, currentUser.getId());
+        bookingDatesReleaseService.releaseDates(decided.stream()
+                .filter(booking -> booking.getBookingStatus() == BookingStatus.REJECTED)
+                .map(Booking::getId)
+                .collect(Collectors.toList()));
+
+        //load the guests for the responses with one query
+        Map<String, User> usersById = new HashMap<>();
+        userRepository.findContactDetailsByIds(decided.stream().map(booking -> booking.getUser().getId()).collect(Collectors.toSet()))
+                .forEach(user -> usersById.put(user.getId(), user));
+
+        List<BookingDecisionResponse> results = new ArrayList<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            Booking booking = decidedBookings[i];
+            BookingResponse bookingResponse = null;
+            if (booking != null) {
+                booking.setUser(usersById.get(booking.getUser().getId()));
+                bookingResponse = publishEvent(booking.getBookingStatus() == BookingStatus.ACCEPTED ? BookingEvent.Type.ACCEPTED : BookingEvent.Type.REJECTED, booking);
+            }
+            results.add(new BookingDecisionResponse(i, decisions.get(i).getBookingId(), bookingResponse, errors[i]));
+        }
+        return results;
     }
 
     public void deleteBooking(String id) {
@@ -208,91 +424,179 @@ public class BookingService {
         //get listing
         Listing listing = validateListingIdAndGetListing(booking);
 
-        //if booking does not have status denied, add back the booked dates to the listing
-        if(booking.getBookingStatus() != BookingStatus.REJECTED) {
-            listing.addAvailableDateRange(booking.getBookingDates());
-            listing.setUpdatedAt(LocalDateTime.now());
-            listingRepository.save(listing);
+        /*if booking is not rejected or expired (dates already given back), add back the booked dates to the listing. Rejected
+        and expired bookings whose dates are still due to be given back (see BookingDatesReleaseService) are given back here*/
+        if((booking.getBookingStatus() != BookingStatus.REJECTED && booking.getBookingStatus() != BookingStatus.EXPIRED) || booking.getDatesReleaseDueAt() != null) {
+            waitlistService.datesReleased(listing.getId(), ListingService.giveBackDates(listing, List.of(booking.getBookingDates()), listingRepository, listingResponseCache));
         }
 
         //delete booking
         bookingRepository.deleteById(id);
+        listingStatsService.recordDeleted(booking, listing);
+        bookingEventHub.publish(listing.getHost().getId(), new BookingEvent(BookingEvent.Type.DELETED, id, listing.getId(), null));
     }
 
 
     //METHODS used by this or other SERVICE CLASSES --------------------------------------------------------------
 
     //get bookings for a user, used by getBookingsByUserId and getBookingsCurrentUser methods
-    private List<BookingResponse> getUserBookings(User user) {
+    private List<BookingResponse> getUserBookings(User user, Set<String> fields, boolean includeArchived) {
 
         //convert toDTO and return
-        List<Booking> bookings = bookingRepository.findByUser(user);
+        List<Booking> bookings = bookingRepository.findByUserIdWithFields(user.getId(), fields);
+        if (includeArchived) {
+            bookings.addAll(bookingRepository.findArchivedByUserIdWithFields(user.getId(), fields));
+        }
         return bookings.stream()
-                .map(this::convertToDTOResponse)
+                .map(BookingService::convertToDTOResponse)
                 .collect(Collectors.toList());
     }
 
-    private BookingResponse convertToDTOResponse(Booking booking) {
-        //get listing and user to save variables in DTOResponse
-        User user = userRepository.findById(booking.getUser().getId())
-                .orElseThrow(() -> new ResourceNotFoundException("User with id "+ booking.getUser().getId()+ " not found"));
+    //send the change to the listing host's booking streams, returns the booking as DTO
+    private BookingResponse publishEvent(BookingEvent.Type type, Booking booking) {
+        BookingResponse bookingResponse = convertToDTOResponse(booking);
+        bookingEventHub.publish(booking.getListing().getHost().getId(),
+                new BookingEvent(type, booking.getId(), booking.getListing().getId(), bookingResponse));
+        return bookingResponse;
+    }
+
+    //also used by WaitlistService for bookings made from the waitlist
+    static BookingResponse convertToDTOResponse(Booking booking) {
+        //listing, user and bookingDates are null if they were not loaded (see ?fields=), the user DBRef is already resolved when the booking is loaded
+        User user = booking.getUser() == null ? new User() : booking.getUser();
+        DateRange bookingDates = booking.getBookingDates();
 
         return new BookingResponse(
                 booking.getId(),
-                booking.getListing().getId(),
+                booking.getListing() == null ? null : booking.getListing().getId(),
                 booking.getListingTitle(),
                 user.getId(),
                 user.getUsername(),
                 user.getEmail(),
                 user.getPhoneNr(),
-                booking.getBookingDates().getStartDate().toString(),
-                booking.getBookingDates().getEndDate().toString(),
+                bookingDates == null ? null : bookingDates.getStartDate().toString(),
+                bookingDates == null ? null : bookingDates.getEndDate().toString(),
                 booking.getNumberOfGuests(),
                 booking.getTotalPrice(),
                 booking.getBookingStatus()
         );
     }
 
-    //convert BookingRequest to Booking
-    private Booking convertRequestToBooking(BookingRequest bookingRequest) {
+    /*write the reserved dates and insert the bookings, used by createBookings. The bookings of each listing are reserved
+    again on the dates the listing had when it was loaded and written with one conditional update (changeAvailableDates), so
+    if another booking took some of the dates in the meantime the bookings on that listing fail (all bookings if the batch is
+    atomic). The bookings are then inserted one at a time. If a write fails, the dates of the bookings that are not stored
+    are given back (all of them if the batch is atomic, the inserted bookings are deleted) and the exception is rethrown*/
+    private void saveBookingsAndListings(Booking[] bookings, String[] errors, Map<String, List<DateRange>> loadedDatesByListingId, boolean atomic) {
+        Map<String, List<Booking>> bookingsByListingId = Arrays.stream(bookings)
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(booking -> booking.getListing().getId(), LinkedHashMap::new, Collectors.toList()));
+        List<Booking> reservedBookings = new ArrayList<>();
+        List<Booking> insertedBookings = new ArrayList<>();
+        try {
+            for (List<Booking> listingBookings : bookingsByListingId.values()) {
+                Listing listing = listingBookings.get(0).getListing();
+                listing.setAvailableDates(copyDateRanges(loadedDatesByListingId.get(listing.getId())));
+                try {
+                    ListingService.changeAvailableDates(listing, changedListing -> listingBookings.forEach(booking -> reserveBookingDates(booking, changedListing)),
+                            listingRepository, listingResponseCache);
+                    reservedBookings.addAll(listingBookings);
+                } catch (IllegalArgumentException | ResourceNotFoundException | ServiceUnavailableException e) {
+                    //another write took some of the dates (or deleted the listing) after the listing was loaded
+                    for (int i = 0; i < bookings.length; i++) {
+                        if (listingBookings.contains(bookings[i])) {
+                            bookings[i] = null;
+                            errors[i] = e.getMessage();
+                        }
+                    }
+                }
+            }
+            if (atomic && reservedBookings.size() < bookingsByListingId.values().stream().mapToInt(List::size).sum()) {
+                giveBackBookingDates(reservedBookings);
+                failRemainingBookings(bookings, errors);
+                return;
+            }
+
+            for (Booking booking : reservedBookings) {
+                bookingRepository.insert(booking);
+                insertedBookings.add(booking);
+            }
+        } catch (RuntimeException e) {
+            //compensate: give back the dates that are reserved on the listings but not held by a stored booking
+            if (atomic && !insertedBookings.isEmpty()) {
+                try {
+                    bookingRepository.deleteAll(insertedBookings);
+                    insertedBookings.clear();
+                } catch (RuntimeException deleteException) {
+                    logger.error("Inserted bookings of a failed atomic batch could not be deleted", deleteException);
+                }
+            }
+            reservedBookings.removeAll(insertedBookings);
+            giveBackBookingDates(reservedBookings);
+            throw e;
+        }
+    }
+
+    //give back the dates of bookings that were reserved but are not stored, one conditional update per listing, used by saveBookingsAndListings
+    private void giveBackBookingDates(List<Booking> bookings) {
+        Map<String, List<DateRange>> datesByListingId = bookings.stream()
+                .collect(Collectors.groupingBy(booking -> booking.getListing().getId(), LinkedHashMap::new,
+                        Collectors.mapping(Booking::getBookingDates, Collectors.toList())));
+        datesByListingId.forEach((listingId, dates) -> {
+            try {
+                Listing listing = ListingService.validateListingIdAndGetListing(listingId, listingRepository);
+                ListingService.giveBackDates(listing, dates, listingRepository, listingResponseCache);
+            } catch (RuntimeException e) {
+                //the other listings are still given back, the original failure is the one reported
+                logger.error("Reserved dates of {} bookings could not be given back to listing '{}'", dates.size(), listingId, e);
+            }
+        });
+    }
+
+    //the bookings that have not failed are not booked, used when an atomic batch fails
+    private static void failRemainingBookings(Booking[] bookings, String[] errors) {
+        Arrays.fill(bookings, null);
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] == null) {
+                errors[i] = "not booked, another booking in the batch failed";
+            }
+        }
+    }
+
+    private static List<DateRange> copyDateRanges(List<DateRange> dateRanges) {
+        return dateRanges == null ? new ArrayList<>() : dateRanges.stream()
+                .map(dateRange -> new DateRange(dateRange.getStartDate(), dateRange.getEndDate()))
+                .collect(Collectors.toList());
+    }
+
+    //convert BookingRequest to Booking, with the current user as the user for the booking
+    private Booking convertRequestToBooking(BookingRequest bookingRequest, User currentUser, Listing listing) {
                 Booking booking = new Booking();
-                Listing listing = validateListingIdAndGetListing(bookingRequest);
                 booking.setListing(listing);
                 booking.setListingTitle(listing.getTitle());
-                //set current user as the user for the booking
-                booking.setUser(UserService.verifyAuthenticationAndExtractUser(userRepository));
+                booking.setUser(currentUser);
                 booking.setBookingDates(new DateRange(
                         LocalDate.parse(bookingRequest.getStartDate()),
                         LocalDate.parse(bookingRequest.getEndDate())));
                 booking.setNumberOfGuests(bookingRequest.getNumberOfGuests());
-                calculateAndSetPrice(booking);
+                calculateAndSetPrice(booking, listing);
                 return booking;
     }
 
-    //calculate price from nr of booked days and price per night from listing
-    private void calculateAndSetPrice(Booking booking) {
-        //calculate days in between start and end date
-        long daysBetween = ChronoUnit.DAYS.between(
-                booking.getBookingDates().getStartDate(),
-                booking.getBookingDates().getEndDate()
-        );
-
-        //get listing
-        Listing listing = validateListingIdAndGetListing(booking);
-
-        //calculate price using listing price_per_night
-        BigDecimal totalPrice = listing.getPricePerNight().multiply(BigDecimal.valueOf(daysBetween));
-
-        //set total price of booking
-        booking.setTotalPrice(totalPrice);
+    //calculate price of the booked nights with the listing pricing (weekend prices, price overrides and discounts)
+    private void calculateAndSetPrice(Booking booking, Listing listing) {
+        booking.setTotalPrice(pricingService.calculateStayPrice(listing, booking.getBookingDates()));
     }
 
     //validate that BookingRequest data is valid
-    private void validateBooking(BookingRequest bookingRequest) {
-        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-
-        //check that listing id is valid
-        Listing listing = validateListingIdAndGetListing(bookingRequest);
+    private void validateBooking(BookingRequest bookingRequest, User currentUser, Listing listing) {
+        //required fields are checked here as well, the requests in a batch are not always validated by the controller
+        if (bookingRequest.getStartDate() == null || bookingRequest.getEndDate() == null) {
+            throw new IllegalArgumentException("booking startDate and endDate are required fields");
+        }
+        if (bookingRequest.getNumberOfGuests() == null || bookingRequest.getNumberOfGuests() <= 0) {
+            throw new IllegalArgumentException("numberOfGuests is a required field and must be greater than 0");
+        }
 
         //check that the user for the booking is not also the host of the listing
         if (currentUser.getId().equals(listing.getHost().getId())) {
@@ -306,42 +610,15 @@ public class BookingService {
 
     }
 
-    //validate that booking dates are available and update listing dates
-    private void validateBookingDatesAndUpdateListing(Booking booking) {
-        //get listing
-        Listing listing = validateListingIdAndGetListing(booking);
-
-        //save booking dates in variable for ease of use
-        DateRange bookingDates = booking.getBookingDates();
-
-        //check that booking dates fall within available dates of listing.
-        boolean areBookingDatesAvailable = false;
-        for (DateRange availibleDateRange : listing.getAvailableDates()) {
-            if (bookingDates.isWithinAnotherDateRange(availibleDateRange)) {
-                areBookingDatesAvailable = true;
-
-                //update listing dates
-                if (bookingDates.isIdenticalToAnotherDateRange(availibleDateRange)) {
-                    listing.getAvailableDates().remove(availibleDateRange);
-                } else if (bookingDates.getStartDate().isEqual(availibleDateRange.getStartDate())) {
-                    availibleDateRange.setStartDate(bookingDates.getEndDate());
-                } else if (bookingDates.getEndDate().isEqual(availibleDateRange.getEndDate())) {
-                    availibleDateRange.setEndDate(bookingDates.getStartDate());
-                } else {
-                    DateRange newDateRange = new DateRange(bookingDates.getEndDate(), availibleDateRange.getEndDate());
-                    listing.getAvailableDates().add(newDateRange);
-                    availibleDateRange.setEndDate(bookingDates.getStartDate());
-                }
-
-                //save updated listing
-                listing.setUpdatedAt(LocalDateTime.now());
-                listingRepository.save(listing);
-                break;
-            }
-        }
+    /*validate that booking dates are available and update listing dates, the listing is the one already loaded by the caller.
+    Only the changed date ranges are written, and only if no other write changed them in the meantime*/
+    private void validateBookingDatesAndUpdateListing(Booking booking, Listing listing) {
+        ListingService.changeAvailableDates(listing, changedListing -> reserveBookingDates(booking, changedListing), listingRepository, listingResponseCache);
+    }
 
-        //error if bookingDates are not available in listing
-        if(!areBookingDatesAvailable) {
+    //check that booking dates fall within available dates of listing and remove them from the available dates (in memory only)
+    private void reserveBookingDates(Booking booking, Listing listing) {
+        if (!listing.reserveDateRange(booking.getBookingDates())) {
             throw new IllegalArgumentException("booking dates not available on listing");
         }
     }
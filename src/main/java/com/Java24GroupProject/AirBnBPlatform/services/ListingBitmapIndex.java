@@ -0,0 +1,196 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingUtilities;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.UtilityExpression;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingFacetCounts.PRICE_RANGE_BOUNDARIES;
+
+/*in-memory index used for fast utility filtering of listings. Every listing gets a small number (ordinal) and for every
+utility, price range and location there is a bitmap where bit n is set if listing n has that utility/price/location.
+A utility search like "WIFI AND POOL AND NOT PETS_ALLOWED" then becomes AND/OR/ANDNOT operations on the bitmaps.
+Kept up to date by ListingService (and UserService when a host is deleted)*/
+@Component
+public class ListingBitmapIndex {
+    private final ListingRepository listingRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    //listing id <-> ordinal (bit position), ordinals of removed listings are reused
+    private final Map<String, Integer> ordinalByListingId = new HashMap<>();
+    private final List<String> listingIdByOrdinal = new ArrayList<>();
+    private final Deque<Integer> freeOrdinals = new ArrayDeque<>();
+    private final BitSet allListings = new BitSet();
+
+    private final Map<ListingUtilities, BitSet> utilityBitmaps = new EnumMap<>(ListingUtilities.class);
+    private final BitSet[] priceRangeBitmaps = new BitSet[PRICE_RANGE_BOUNDARIES.length];
+    private final Map<String, BitSet> locationBitmaps = new HashMap<>();
+
+    public ListingBitmapIndex(ListingRepository listingRepository) {
+        this.listingRepository = listingRepository;
+        for (ListingUtilities utility : ListingUtilities.values()) {
+            utilityBitmaps.put(utility, new BitSet());
+        }
+        for (int i = 0; i < priceRangeBitmaps.length; i++) {
+            priceRangeBitmaps[i] = new BitSet();
+        }
+    }
+
+    //load all listings into the index when the application has started
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Listing> listings = listingRepository.findAllForBitmapIndex();
+        lock.writeLock().lock();
+        try {
+            ordinalByListingId.clear();
+            listingIdByOrdinal.clear();
+            freeOrdinals.clear();
+            allListings.clear();
+            utilityBitmaps.values().forEach(BitSet::clear);
+            Arrays.stream(priceRangeBitmaps).forEach(BitSet::clear);
+            locationBitmaps.clear();
+            listings.forEach(this::addWithoutLock);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //add a new listing or re-index an updated listing
+    public void addOrUpdate(Listing listing) {
+        lock.writeLock().lock();
+        try {
+            removeWithoutLock(listing.getId());
+            addWithoutLock(listing);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String listingId) {
+        lock.writeLock().lock();
+        try {
+            removeWithoutLock(listingId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*get the ids of all listings matching a utility expression, e.g. "WIFI AND (POOL OR KITCHEN) AND NOT PETS_ALLOWED".
+    Location and price are optional (null = not used), the price filter only narrows down to the matching price ranges,
+    so the exact price still has to be checked by the caller*/
+    public Set<String> findListingIds(UtilityExpression utilityExpression, String location, Double minPrice, Double maxPrice) {
+        lock.readLock().lock();
+        try {
+            BitSet result = utilityExpression == null
+                    ? (BitSet) allListings.clone()
+                    : evaluate(utilityExpression);
+
+            if (location != null) {
+                result.and(locationBitmaps.getOrDefault(location, new BitSet()));
+            }
+            if (minPrice != null || maxPrice != null) {
+                result.and(priceRangesBetween(minPrice, maxPrice));
+            }
+
+            Set<String> listingIds = new HashSet<>();
+            for (int ordinal = result.nextSetBit(0); ordinal >= 0; ordinal = result.nextSetBit(ordinal + 1)) {
+                listingIds.add(listingIdByOrdinal.get(ordinal));
+            }
+            return listingIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    //must be called while holding the write lock
+    private void addWithoutLock(Listing listing) {
+        int ordinal;
+        if (freeOrdinals.isEmpty()) {
+            ordinal = listingIdByOrdinal.size();
+            listingIdByOrdinal.add(listing.getId());
+        } else {
+            ordinal = freeOrdinals.pop();
+            listingIdByOrdinal.set(ordinal, listing.getId());
+        }
+        ordinalByListingId.put(listing.getId(), ordinal);
+        allListings.set(ordinal);
+
+        if (listing.getUtilities() != null) {
+            for (ListingUtilities utility : listing.getUtilities()) {
+                utilityBitmaps.get(utility).set(ordinal);
+            }
+        }
+        if (listing.getPricePerNight() != null) {
+            priceRangeBitmaps[priceRangeIndex(listing.getPricePerNight().doubleValue())].set(ordinal);
+        }
+        if (listing.getLocation() != null) {
+            locationBitmaps.computeIfAbsent(listing.getLocation(), location -> new BitSet()).set(ordinal);
+        }
+    }
+
+    //must be called while holding the write lock
+    private void removeWithoutLock(String listingId) {
+        Integer ordinal = ordinalByListingId.remove(listingId);
+        if (ordinal == null) {
+            return;
+        }
+        allListings.clear(ordinal);
+        utilityBitmaps.values().forEach(bitmap -> bitmap.clear(ordinal));
+        Arrays.stream(priceRangeBitmaps).forEach(bitmap -> bitmap.clear(ordinal));
+        locationBitmaps.values().removeIf(bitmap -> {
+            bitmap.clear(ordinal);
+            return bitmap.isEmpty();
+        });
+        listingIdByOrdinal.set(ordinal, null);
+        freeOrdinals.push(ordinal);
+    }
+
+    //union of the bitmaps of all price ranges that overlap [minPrice, maxPrice]
+    private BitSet priceRangesBetween(Double minPrice, Double maxPrice) {
+        int from = minPrice == null ? 0 : priceRangeIndex(minPrice);
+        int to = maxPrice == null ? priceRangeBitmaps.length - 1 : priceRangeIndex(maxPrice);
+        BitSet result = new BitSet();
+        for (int i = from; i <= to; i++) {
+            result.or(priceRangeBitmaps[i]);
+        }
+        return result;
+    }
+
+    private static int priceRangeIndex(double price) {
+        for (int i = PRICE_RANGE_BOUNDARIES.length - 1; i > 0; i--) {
+            if (price >= PRICE_RANGE_BOUNDARIES[i]) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    //bitmap of the listings matching a utility expression, must be called while holding the read lock
+    private BitSet evaluate(UtilityExpression expression) {
+        if (expression instanceof UtilityExpression.Utility utility) {
+            return (BitSet) utilityBitmaps.get(utility.utility()).clone();
+        }
+        if (expression instanceof UtilityExpression.Not not) {
+            BitSet result = (BitSet) allListings.clone();
+            result.andNot(evaluate(not.operand()));
+            return result;
+        }
+        if (expression instanceof UtilityExpression.And and) {
+            BitSet result = evaluate(and.operands().get(0));
+            and.operands().stream().skip(1).forEach(operand -> result.and(evaluate(operand)));
+            return result;
+        }
+        UtilityExpression.Or or = (UtilityExpression.Or) expression;
+        BitSet result = evaluate(or.operands().get(0));
+        or.operands().stream().skip(1).forEach(operand -> result.or(evaluate(operand)));
+        return result;
+    }
+}
@@ -0,0 +1,173 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.RatingQueueStatus;
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRatingSummaryRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*Writes the averageRating of listings after their reviews change. A review only queues its listing id and returns, a listing
+that is already queued is not queued again, so a burst of reviews on one listing gives one write per interval. Every
+rating.recomputeIntervalMs the queued listings are handed in batches to a small pool, which reads the averages from the
+rating summaries (see RatingAggregateService) and writes them with one bulk update per batch. A listing is only recomputed by
+one thread at a time, a listing queued again while it is recomputed waits in the queue until that recompute is done, so an
+older average can never be written after a newer one.
+When rating.maxQueuedListings listings are waiting, new listings are recomputed by the review request itself (backpressure)*/
+@Service
+public class ListingRatingQueue {
+    private static final Logger logger = LoggerFactory.getLogger(ListingRatingQueue.class);
+    //max amount of listings read and written per bulk write
+    private static final int BATCH_SIZE = 500;
+
+    private final ListingRatingSummaryRepository ratingSummaryRepository;
+    private final ListingRepository listingRepository;
+    private final ListingResponseCache listingResponseCache;
+    private final int maxQueuedListings;
+    //listing id -> time in milliseconds of the first trigger since the listing was last recomputed
+    private final Map<String, Long> queuedAtByListingId = new ConcurrentHashMap<>();
+    //listings being recomputed by a worker or inline
+    private final Set<String> inFlightListingIds = ConcurrentHashMap.newKeySet();
+    //batches waiting for a worker are limited, when they are all taken the draining thread recomputes the batch itself
+    private final ThreadPoolExecutor workers;
+
+    private final AtomicLong recomputedListings = new AtomicLong();
+    private final AtomicLong coalescedTriggers = new AtomicLong();
+    private final AtomicLong inlineRecomputes = new AtomicLong();
+    private final AtomicLong failedRecomputes = new AtomicLong();
+    private final AtomicLong lastLagMs = new AtomicLong();
+    private final AtomicLong maxLagMs = new AtomicLong();
+
+    public ListingRatingQueue(ListingRatingSummaryRepository ratingSummaryRepository, ListingRepository listingRepository,
+                              ListingResponseCache listingResponseCache,
+                              @Value("${rating.recomputeThreads:2}") int recomputeThreads,
+                              @Value("${rating.maxQueuedListings:10000}") int maxQueuedListings) {
+        this.ratingSummaryRepository = ratingSummaryRepository;
+        this.listingRepository = listingRepository;
+        this.listingResponseCache = listingResponseCache;
+        this.maxQueuedListings = maxQueuedListings;
+        this.workers = new ThreadPoolExecutor(recomputeThreads, recomputeThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(recomputeThreads * 2), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    //METHODS used by RATING AGGREGATE SERVICE CLASS ------------------------------------------------------------------
+
+    //the rating summary of a listing has changed, returns right away unless the queue is full
+    public void enqueue(String listingId) {
+        if (queuedAtByListingId.size() >= maxQueuedListings && !queuedAtByListingId.containsKey(listingId) && inFlightListingIds.add(listingId)) {
+            inlineRecomputes.incrementAndGet();
+            recompute(Map.of(listingId, System.currentTimeMillis()));
+            return;
+        }
+        if (queuedAtByListingId.putIfAbsent(listingId, System.currentTimeMillis()) != null) {
+            coalescedTriggers.incrementAndGet();
+        }
+    }
+
+    //queue several listings, used after the rating summaries have been rebuilt (never recomputed inline)
+    public void enqueueAll(List<String> listingIds) {
+        long now = System.currentTimeMillis();
+        for (String listingId : listingIds) {
+            queuedAtByListingId.putIfAbsent(listingId, now);
+        }
+    }
+
+    //METHODS used by REVIEW CONTROLLER CLASS ------------------------------------------------------------------------
+
+    public RatingQueueStatus getStatus() {
+        long now = System.currentTimeMillis();
+        long oldestQueuedAt = queuedAtByListingId.values().stream().mapToLong(Long::longValue).min().orElse(now);
+        return new RatingQueueStatus(queuedAtByListingId.size(), now - oldestQueuedAt, workers.getActiveCount(),
+                recomputedListings.get(), coalescedTriggers.get(), inlineRecomputes.get(), failedRecomputes.get(),
+                lastLagMs.get(), maxLagMs.get());
+    }
+
+    //hand the queued listings to the workers, a listing that is still being recomputed stays queued for the next run
+    @Scheduled(fixedDelayString = "${rating.recomputeIntervalMs:5000}")
+    public void drainQueue() {
+        Map<String, Long> batch = new HashMap<>();
+        for (String listingId : new ArrayList<>(queuedAtByListingId.keySet())) {
+            if (!inFlightListingIds.add(listingId)) {
+                continue;
+            }
+            //removed before the summary is read, so a review after the read queues the listing again
+            Long queuedAt = queuedAtByListingId.remove(listingId);
+            if (queuedAt != null) {
+                batch.put(listingId, queuedAt);
+            } else {
+                inFlightListingIds.remove(listingId);
+            }
+            if (batch.size() == BATCH_SIZE) {
+                submit(batch);
+                batch = new HashMap<>();
+            }
+        }
+        if (!batch.isEmpty()) {
+            submit(batch);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+        if (!queuedAtByListingId.isEmpty()) {
+            //the summaries are up to date, the averages are written when the listings get their next review or rating rebuild
+            logger.warn("{} listing average ratings were not recomputed before shutdown", queuedAtByListingId.size());
+        }
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private void submit(Map<String, Long> batch) {
+        workers.execute(() -> recompute(batch));
+    }
+
+    //listing id -> time of the first trigger, the listings of the batch must be in inFlightListingIds and are removed from it here
+    private void recompute(Map<String, Long> batch) {
+        try {
+            Map<String, Double> averageRatings = new HashMap<>();
+            for (String listingId : batch.keySet()) {
+                //listings without reviews get 0
+                averageRatings.put(listingId, 0.0);
+            }
+            for (ListingRatingSummary summary : ratingSummaryRepository.findAllById(batch.keySet())) {
+                if (summary.getAverageRating() != null) {
+                    averageRatings.put(summary.getId(), summary.getAverageRating());
+                }
+            }
+
+            listingRepository.updateAverageRatingsInBulk(averageRatings, LocalDateTime.now());
+            //bulk updates do not publish save events
+            batch.keySet().forEach(listingResponseCache::evict);
+
+            long now = System.currentTimeMillis();
+            long oldestQueuedAt = batch.values().stream().mapToLong(Long::longValue).min().orElse(now);
+            lastLagMs.set(now - oldestQueuedAt);
+            maxLagMs.accumulateAndGet(now - oldestQueuedAt, Math::max);
+            recomputedListings.addAndGet(batch.size());
+        } catch (RuntimeException e) {
+            //queue the listings again with their first trigger time, they are retried in the next run
+            failedRecomputes.addAndGet(batch.size());
+            batch.forEach(queuedAtByListingId::putIfAbsent);
+            logger.warn("Could not recompute the average rating of {} listings", batch.size(), e);
+        } finally {
+            inFlightListingIds.removeAll(batch.keySet());
+        }
+    }
+}
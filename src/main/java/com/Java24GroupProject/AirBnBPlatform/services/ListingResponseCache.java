@@ -0,0 +1,47 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingResponse;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.util.ExpiringLruCache;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterDeleteEvent;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.stereotype.Component;
+
+/*cache of full listing responses by listing id, used by GET /listings/{id} and GET /listings/batch.
+Listings are saved from several services (bookings change availableDates, reviews change averageRating),
+so instead of every service having to remember the cache, entries are removed whenever MongoDB saves or deletes a listing*/
+@Component
+public class ListingResponseCache extends AbstractMongoEventListener<Listing> {
+    private final ExpiringLruCache<String, ListingResponse> cache = new ExpiringLruCache<>(1000, 300_000);
+
+    public ListingResponse get(String listingId) {
+        return cache.get(listingId);
+    }
+
+    public void put(ListingResponse listingResponse) {
+        cache.put(listingResponse.getId(), listingResponse);
+    }
+
+    //for listings changed with bulk updates, which do not publish save events
+    public void evict(String listingId) {
+        cache.remove(listingId);
+    }
+
+    @Override
+    public void onAfterSave(AfterSaveEvent<Listing> event) {
+        cache.remove(event.getSource().getId());
+    }
+
+    //the source of a delete event is the delete query, if it is not a delete by id (e.g. deleteByHost) the whole cache is cleared
+    @Override
+    public void onAfterDelete(AfterDeleteEvent<Listing> event) {
+        Object id = event.getSource().get("_id");
+        if (id instanceof ObjectId || id instanceof String) {
+            cache.remove(id.toString());
+        } else {
+            cache.clear();
+        }
+    }
+}
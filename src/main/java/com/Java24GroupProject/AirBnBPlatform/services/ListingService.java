@@ -1,68 +1,166 @@
 package com.Java24GroupProject.AirBnBPlatform.services;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.FlexibleDatesResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.HostResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingBatchItem;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingPricingRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingQuoteRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingQuoteResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingSearchResponse;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingSummaryResponse;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundException;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ServiceUnavailableException;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
 import com.Java24GroupProject.AirBnBPlatform.models.Listing;
 import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.IdAndName;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingFacetCounts;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ListingSearchCriteria;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.UtilityExpression;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
 import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.DayBitmap;
+import com.Java24GroupProject.AirBnBPlatform.util.ExpiringLruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 
 @Service
 public class ListingService {
+    private static final Logger logger = LoggerFactory.getLogger(ListingService.class);
+    //max amount of listings in one batch fetch
+    private static final int MAX_BATCH_SIZE = 100;
+    //max length of the date range in a flexible dates search
+    private static final int MAX_FLEXIBLE_RANGE_NIGHTS = 92;
+    //utility searches matching more listings than this are queried on the utilities field instead of a list of ids
+    private static final int MAX_LISTING_ID_FILTER = 500;
+    //times a change of the available dates is tried when other writes keep changing the dates
+    private static final int MAX_AVAILABLE_DATES_ATTEMPTS = 5;
+
     private final ListingRepository listingRepository;
     private final UserRepository userRepository;
     private final BookingRepository bookingRepository;
     private final ReviewRepository reviewRepository;
-
-    public ListingService(ListingRepository listingRepository, UserRepository userRepository, BookingRepository bookingRepository, ReviewRepository reviewRepository) {
+    private final ListingBitmapIndex listingBitmapIndex;
+    private final ListingResponseCache listingResponseCache;
+    private final PricingService pricingService;
+    private final ListingStatsService listingStatsService;
+    private final WaitlistService waitlistService;
+    private final RatingAggregateService ratingAggregateService;
+    //facet counts for the most common searches (e.g. the unfiltered search on the start page), cleared when listings change
+    private final ExpiringLruCache<ListingSearchCriteria, ListingFacetCounts> facetCountsCache = new ExpiringLruCache<>(100, 60_000);
+
+    public ListingService(ListingRepository listingRepository, UserRepository userRepository, BookingRepository bookingRepository, ReviewRepository reviewRepository, ListingBitmapIndex listingBitmapIndex, ListingResponseCache listingResponseCache, PricingService pricingService, ListingStatsService listingStatsService, WaitlistService waitlistService, RatingAggregateService ratingAggregateService) {
         this.listingRepository = listingRepository;
         this.userRepository = userRepository;
         this.bookingRepository = bookingRepository;
         this.reviewRepository = reviewRepository;
+        this.listingBitmapIndex = listingBitmapIndex;
+        this.listingResponseCache = listingResponseCache;
+        this.pricingService = pricingService;
+        this.listingStatsService = listingStatsService;
+        this.waitlistService = waitlistService;
+        this.ratingAggregateService = ratingAggregateService;
     }
 
     //METHODS used by LISTING CONTROLLER CLASS -----------------------------------------------------------------------
 
     //get all listings
-    public List<ListingResponse> getAllListings() {
-
-        List<Listing> listings = listingRepository.findAll();
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+    public List<ListingSummaryResponse> getAllListings(Set<String> fields) {
+        return findListingSummaries(new ListingSearchCriteria(null, null, null, null, null, null, null), fields);
     }
 
     //get listing by id
-    public ListingResponse getListingById(String id) {
-        Listing listing = validateListingIdAndGetListing(id, listingRepository);
+    public ListingResponse getListingById(String id, Set<String> fields) {
+        //the full listing is cached, a listing with only some of the fields is not
+        if (fields == null) {
+            ListingResponse cachedListing = listingResponseCache.get(id);
+            if (cachedListing != null) {
+                return cachedListing;
+            }
+        }
 
-        return convertToListingResponseDTO(listing);
+        //only load the fields asked for (all fields if fields is null)
+        Listing listing = listingRepository.findByIdWithFields(id, fields)
+                .orElseThrow(() -> new ResourceNotFoundException("No listing with id '"+ id +"' in database"));
+
+        ListingResponse listingResponse = convertToListingResponseDTO(listing);
+        if (fields == null) {
+            listingResponseCache.put(listingResponse);
+        }
+        return listingResponse;
+    }
+
+    /*get several listings by id (e.g. for favorites or booking history pages), listings in the cache are used directly
+    and the rest are loaded with one query. Results are in the same order as the ids, with found = false for unknown ids*/
+    public List<ListingBatchItem> getListingsByIds(List<String> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("At least one listing id is required");
+        }
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("Cannot fetch more than " + MAX_BATCH_SIZE + " listings at once");
+        }
+
+        Map<String, ListingResponse> listingsById = new HashMap<>();
+        Set<String> idsToLoad = new HashSet<>();
+        for (String id : ids) {
+            ListingResponse cachedListing = listingResponseCache.get(id);
+            if (cachedListing != null) {
+                listingsById.put(id, cachedListing);
+            } else {
+                idsToLoad.add(id);
+            }
+        }
+
+        if (!idsToLoad.isEmpty()) {
+            for (Listing listing : listingRepository.findAllById(idsToLoad)) {
+                ListingResponse listingResponse = convertToListingResponseDTO(listing);
+                listingResponseCache.put(listingResponse);
+                listingsById.put(listing.getId(), listingResponse);
+            }
+        }
+
+        return ids.stream()
+                .map(id -> new ListingBatchItem(id, listingsById.get(id)))
+                .collect(Collectors.toList());
     }
 
     //get all listings for a host, using hosts id
-    public List<ListingResponse> getListingsByHostId(String hostId) {
+    public List<ListingSummaryResponse> getListingsByHostId(String hostId, Set<String> fields) {
         //check if user is valid
-        User user = UserService.validateUserIdAndReturnUser(hostId, userRepository);
-        return getListingsByUser(user);
+        if (!userRepository.existsById(hostId)) {
+            throw new ResourceNotFoundException("No user with id '"+ hostId + "' in database");
+        }
+        return listingRepository.findSummariesByHostId(hostId, fields).stream()
+                .map(this::convertToListingSummaryDTO)
+                .collect(Collectors.toList());
     }
     
     // get listings by price interval
-    public List<ListingResponse> getListingByPriceRange(double minPrice, double maxPrice) {
+    public List<ListingSummaryResponse> getListingByPriceRange(double minPrice, double maxPrice, Set<String> fields) {
         // make sure none of the prices are negative
         if (minPrice < 0 || maxPrice <= 0) {
             throw new IllegalArgumentException("Price cannot be negative");
@@ -73,29 +171,21 @@ public class ListingService {
             throw new IllegalArgumentException("Price cannot be greater than maxPrice");
         }
 
-        //convert to DTO and return
-        List<Listing> listings = listingRepository.findByPricePerNightBetween(minPrice, maxPrice);
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+        return findListingSummaries(new ListingSearchCriteria(null, minPrice, maxPrice, null, null, null, null), fields);
     }
 
     //get listings by location
-    public List<ListingResponse> getListingByLocation(String location) {
+    public List<ListingSummaryResponse> getListingByLocation(String location, Set<String> fields) {
         // make sure location isn't empty/null
         if(location == null || location.isEmpty()) {
             throw new IllegalArgumentException("Location cannot be empty or null");
         }
 
-        //convert to DTO and return
-        List<Listing> listings = listingRepository.findByLocation(location);
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+        return findListingSummaries(new ListingSearchCriteria(location, null, null, null, null, null, null), fields);
     }
 
     //get listings by capacity interval
-    public List<ListingResponse> getListingByCapacity(double minCapacity, double maxCapacity) {
+    public List<ListingSummaryResponse> getListingByCapacity(double minCapacity, double maxCapacity, Set<String> fields) {
         //checks so capacity isn't negative
         if (minCapacity < 0 || maxCapacity <= 0) {
             throw new IllegalArgumentException("Capacity cannot be negative");
@@ -105,27 +195,129 @@ public class ListingService {
             throw new IllegalArgumentException("minCapacity cannot be greater than maxCapacity");
         }
 
-        //convert to DTO and return
-        List<Listing> listings = listingRepository.findByCapacityBetween(minCapacity, maxCapacity);
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
-                .collect(Collectors.toList());
+        //capacity is a whole number, so round the interval inwards
+        return findListingSummaries(new ListingSearchCriteria(null, null, null,
+                (int) Math.ceil(minCapacity), (int) Math.floor(maxCapacity), null, null), fields);
     }
 
-    //get listing by utilities
-    public List<ListingResponse> getListingByUtilities(String utility) {
+    //get listing by utilities, accepts a single utility or a utility expression, e.g. "WIFI AND POOL AND NOT PETS_ALLOWED"
+    public List<ListingSummaryResponse> getListingByUtilities(String utility, Set<String> fields) {
         //make sure utility isn't empty
         if(utility == null || utility.isEmpty()) {
             throw new IllegalArgumentException("Utility cannot be empty or null");
         }
 
-        //convert to DTO and return
-        List<Listing> listings = listingRepository.findByUtilities(utility);
-        return listings.stream()
-                .map(this::convertToListingResponseDTO)
+        //get matching listing ids from the bitmap index
+        return findListingSummaries(resolveUtilities(new ListingSearchCriteria(null, null, null, null, null,
+                UtilityExpression.parse(utility), null)), fields);
+    }
+
+    /*search listings using any combination of filters, facet counts for the search are included if includeFacets is true.
+    If stayDates is set, minPrice/maxPrice are compared to the average price per night for those dates (with weekend prices,
+    price overrides and discounts) instead of the base price per night*/
+    public ListingSearchResponse searchListings(ListingSearchCriteria criteria, DateRange stayDates, boolean includeFacets, Set<String> fields) {
+        validateSearchCriteria(criteria);
+        ListingSearchCriteria stayPriceCriteria = null;
+        if (stayDates != null && (criteria.minPrice() != null || criteria.maxPrice() != null)) {
+            stayPriceCriteria = criteria;
+            criteria = criteria.withoutPrice();
+        }
+
+        criteria = resolveUtilities(criteria);
+
+        List<ListingSummaryResponse> listings = findListingSummaries(criteria, fields);
+        if (stayPriceCriteria != null) {
+            listings = filterByStayPrice(listings, stayDates, stayPriceCriteria.minPrice(), stayPriceCriteria.maxPrice());
+        }
+
+        ListingFacetCounts facets = null;
+        if (includeFacets) {
+            //keyed on the filters only, the listing ids follow from them (and the cache is cleared when listings change)
+            ListingSearchCriteria cacheKey = criteria.withListingIds(null);
+            facets = facetCountsCache.get(cacheKey);
+            if (facets == null) {
+                facets = listingRepository.countFacets(criteria);
+                facetCountsCache.put(cacheKey, facets);
+            }
+        }
+        return new ListingSearchResponse(listings, facets);
+    }
+
+    /*availability, capacity fit and total price of a stay for several listings, e.g. for a search results page.
+    All listings are loaded with one query with only the needed fields, nothing is written. Uses the same checks as
+    booking creation (Listing.isDateRangeAvailable and PricingService)*/
+    public List<ListingQuoteResponse> quoteListings(ListingQuoteRequest quoteRequest) {
+        DateRange stayDates;
+        try {
+            stayDates = new DateRange(LocalDate.parse(quoteRequest.getStartDate()), LocalDate.parse(quoteRequest.getEndDate()));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("startDate and endDate must be dates (yyyy-mm-dd)");
+        }
+
+        Map<String, Listing> listingsById = new HashMap<>();
+        for (Listing listing : listingRepository.findForQuoteByIds(new HashSet<>(quoteRequest.getListingIds()))) {
+            listingsById.put(listing.getId(), listing);
+        }
+
+        return quoteRequest.getListingIds().stream()
+                .map(id -> {
+                    Listing listing = listingsById.get(id);
+                    if (listing == null) {
+                        return new ListingQuoteResponse(id, false, null, null, null);
+                    }
+                    return new ListingQuoteResponse(id, true,
+                            listing.isDateRangeAvailable(stayDates),
+                            quoteRequest.getNumberOfGuests() <= listing.getCapacity(),
+                            pricingService.calculateStayPrice(listing, stayDates));
+                })
                 .collect(Collectors.toList());
     }
 
+    /*flexible dates search, e.g. "any 3 nights in March": for each listing with available dates in [from, to), find the
+    stays of the given number of nights that fit in its available dates. The available nights are put in a day bitmap
+    and runs of available nights are found a word (64 nights) at a time. Listings with the most possible stays come first,
+    then the cheapest. Only the earliest stay per listing is returned unless allWindows is true*/
+    public List<FlexibleDatesResponse> searchFlexibleDates(LocalDate from, LocalDate to, int nights, String location, Integer guests, boolean allWindows) {
+        long rangeNights = ChronoUnit.DAYS.between(from, to);
+        if (rangeNights <= 0 || rangeNights > MAX_FLEXIBLE_RANGE_NIGHTS) {
+            throw new IllegalArgumentException("to must be after from and the range cannot be longer than " + MAX_FLEXIBLE_RANGE_NIGHTS + " nights");
+        }
+        if (nights <= 0 || nights > rangeNights) {
+            throw new IllegalArgumentException("nights must be between 1 and the number of nights between from and to");
+        }
+
+        List<FlexibleDatesResponse> results = new ArrayList<>();
+        for (Listing listing : listingRepository.findForFlexibleDates(location, guests, from, to)) {
+            DayBitmap availableNights = new DayBitmap(from, (int) rangeNights);
+            for (DateRange availableDateRange : listing.getAvailableDates()) {
+                availableNights.setRange(availableDateRange.getStartDate(), availableDateRange.getEndDate());
+            }
+            DayBitmap stayStarts = availableNights.findRunStarts(nights);
+
+            int windowCount = stayStarts.count();
+            if (windowCount == 0) {
+                continue;
+            }
+            List<DateRange> windows = new ArrayList<>();
+            BigDecimal lowestTotalPrice = null;
+            for (int i = stayStarts.nextSetIndex(0); i >= 0; i = stayStarts.nextSetIndex(i + 1)) {
+                DateRange window = new DateRange(stayStarts.nightAt(i), stayStarts.nightAt(i + nights));
+                BigDecimal totalPrice = pricingService.calculateStayPrice(listing, window);
+                if (lowestTotalPrice == null || totalPrice.compareTo(lowestTotalPrice) < 0) {
+                    lowestTotalPrice = totalPrice;
+                }
+                if (allWindows || windows.isEmpty()) {
+                    windows.add(window);
+                }
+            }
+            results.add(new FlexibleDatesResponse(convertToListingSummaryDTO(listing), windowCount, windows, lowestTotalPrice));
+        }
+
+        results.sort(Comparator.comparingInt(FlexibleDatesResponse::getWindowCount).reversed()
+                .thenComparing(FlexibleDatesResponse::getLowestTotalPrice));
+        return results;
+    }
+
     //create new listing with current user as host
     public ListingResponse createListing(ListingRequest listingRequest) {
 
@@ -134,17 +326,21 @@ public class ListingService {
 
         //save new listing
         listing.setAverageRating(0D);
-        listingRepository.save(listing);
+        listingRepository.insert(listing);
+        listingBitmapIndex.addOrUpdate(listing);
+        facetCountsCache.clear();
 
         //return as ResponseDTO
         return convertToListingResponseDTO(listing);
     }
 
     //get all listings for the current user
-    public List<ListingResponse> getListingsCurrentUser() {
+    public List<ListingResponse> getListingsCurrentUser(Set<String> fields) {
         //get current user
         User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        return getListingsByUser(currentUser);
+        return listingRepository.findByHostIdWithFields(currentUser.getId(), fields).stream()
+                .map(this::convertToListingResponseDTO)
+                .collect(Collectors.toList());
     }
 
     //update a listing, only the host of the listing can update a listing
@@ -165,11 +361,17 @@ public class ListingService {
         existingListing.setUtilities(listingRequest.getUtilities());
         existingListing.setLocation(listingRequest.getLocation());
         existingListing.setImageUrls(listingRequest.getImageUrls());
-        existingListing.setAvailableDates(listingRequest.getAvailableDates());
 
-        //save updated listing
+        /*only the changed fields are written, a whole-document save could undo dates reserved or released and an average
+        rating written since the listing was loaded. The available dates are replaced with a conditional update*/
         existingListing.setUpdatedAt(LocalDateTime.now());
-        listingRepository.save(existingListing);
+        listingRepository.updateDetails(existingListing);
+        existingListing = changeAvailableDates(existingListing, listing -> listing.setAvailableDates(listingRequest.getAvailableDates()),
+                listingRepository, listingResponseCache);
+        listingBitmapIndex.addOrUpdate(existingListing);
+        facetCountsCache.clear();
+        //the base price may have changed
+        pricingService.evict(existingListing.getId());
 
         //return as ResponseDTO
         return convertToListingResponseDTO(existingListing);
@@ -186,50 +388,150 @@ public class ListingService {
         }
 
         bookingRepository.deleteByListing(listing);
+        bookingRepository.deleteArchivedByListingId(listing.getId());
+        ratingAggregateService.recordListingDeleted(listing.getId(), listing.getHost().getId());
         reviewRepository.deleteByListing(listing);
         listingRepository.delete(listing);
+        listingBitmapIndex.remove(listing.getId());
+        facetCountsCache.clear();
+        pricingService.evict(listing.getId());
+        listingStatsService.deleteListingStats(listing.getId());
+        waitlistService.deleteListingEntries(listing.getId());
+    }
+
+    //set weekend price, price overrides and discounts of a listing, only the host of the listing can change the pricing
+    public ListingResponse updatePricing(String id, ListingPricingRequest pricingRequest) {
+        Listing listing = validateListingIdAndGetListing(id, listingRepository);
+
+        String currentUserId = UserService.verifyAuthenticationAndExtractUser(userRepository).getId();
+        if (!currentUserId.equals(listing.getHost().getId())) {
+            throw new UnauthorizedException("Listing pricing cannot be updated by current user.\n Only the listing host can update the pricing.");
+        }
+
+        listing.setWeekendPricePerNight(pricingRequest.getWeekendPricePerNight());
+        listing.setPriceOverrides(pricingRequest.getPriceOverrides() == null ? new ArrayList<>() : pricingRequest.getPriceOverrides());
+        listing.setWeeklyDiscountPercent(pricingRequest.getWeeklyDiscountPercent());
+        listing.setMonthlyDiscountPercent(pricingRequest.getMonthlyDiscountPercent());
+
+        //only the pricing fields are written, the available dates and average rating may have changed since the listing was loaded
+        listing.setUpdatedAt(LocalDateTime.now());
+        listingRepository.updatePricing(listing);
+        listingResponseCache.evict(listing.getId());
+        pricingService.updatePricing(listing);
+
+        return convertToListingResponseDTO(listing);
     }
 
-    public HostResponse getHostProfile(String userId) {
-        User host = UserService.validateUserIdAndReturnUser(userId, userRepository);
+    public HostResponse getHostProfile(String userId, Set<String> fields) {
+        User host = userRepository.findByIdWithFields(userId, fields)
+                .orElseThrow(() -> new ResourceNotFoundException("No user with id '"+ userId + "' in database"));
+
+        //host listings are only loaded if asked for, and then only with their titles
         List<IdAndName> hostListingsForHostResponse = new ArrayList<>();
-        for (Listing listing : listingRepository.findByHost(host)) {
-            hostListingsForHostResponse.add(new IdAndName(listing.getId(), listing.getTitle()));
+        if (fields == null || fields.contains("listings")) {
+            for (Listing listing : listingRepository.findSummariesByHostId(host.getId(), Set.of("title"))) {
+                hostListingsForHostResponse.add(new IdAndName(listing.getId(), listing.getTitle()));
+            }
         }
         return new HostResponse(host.getId(),
                 host.getUsername(),
                 host.getProfilePictureURL(),
                 host.getDescription(),
-                hostListingsForHostResponse);
+                hostListingsForHostResponse,
+                host.getHostAverageRating(),
+                host.getHostReviewCount(),
+                host.isSuperhost());
     }
 
 
     //METHODS used by this or other SERVICE CLASSES --------------------------------------------------------------
 
-    //used by get listings for a single user, used by getListingsByUserId and getListingsCurrentUser methods in this class
-    private List<ListingResponse> getListingsByUser(User user) {
-        List<Listing> userListings = listingRepository.findByHost(user);
-        return userListings.stream()
-                .map(this::convertToListingResponseDTO)
+    //listings were deleted without this class (UserService deletes a host with all their listings)
+    public void clearSearchCaches() {
+        facetCountsCache.clear();
+    }
+
+    /*resolve the utility expression with the bitmap index (the bitmaps for location and price range narrow it down further).
+    A selective search becomes an _id filter, a search matching many listings is left to the query on the multikey indexed
+    utilities field, so the query never gets a huge $in list*/
+    private ListingSearchCriteria resolveUtilities(ListingSearchCriteria criteria) {
+        if (criteria.utilities() == null) {
+            return criteria;
+        }
+        Set<String> listingIds = listingBitmapIndex.findListingIds(criteria.utilities(), criteria.location(), criteria.minPrice(), criteria.maxPrice());
+        return listingIds.size() <= MAX_LISTING_ID_FILTER ? criteria.withListingIds(listingIds) : criteria;
+    }
+
+    //check that the filters of a listing search are valid, same rules as the single filter searches
+    private void validateSearchCriteria(ListingSearchCriteria criteria) {
+        if ((criteria.minPrice() != null && criteria.minPrice() < 0) || (criteria.maxPrice() != null && criteria.maxPrice() <= 0)) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        if (criteria.minPrice() != null && criteria.maxPrice() != null && criteria.minPrice() > criteria.maxPrice()) {
+            throw new IllegalArgumentException("minPrice cannot be greater than maxPrice");
+        }
+        if ((criteria.minCapacity() != null && criteria.minCapacity() < 0) || (criteria.maxCapacity() != null && criteria.maxCapacity() <= 0)) {
+            throw new IllegalArgumentException("Capacity cannot be negative");
+        }
+        if (criteria.minCapacity() != null && criteria.maxCapacity() != null && criteria.minCapacity() > criteria.maxCapacity()) {
+            throw new IllegalArgumentException("minCapacity cannot be greater than maxCapacity");
+        }
+    }
+
+    //keep the listings whose average price per night for the stay is within [minPrice, maxPrice]
+    private List<ListingSummaryResponse> filterByStayPrice(List<ListingSummaryResponse> listings, DateRange stayDates, Double minPrice, Double maxPrice) {
+        Map<String, BigDecimal> averagePrices = pricingService.calculateAverageNightlyPrices(
+                listings.stream().map(ListingSummaryResponse::getId).collect(Collectors.toList()), stayDates);
+        return listings.stream()
+                .filter(listing -> {
+                    BigDecimal averagePrice = averagePrices.get(listing.getId());
+                    return averagePrice != null
+                            && (minPrice == null || averagePrice.doubleValue() >= minPrice)
+                            && (maxPrice == null || averagePrice.doubleValue() <= maxPrice);
+                })
                 .collect(Collectors.toList());
     }
 
+    //used by search and browse methods, listings are loaded with only the summary fields
+    private List<ListingSummaryResponse> findListingSummaries(ListingSearchCriteria criteria, Set<String> fields) {
+        return listingRepository.findSummaries(criteria, fields).stream()
+                .map(this::convertToListingSummaryDTO)
+                .collect(Collectors.toList());
+    }
+
+    //listing loaded with only the summary fields to summary DTO, the first image url is used as thumbnail
+    private ListingSummaryResponse convertToListingSummaryDTO(Listing listing) {
+        String thumbnailUrl = listing.getImageUrls() == null || listing.getImageUrls().isEmpty() ? null : listing.getImageUrls().get(0);
+        return new ListingSummaryResponse(
+                listing.getId(),
+                listing.getTitle(),
+                listing.getPricePerNight(),
+                listing.getAverageRating(),
+                listing.getLocation(),
+                thumbnailUrl
+        );
+    }
+
     // limit what's shown when grabbing listings
     private ListingResponse convertToListingResponseDTO(Listing listing) {
-        
+        //host and averageRating are null if they were not loaded (see ?fields=)
         return new ListingResponse(
                 listing.getId(),
                 listing.getTitle(),
-                listing.getHost().getId(),
+                listing.getHost() == null ? null : listing.getHost().getId(),
                 listing.getHostName(),
                 listing.getDescription(),
                 listing.getPricePerNight(),
+                listing.getWeekendPricePerNight(),
+                listing.getPriceOverrides(),
+                listing.getWeeklyDiscountPercent(),
+                listing.getMonthlyDiscountPercent(),
                 listing.getCapacity(),
                 listing.getUtilities(),
                 listing.getAvailableDates(),
                 listing.getLocation(),
                 listing.getImageUrls(),
-                listing.getAverageRating(),
+                listing.getAverageRating() == null ? 0 : listing.getAverageRating(),
                 listing.getCreatedAt(),
                 listing.getUpdatedAt()
         );
@@ -264,4 +566,45 @@ public class ListingService {
 
     }
 
+    /*change the available dates of a listing without overwriting other writes to it: the change is made on the listing and
+    only the changed ranges are written (see ListingRepository.updateAvailableDates). If another write changed the dates in the
+    meantime, the listing is loaded again and the change is made again. Exceptions thrown by the change are not caught.
+    The update publishes no save event, so the listing is removed from the response cache here*/
+    static Listing changeAvailableDates(Listing listing, Consumer<Listing> change, ListingRepository listingRepository, ListingResponseCache listingResponseCache) {
+        for (int attempt = 1; ; attempt++) {
+            List<DateRange> previousAvailableDates = listing.getAvailableDates() == null ? List.of() : listing.getAvailableDates().stream()
+                    .map(dateRange -> new DateRange(dateRange.getStartDate(), dateRange.getEndDate()))
+                    .collect(Collectors.toList());
+            change.accept(listing);
+            listing.setUpdatedAt(LocalDateTime.now());
+            if (listingRepository.updateAvailableDates(listing, previousAvailableDates)) {
+                listingResponseCache.evict(listing.getId());
+                return listing;
+            }
+            if (attempt == MAX_AVAILABLE_DATES_ATTEMPTS) {
+                throw new ServiceUnavailableException("Dates of listing '" + listing.getId() + "' are being changed, please try again");
+            }
+            listing = validateListingIdAndGetListing(listing.getId(), listingRepository);
+        }
+    }
+
+    /*give the dates of bookings that no longer hold them (rejected, expired, deleted or moved) back to the listing with
+    changeAvailableDates, returns the ranges that were added. Ranges that are already available, e.g. because the host made
+    them available again, are skipped*/
+    static List<DateRange> giveBackDates(Listing listing, List<DateRange> dates, ListingRepository listingRepository, ListingResponseCache listingResponseCache) {
+        List<DateRange> givenBackDates = new ArrayList<>();
+        changeAvailableDates(listing, changedListing -> {
+            givenBackDates.clear();
+            for (DateRange dateRange : dates) {
+                try {
+                    changedListing.addAvailableDateRange(dateRange);
+                    givenBackDates.add(dateRange);
+                } catch (java.lang.IllegalArgumentException e) {
+                    logger.warn("Dates {} - {} could not be given back to listing '{}': {}", dateRange.getStartDate(), dateRange.getEndDate(), changedListing.getId(), e.getMessage());
+                }
+            }
+        }, listingRepository, listingResponseCache);
+        return givenBackDates;
+    }
+
 }
@@ -0,0 +1,272 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ListingMonthlyStatsResponse;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.ListingMonthlyStats;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingMonthlyStatsRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*Occupancy, booked nights and revenue per listing and month. The counters are stored per (listing, month) in
+listing_monthly_stats and changed with $inc when BookingService accepts, rejects or deletes a booking, so reading the
+statistics is one indexed query. rebuildStats recomputes all counters from the bookings (incl. archived bookings)*/
+@Service
+public class ListingStatsService {
+    private static final Logger logger = LoggerFactory.getLogger(ListingStatsService.class);
+    //max amount of months in one statistics request
+    private static final int MAX_MONTHS = 36;
+
+    private final ListingMonthlyStatsRepository statsRepository;
+    private final BookingRepository bookingRepository;
+    private final ListingRepository listingRepository;
+    private final UserRepository userRepository;
+
+    public ListingStatsService(ListingMonthlyStatsRepository statsRepository, BookingRepository bookingRepository, ListingRepository listingRepository, UserRepository userRepository) {
+        this.statsRepository = statsRepository;
+        this.bookingRepository = bookingRepository;
+        this.listingRepository = listingRepository;
+        this.userRepository = userRepository;
+    }
+
+    //METHODS used by LISTING CONTROLLER CLASS -----------------------------------------------------------------------
+
+    //statistics for all listings of the current user (host)
+    public List<ListingMonthlyStatsResponse> getStatsCurrentHost(YearMonth from, YearMonth to) {
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        return getStatsByHostId(currentUser.getId(), from, to);
+    }
+
+    //statistics for all listings of a host, from and to are included (null = the last 12 months)
+    public List<ListingMonthlyStatsResponse> getStatsByHostId(String hostId, YearMonth from, YearMonth to) {
+        MonthRange months = validateMonthRange(from, to);
+        return statsRepository.findByHostIdAndMonthRange(hostId, months.from(), months.to()).stream()
+                .map(this::convertToDTOResponse)
+                .collect(Collectors.toList());
+    }
+
+    //statistics for one listing, only for the listing host and admin
+    public List<ListingMonthlyStatsResponse> getStatsByListingId(String listingId, YearMonth from, YearMonth to) {
+        MonthRange months = validateMonthRange(from, to);
+        Listing listing = ListingService.validateListingIdAndGetListing(listingId, listingRepository);
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        if (!currentUser.getId().equals(listing.getHost().getId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
+            throw new UnauthorizedException("Only the listing host and admin can see the statistics for a listing");
+        }
+
+        return statsRepository.findByListingIdAndMonthRange(listingId, months.from(), months.to()).stream()
+                .map(this::convertToDTOResponse)
+                .collect(Collectors.toList());
+    }
+
+    /*recompute all statistics from the accepted and rejected bookings, runs every Sunday night by default.
+    Bookings accepted/rejected while the rebuild is running may be missing until the next rebuild*/
+    @Scheduled(cron = "${listingStats.rebuildCron:0 0 4 * * SUN}")
+    public void rebuildStats() {
+        LocalDateTime rebuildStartedAt = LocalDateTime.now();
+        Map<String, ListingMonthlyStats> statsById = new HashMap<>();
+        bookingRepository.forEachAcceptedOrRejectedStay(stay -> {
+            List<ListingMonthlyStats> increments = isAccepted(stay.bookingStatus())
+                    ? acceptedIncrements(stay.listingId(), null, stay.bookingDates(), stay.totalPrice(), 1)
+                    : List.of(rejectedIncrement(stay.listingId(), null, stay.bookingDates()));
+            for (ListingMonthlyStats increment : increments) {
+                ListingMonthlyStats stats = statsById.computeIfAbsent(increment.getId(),
+                        id -> new ListingMonthlyStats(increment.getListingId(), null, increment.getMonth()));
+                addTo(stats, increment);
+            }
+        });
+
+        //bookings are deleted together with their listing, but skip listings that were deleted while this was running
+        Map<String, String> hostIds = listingRepository.findHostIdsByIds(
+                statsById.values().stream().map(ListingMonthlyStats::getListingId).collect(Collectors.toSet()));
+        List<ListingMonthlyStats> stats = new ArrayList<>();
+        for (ListingMonthlyStats monthlyStats : statsById.values()) {
+            String hostId = hostIds.get(monthlyStats.getListingId());
+            if (hostId != null) {
+                monthlyStats.setHostId(hostId);
+                stats.add(monthlyStats);
+            }
+        }
+
+        statsRepository.replaceAll(stats, rebuildStartedAt);
+        logger.info("Rebuilt listing statistics, {} listing months", stats.size());
+    }
+
+    //METHODS used by other SERVICE CLASSES -------------------------------------------------------------------------
+
+    public void recordAccepted(Booking booking, Listing listing) {
+        statsRepository.incrementAll(acceptedIncrements(listing.getId(), listing.getHost().getId(),
+                booking.getBookingDates(), booking.getTotalPrice(), 1));
+    }
+
+    public void recordRejected(Booking booking, Listing listing) {
+        statsRepository.incrementAll(List.of(rejectedIncrement(listing.getId(), listing.getHost().getId(), booking.getBookingDates())));
+    }
+
+    //accepted and rejected bookings on listings of one host, written with one bulk write (used by the bulk accept/reject)
+    public void recordDecisions(Collection<Booking> bookings, String hostId) {
+        Map<String, ListingMonthlyStats> incrementsById = new HashMap<>();
+        for (Booking booking : bookings) {
+            String listingId = booking.getListing().getId();
+            List<ListingMonthlyStats> increments = booking.getBookingStatus() == BookingStatus.ACCEPTED
+                    ? acceptedIncrements(listingId, hostId, booking.getBookingDates(), booking.getTotalPrice(), 1)
+                    : List.of(rejectedIncrement(listingId, hostId, booking.getBookingDates()));
+            //one increment per listing month, so the bulk write does not upsert the same month twice
+            for (ListingMonthlyStats increment : increments) {
+                ListingMonthlyStats merged = incrementsById.putIfAbsent(increment.getId(), increment);
+                if (merged != null) {
+                    addTo(merged, increment);
+                }
+            }
+        }
+        statsRepository.incrementAll(incrementsById.values());
+    }
+
+    //called when a booking is deleted, only accepted (incl. completed) and rejected bookings are counted
+    public void recordDeleted(Booking booking, Listing listing) {
+        if (isAccepted(booking.getBookingStatus())) {
+            statsRepository.incrementAll(acceptedIncrements(listing.getId(), listing.getHost().getId(),
+                    booking.getBookingDates(), booking.getTotalPrice(), -1));
+        } else if (booking.getBookingStatus() == BookingStatus.REJECTED) {
+            ListingMonthlyStats increment = rejectedIncrement(listing.getId(), listing.getHost().getId(), booking.getBookingDates());
+            increment.setRejectedBookings(-1);
+            statsRepository.incrementAll(List.of(increment));
+        }
+    }
+
+    /*called when the dates or price of a booking are changed, the old dates and price are taken out of the statistics and the
+    new ones added with one bulk write. Only accepted (incl. completed) and rejected bookings are counted, others are skipped*/
+    public void recordChanged(Booking booking, DateRange oldBookingDates, BigDecimal oldTotalPrice, Listing listing) {
+        String listingId = listing.getId();
+        String hostId = listing.getHost().getId();
+        List<ListingMonthlyStats> increments = new ArrayList<>();
+        if (isAccepted(booking.getBookingStatus())) {
+            increments.addAll(acceptedIncrements(listingId, hostId, oldBookingDates, oldTotalPrice, -1));
+            increments.addAll(acceptedIncrements(listingId, hostId, booking.getBookingDates(), booking.getTotalPrice(), 1));
+        } else if (booking.getBookingStatus() == BookingStatus.REJECTED) {
+            ListingMonthlyStats removed = rejectedIncrement(listingId, hostId, oldBookingDates);
+            removed.setRejectedBookings(-1);
+            increments.add(removed);
+            increments.add(rejectedIncrement(listingId, hostId, booking.getBookingDates()));
+        } else {
+            return;
+        }
+
+        //one increment per listing month, so the bulk write does not upsert the same month twice
+        Map<String, ListingMonthlyStats> incrementsById = new HashMap<>();
+        for (ListingMonthlyStats increment : increments) {
+            ListingMonthlyStats merged = incrementsById.putIfAbsent(increment.getId(), increment);
+            if (merged != null) {
+                addTo(merged, increment);
+            }
+        }
+        statsRepository.incrementAll(incrementsById.values());
+    }
+
+    public void deleteListingStats(String listingId) {
+        statsRepository.deleteByListingId(listingId);
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    //completed bookings are accepted bookings whose stay has ended
+    private static boolean isAccepted(BookingStatus bookingStatus) {
+        return bookingStatus == BookingStatus.ACCEPTED || bookingStatus == BookingStatus.COMPLETED;
+    }
+
+    /*one increment per month the stay has nights in. The total price is split over the months by number of nights,
+    the last month gets the rounding difference so the months add up to the total price. sign is 1 to add, -1 to subtract*/
+    private static List<ListingMonthlyStats> acceptedIncrements(String listingId, String hostId, DateRange bookingDates, BigDecimal totalPrice, int sign) {
+        LocalDate start = bookingDates.getStartDate();
+        LocalDate end = bookingDates.getEndDate();
+        long totalNights = ChronoUnit.DAYS.between(start, end);
+        BigDecimal price = totalPrice == null ? BigDecimal.ZERO : totalPrice;
+
+        List<ListingMonthlyStats> increments = new ArrayList<>();
+        BigDecimal allocated = BigDecimal.ZERO;
+        LocalDate monthStart = start;
+        while (monthStart.isBefore(end)) {
+            LocalDate nextMonth = YearMonth.from(monthStart).plusMonths(1).atDay(1);
+            LocalDate monthEnd = nextMonth.isBefore(end) ? nextMonth : end;
+            long nights = ChronoUnit.DAYS.between(monthStart, monthEnd);
+
+            BigDecimal revenue = monthEnd.equals(end)
+                    ? price.subtract(allocated)
+                    : price.multiply(BigDecimal.valueOf(nights)).divide(BigDecimal.valueOf(totalNights), 2, RoundingMode.HALF_UP);
+            allocated = allocated.add(revenue);
+
+            ListingMonthlyStats increment = new ListingMonthlyStats(listingId, hostId, YearMonth.from(monthStart).toString());
+            increment.setBookedNights(sign * nights);
+            increment.setAcceptedBookings(monthStart.equals(start) ? sign : 0);
+            increment.setRevenue(sign < 0 ? revenue.negate() : revenue);
+            increments.add(increment);
+            monthStart = monthEnd;
+        }
+        return increments;
+    }
+
+    //rejected bookings are counted in the month the stay would have started
+    private static ListingMonthlyStats rejectedIncrement(String listingId, String hostId, DateRange bookingDates) {
+        ListingMonthlyStats increment = new ListingMonthlyStats(listingId, hostId, YearMonth.from(bookingDates.getStartDate()).toString());
+        increment.setRejectedBookings(1);
+        return increment;
+    }
+
+    private static void addTo(ListingMonthlyStats stats, ListingMonthlyStats increment) {
+        stats.setBookedNights(stats.getBookedNights() + increment.getBookedNights());
+        stats.setAcceptedBookings(stats.getAcceptedBookings() + increment.getAcceptedBookings());
+        stats.setRejectedBookings(stats.getRejectedBookings() + increment.getRejectedBookings());
+        stats.setRevenue(stats.getRevenue().add(increment.getRevenue()));
+    }
+
+    //months as stored in ListingMonthlyStats (yyyy-MM)
+    private record MonthRange(String from, String to) {
+    }
+
+    private static MonthRange validateMonthRange(YearMonth from, YearMonth to) {
+        YearMonth toMonth = to == null ? YearMonth.now() : to;
+        YearMonth fromMonth = from == null ? toMonth.minusMonths(11) : from;
+        if (fromMonth.isAfter(toMonth)) {
+            throw new IllegalArgumentException("from month cannot be after to month");
+        }
+        if (ChronoUnit.MONTHS.between(fromMonth, toMonth) >= MAX_MONTHS) {
+            throw new IllegalArgumentException("Statistics can be requested for max " + MAX_MONTHS + " months at once");
+        }
+        return new MonthRange(fromMonth.toString(), toMonth.toString());
+    }
+
+    private ListingMonthlyStatsResponse convertToDTOResponse(ListingMonthlyStats stats) {
+        int nightsInMonth = YearMonth.parse(stats.getMonth()).lengthOfMonth();
+        return new ListingMonthlyStatsResponse(stats.getListingId(),
+                stats.getMonth(),
+                stats.getBookedNights(),
+                stats.getAcceptedBookings(),
+                stats.getRejectedBookings(),
+                stats.getRevenue(),
+                (double) stats.getBookedNights() / nightsInMonth);
+    }
+}
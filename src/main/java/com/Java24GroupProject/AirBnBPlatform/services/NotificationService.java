@@ -0,0 +1,61 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.NotificationResponse;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import com.Java24GroupProject.AirBnBPlatform.models.Notification;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.repositories.NotificationRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class NotificationService {
+    private static final int MAX_LIMIT = 100;
+
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+
+    public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository) {
+        this.notificationRepository = notificationRepository;
+        this.userRepository = userRepository;
+    }
+
+    //METHODS used by NOTIFICATION CONTROLLER CLASS ------------------------------------------------------------------
+
+    //newest notifications of the current user first
+    public List<NotificationResponse> getNotificationsCurrentUser(boolean unreadOnly, int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+
+        List<Notification> notifications = unreadOnly
+                ? notificationRepository.findByUserIdAndReadFalseOrderByCreatedAtDesc(currentUser.getId(), PageRequest.of(0, limit))
+                : notificationRepository.findByUserIdOrderByCreatedAtDesc(currentUser.getId(), PageRequest.of(0, limit));
+        return notifications.stream()
+                .map(this::convertToDTOResponse)
+                .collect(Collectors.toList());
+    }
+
+    //returns the number of notifications that were unread
+    public long markAllAsReadCurrentUser() {
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        return notificationRepository.markAllAsRead(currentUser.getId());
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private NotificationResponse convertToDTOResponse(Notification notification) {
+        return new NotificationResponse(notification.getId(),
+                notification.getType(),
+                notification.getMessage(),
+                notification.getListingId(),
+                notification.getBookingId(),
+                notification.isRead(),
+                notification.getCreatedAt());
+    }
+}
@@ -0,0 +1,81 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.PendingBookingHold;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*A pending booking holds its dates on the listing until the host accepts or rejects it. This service expires
+pending bookings that are older than booking.pendingHoldTtlMs and gives their dates back to the listings.
+The holds are found with a query on the (bookingStatus, createdAt) index, so all state is in the bookings collection
+and holds that expired while the application was down are expired on startup. The dates are given back by
+BookingDatesReleaseService after the status is changed, each run also makes the releases that did not happen before*/
+@Service
+public class PendingBookingExpiryService {
+    private static final Logger logger = LoggerFactory.getLogger(PendingBookingExpiryService.class);
+    //max amount of bookings expired per query/bulk write
+    private static final int BATCH_SIZE = 500;
+
+    private final BookingRepository bookingRepository;
+    private final BookingDatesReleaseService bookingDatesReleaseService;
+    private final long pendingHoldTtlMs;
+
+    public PendingBookingExpiryService(BookingRepository bookingRepository, BookingDatesReleaseService bookingDatesReleaseService,
+                                       @Value("${booking.pendingHoldTtlMs:172800000}") long pendingHoldTtlMs) {
+        this.bookingRepository = bookingRepository;
+        this.bookingDatesReleaseService = bookingDatesReleaseService;
+        this.pendingHoldTtlMs = pendingHoldTtlMs;
+    }
+
+    //expire holds left from before a restart
+    @EventListener(ApplicationReadyEvent.class)
+    public void expireOnStartup() {
+        expirePendingBookings();
+    }
+
+    @Scheduled(fixedDelayString = "${booking.expiryCheckIntervalMs:300000}", initialDelayString = "${booking.expiryCheckIntervalMs:300000}")
+    public void expirePendingBookings() {
+        //releases of rejected/expired bookings that failed or were cut off earlier
+        int overdueCount = bookingDatesReleaseService.releaseOverdueDates();
+        if (overdueCount > 0) {
+            logger.info("Gave back the dates of {} rejected or expired bookings", overdueCount);
+        }
+
+        LocalDateTime createdBefore = LocalDateTime.now().minus(Duration.ofMillis(pendingHoldTtlMs));
+        int expiredCount = 0;
+
+        List<PendingBookingHold> holds = bookingRepository.findPendingHoldsCreatedBefore(createdBefore, BATCH_SIZE);
+        while (!holds.isEmpty()) {
+            expiredCount += expireBatch(holds);
+            holds = bookingRepository.findPendingHoldsCreatedBefore(createdBefore, BATCH_SIZE);
+        }
+
+        if (expiredCount > 0) {
+            logger.info("Expired {} pending bookings created before {}", expiredCount, createdBefore);
+        }
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    //returns the amount of bookings expired by this run (a host may have accepted or rejected some of the holds in the meantime)
+    private int expireBatch(List<PendingBookingHold> holds) {
+        /*the status change also marks the dates as due to be given back, so if the release below fails the dates are given
+        back by a later run instead of being held for good*/
+        List<String> bookingIds = holds.stream().map(PendingBookingHold::bookingId).collect(Collectors.toList());
+        int expiredCount = bookingRepository.markPendingAsExpired(bookingIds);
+        if (expiredCount > 0) {
+            bookingDatesReleaseService.releaseDates(bookingIds);
+        }
+        return expiredCount;
+    }
+}
@@ -0,0 +1,149 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.PriceOverride;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Objects;
+
+/*the nightly rates of one listing for HORIZON_DAYS nights from firstNight, in cents, with prefix sums so the price of
+any stay within the horizon is prefixSums[end] - prefixSums[start]. Nights outside the horizon are priced one by one.
+Immutable, a pricing change creates a new calendar (see withPricing)*/
+final class PricingCalendar {
+    static final int HORIZON_DAYS = 730;
+    static final int WEEKLY_DISCOUNT_NIGHTS = 7;
+    static final int MONTHLY_DISCOUNT_NIGHTS = 28;
+
+    private final LocalDate firstNight;
+    private final long basePriceCents;
+    private final Long weekendPriceCents;
+    private final List<PriceOverride> priceOverrides;
+    private final int weeklyDiscountPercent;
+    private final int monthlyDiscountPercent;
+    //prefixSums[i] = total price in cents of the nights firstNight .. firstNight + i - 1
+    private final long[] prefixSums;
+
+    private PricingCalendar(LocalDate firstNight, Listing listing, long[] prefixSums) {
+        this.firstNight = firstNight;
+        this.basePriceCents = toCents(listing.getPricePerNight());
+        this.weekendPriceCents = listing.getWeekendPricePerNight() == null ? null : toCents(listing.getWeekendPricePerNight());
+        this.priceOverrides = listing.getPriceOverrides() == null ? List.of() : List.copyOf(listing.getPriceOverrides());
+        this.weeklyDiscountPercent = listing.getWeeklyDiscountPercent() == null ? 0 : listing.getWeeklyDiscountPercent();
+        this.monthlyDiscountPercent = listing.getMonthlyDiscountPercent() == null ? 0 : listing.getMonthlyDiscountPercent();
+        this.prefixSums = prefixSums;
+    }
+
+    //build a calendar from the pricing fields of a listing
+    static PricingCalendar build(Listing listing, LocalDate firstNight) {
+        PricingCalendar calendar = new PricingCalendar(firstNight, listing, new long[HORIZON_DAYS + 1]);
+        calendar.fillPrefixSums(0);
+        return calendar;
+    }
+
+    /*new calendar with the updated pricing of the listing. If only the price overrides changed, the nights before the
+    first changed night are kept and only the prefix sums from there on are recomputed*/
+    PricingCalendar withPricing(Listing listing) {
+        PricingCalendar updated = new PricingCalendar(firstNight, listing, prefixSums.clone());
+        if (updated.basePriceCents != basePriceCents || !Objects.equals(updated.weekendPriceCents, weekendPriceCents)) {
+            updated.fillPrefixSums(0);
+        } else {
+            updated.fillPrefixSums(firstChangedNight(priceOverrides, updated.priceOverrides));
+        }
+        return updated;
+    }
+
+    LocalDate getFirstNight() {
+        return firstNight;
+    }
+
+    //price of the nights from startDate up to (not including) endDate, with the weekly/monthly discount
+    BigDecimal stayPrice(LocalDate startDate, LocalDate endDate) {
+        long nights = ChronoUnit.DAYS.between(startDate, endDate);
+        long totalCents = nightsTotalCents(startDate, endDate);
+
+        int discountPercent = nights >= MONTHLY_DISCOUNT_NIGHTS ? monthlyDiscountPercent
+                : nights >= WEEKLY_DISCOUNT_NIGHTS ? weeklyDiscountPercent : 0;
+        BigDecimal total = BigDecimal.valueOf(totalCents, 2);
+        if (discountPercent > 0) {
+            total = total.multiply(BigDecimal.valueOf(100 - discountPercent))
+                    .divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+        }
+        return total;
+    }
+
+    //price of one night (without discounts)
+    BigDecimal nightPrice(LocalDate night) {
+        return BigDecimal.valueOf(nightCents(night), 2);
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private long nightsTotalCents(LocalDate startDate, LocalDate endDate) {
+        long startIndex = ChronoUnit.DAYS.between(firstNight, startDate);
+        long endIndex = ChronoUnit.DAYS.between(firstNight, endDate);
+        if (startIndex >= 0 && endIndex <= HORIZON_DAYS) {
+            return prefixSums[(int) endIndex] - prefixSums[(int) startIndex];
+        }
+        long totalCents = 0;
+        for (LocalDate night = startDate; night.isBefore(endDate); night = night.plusDays(1)) {
+            totalCents += nightCents(night);
+        }
+        return totalCents;
+    }
+
+    private void fillPrefixSums(int fromIndex) {
+        for (int i = fromIndex; i < HORIZON_DAYS; i++) {
+            prefixSums[i + 1] = prefixSums[i] + nightCents(firstNight.plusDays(i));
+        }
+    }
+
+    private long nightCents(LocalDate night) {
+        //the latest added override wins if overrides overlap
+        for (int i = priceOverrides.size() - 1; i >= 0; i--) {
+            if (priceOverrides.get(i).includesNight(night)) {
+                return toCents(priceOverrides.get(i).getPricePerNight());
+            }
+        }
+        if (weekendPriceCents != null && (night.getDayOfWeek() == DayOfWeek.FRIDAY || night.getDayOfWeek() == DayOfWeek.SATURDAY)) {
+            return weekendPriceCents;
+        }
+        return basePriceCents;
+    }
+
+    //index of the first night where the old and new overrides can differ, HORIZON_DAYS if they are the same
+    private int firstChangedNight(List<PriceOverride> oldOverrides, List<PriceOverride> newOverrides) {
+        LocalDate firstChange = null;
+        int commonPrefix = 0;
+        while (commonPrefix < oldOverrides.size() && commonPrefix < newOverrides.size()
+                && isSameOverride(oldOverrides.get(commonPrefix), newOverrides.get(commonPrefix))) {
+            commonPrefix++;
+        }
+        for (List<PriceOverride> overrides : List.of(oldOverrides, newOverrides)) {
+            for (PriceOverride override : overrides.subList(commonPrefix, overrides.size())) {
+                if (firstChange == null || override.getStartDate().isBefore(firstChange)) {
+                    firstChange = override.getStartDate();
+                }
+            }
+        }
+        if (firstChange == null) {
+            return HORIZON_DAYS;
+        }
+        //nights before the first changed override are not covered by any changed override, so their prices are the same
+        long index = ChronoUnit.DAYS.between(firstNight, firstChange);
+        return (int) Math.max(0, Math.min(HORIZON_DAYS, index));
+    }
+
+    private static boolean isSameOverride(PriceOverride a, PriceOverride b) {
+        return a.getStartDate().equals(b.getStartDate()) && a.getEndDate().equals(b.getEndDate())
+                && a.getPricePerNight().compareTo(b.getPricePerNight()) == 0;
+    }
+
+    private static long toCents(BigDecimal price) {
+        return price.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+}
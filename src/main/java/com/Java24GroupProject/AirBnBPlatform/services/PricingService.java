@@ -0,0 +1,96 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.ExpiringLruCache;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*prices stays using the dynamic pricing of a listing (base price, weekend price, price overrides and discounts).
+Used by booking creation/update and listing search with dates. The pricing calendar of each listing is cached and
+updated by ListingService when the listing price or pricing changes*/
+@Service
+public class PricingService {
+    //a calendar is rebuilt when its first night is this far in the past, so the horizon keeps covering the coming nights
+    private static final long MAX_CALENDAR_AGE_DAYS = 30;
+
+    private final ListingRepository listingRepository;
+    private final ExpiringLruCache<String, PricingCalendar> calendarCache = new ExpiringLruCache<>(5000, 3_600_000);
+
+    public PricingService(ListingRepository listingRepository) {
+        this.listingRepository = listingRepository;
+    }
+
+    //total price of a stay on the listing (booking dates are the nights from start date up to the end date)
+    public BigDecimal calculateStayPrice(Listing listing, DateRange stayDates) {
+        return getCalendar(listing).stayPrice(stayDates.getStartDate(), stayDates.getEndDate());
+    }
+
+    //average price per night of a stay for each of the listings, the pricing of listings that are not cached is loaded with one query
+    public Map<String, BigDecimal> calculateAverageNightlyPrices(Collection<String> listingIds, DateRange stayDates) {
+        Map<String, PricingCalendar> calendars = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String listingId : listingIds) {
+            PricingCalendar calendar = getCachedCalendar(listingId);
+            if (calendar != null) {
+                calendars.put(listingId, calendar);
+            } else {
+                missingIds.add(listingId);
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            for (Listing listing : listingRepository.findPricingByIds(missingIds)) {
+                calendars.put(listing.getId(), getCalendar(listing));
+            }
+        }
+
+        long nights = ChronoUnit.DAYS.between(stayDates.getStartDate(), stayDates.getEndDate());
+        Map<String, BigDecimal> averagePrices = new HashMap<>();
+        calendars.forEach((listingId, calendar) -> averagePrices.put(listingId,
+                calendar.stayPrice(stayDates.getStartDate(), stayDates.getEndDate())
+                        .divide(BigDecimal.valueOf(nights), 2, RoundingMode.HALF_UP)));
+        return averagePrices;
+    }
+
+    //the pricing of a listing has changed, only the changed nights of a cached calendar are recomputed
+    public void updatePricing(Listing listing) {
+        PricingCalendar calendar = getCachedCalendar(listing.getId());
+        if (calendar != null) {
+            calendarCache.put(listing.getId(), calendar.withPricing(listing));
+        }
+    }
+
+    public void evict(String listingId) {
+        calendarCache.remove(listingId);
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private PricingCalendar getCalendar(Listing listing) {
+        PricingCalendar calendar = getCachedCalendar(listing.getId());
+        if (calendar == null) {
+            calendar = PricingCalendar.build(listing, LocalDate.now());
+            calendarCache.put(listing.getId(), calendar);
+        }
+        return calendar;
+    }
+
+    private PricingCalendar getCachedCalendar(String listingId) {
+        PricingCalendar calendar = calendarCache.get(listingId);
+        if (calendar != null && calendar.getFirstNight().isBefore(LocalDate.now().minusDays(MAX_CALENDAR_AGE_DAYS))) {
+            calendarCache.remove(listingId);
+            return null;
+        }
+        return calendar;
+    }
+}
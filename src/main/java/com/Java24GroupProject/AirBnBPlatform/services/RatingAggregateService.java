@@ -0,0 +1,170 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
+import com.Java24GroupProject.AirBnBPlatform.models.Review;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.HostDecisionCounts;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.RatingTotals;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingMonthlyStatsRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRatingSummaryRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/*Review rating aggregates, changed with $inc when a review is created or deleted so averages never need the reviews: the
+rating distribution of every listing (ListingRatingSummary) and the rating sum and review count of all listings of a host
+(stored on the host User). Every night the superhosts are picked from these
+aggregates and the accepted/rejected bookings of the last 12 months in the listing statistics (see ListingStatsService)*/
+@Service
+public class RatingAggregateService {
+    private static final Logger logger = LoggerFactory.getLogger(RatingAggregateService.class);
+    //the months of listing statistics used for the acceptance rate
+    private static final int SUPERHOST_MONTHS = 12;
+
+    private final UserRepository userRepository;
+    private final ReviewRepository reviewRepository;
+    private final ListingRepository listingRepository;
+    private final ListingMonthlyStatsRepository statsRepository;
+    private final ListingRatingSummaryRepository ratingSummaryRepository;
+    private final ListingRatingQueue listingRatingQueue;
+    private final long minReviews;
+    private final double minAverageRating;
+    private final long minAcceptedBookings;
+    private final double minAcceptanceRate;
+
+    public RatingAggregateService(UserRepository userRepository, ReviewRepository reviewRepository, ListingRepository listingRepository,
+                             ListingMonthlyStatsRepository statsRepository, ListingRatingSummaryRepository ratingSummaryRepository,
+                             ListingRatingQueue listingRatingQueue,
+                             @Value("${superhost.minReviews:5}") long minReviews,
+                             @Value("${superhost.minAverageRating:4.8}") double minAverageRating,
+                             @Value("${superhost.minAcceptedBookings:3}") long minAcceptedBookings,
+                             @Value("${superhost.minAcceptanceRate:0.9}") double minAcceptanceRate) {
+        this.userRepository = userRepository;
+        this.reviewRepository = reviewRepository;
+        this.listingRepository = listingRepository;
+        this.statsRepository = statsRepository;
+        this.ratingSummaryRepository = ratingSummaryRepository;
+        this.listingRatingQueue = listingRatingQueue;
+        this.minReviews = minReviews;
+        this.minAverageRating = minAverageRating;
+        this.minAcceptedBookings = minAcceptedBookings;
+        this.minAcceptanceRate = minAcceptanceRate;
+    }
+
+    //METHODS used by REVIEW, LISTING and USER SERVICE CLASSES -----------------------------------------------------------
+
+    public void recordReviewCreated(Review review) {
+        recordReview(review, 1);
+    }
+
+    public void recordReviewDeleted(Review review) {
+        recordReview(review, -1);
+    }
+
+    //the rating distribution of a listing, all counts 0 if the listing has no reviews
+    public ListingRatingSummary getListingSummary(String listingId) {
+        return ratingSummaryRepository.findById(listingId).orElseGet(() -> new ListingRatingSummary(listingId));
+    }
+
+    //remove the reviews of a listing from the host aggregates and delete its summary, called when the listing is deleted
+    public void recordListingDeleted(String listingId, String hostId) {
+        ratingSummaryRepository.findById(listingId).ifPresent(summary -> {
+            if (summary.getReviewCount() > 0) {
+                userRepository.incrementHostRating(hostId, -summary.getRatingSum(), -summary.getReviewCount());
+            }
+            ratingSummaryRepository.delete(summary);
+        });
+    }
+
+    //delete the summary of a listing without changing the host aggregates, used when the host is deleted with their listings
+    public void deleteListingSummary(String listingId) {
+        ratingSummaryRepository.deleteById(listingId);
+    }
+
+    //METHODS used by LISTING CONTROLLER CLASS -----------------------------------------------------------------------
+
+    /*recompute the listing summaries and host aggregates from the reviews, for data from before the aggregates existed.
+    Reviews created/deleted while this is running may be missing until it is run again*/
+    public void rebuildRatingAggregates() {
+        LocalDateTime rebuildStartedAt = LocalDateTime.now();
+        List<ListingRatingSummary> summaries = reviewRepository.findRatingSummariesForAllListings();
+        Map<String, String> hostIds = listingRepository.findHostIdsByIds(
+                summaries.stream().map(ListingRatingSummary::getId).collect(Collectors.toSet()));
+
+        //skip listings that were deleted while this was running
+        List<ListingRatingSummary> listingSummaries = new ArrayList<>();
+        Map<String, RatingTotals> hostTotals = new HashMap<>();
+        for (ListingRatingSummary summary : summaries) {
+            String hostId = hostIds.get(summary.getId());
+            if (hostId != null) {
+                listingSummaries.add(summary);
+                hostTotals.merge(hostId, new RatingTotals(hostId, summary.getRatingSum(), summary.getReviewCount()),
+                        (a, b) -> new RatingTotals(hostId, a.ratingSum() + b.ratingSum(), a.reviewCount() + b.reviewCount()));
+            }
+        }
+
+        ratingSummaryRepository.replaceAll(listingSummaries);
+        userRepository.replaceHostRatings(hostTotals.values(), rebuildStartedAt);
+        listingRatingQueue.enqueueAll(listingSummaries.stream().map(ListingRatingSummary::getId).collect(Collectors.toList()));
+        logger.info("Rebuilt rating aggregates, {} listings and {} hosts with reviews", listingSummaries.size(), hostTotals.size());
+    }
+
+    /*a host is superhost with at least superhost.minReviews reviews and average superhost.minAverageRating, and in the last
+    12 months at least superhost.minAcceptedBookings accepted bookings and acceptance rate superhost.minAcceptanceRate.
+    Only reads the pre-aggregated host ratings and listing statistics, runs every night by default*/
+    @Scheduled(cron = "${superhost.cron:0 0 5 * * *}")
+    public void updateSuperhosts() {
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        List<String> ratedHostIds = new ArrayList<>();
+        for (User host : userRepository.findHostRatingsWithMinReviews(minReviews)) {
+            Double averageRating = host.getHostAverageRating();
+            if (averageRating != null && averageRating >= minAverageRating) {
+                ratedHostIds.add(host.getId());
+            }
+        }
+
+        List<String> superhostIds = new ArrayList<>();
+        if (!ratedHostIds.isEmpty()) {
+            YearMonth currentMonth = YearMonth.now();
+            for (HostDecisionCounts counts : statsRepository.sumDecisionsByHostIds(ratedHostIds,
+                    currentMonth.minusMonths(SUPERHOST_MONTHS - 1).toString(), currentMonth.toString())) {
+                long decisions = counts.acceptedBookings() + counts.rejectedBookings();
+                if (counts.acceptedBookings() >= minAcceptedBookings && decisions > 0
+                        && (double) counts.acceptedBookings() / decisions >= minAcceptanceRate) {
+                    superhostIds.add(counts.hostId());
+                }
+            }
+        }
+
+        userRepository.updateSuperhosts(superhostIds, runStartedAt);
+        logger.info("Updated superhosts, {} of {} hosts with enough reviews are superhosts", superhostIds.size(), ratedHostIds.size());
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private void recordReview(Review review, long countDelta) {
+        //the listing is null if it has been deleted
+        if (review.getRating() == null || review.getListing() == null) {
+            return;
+        }
+        ratingSummaryRepository.incrementRating(review.getListing().getId(), review.getRating(), countDelta);
+        //the average rating of the listing is written later from the summary
+        listingRatingQueue.enqueue(review.getListing().getId());
+        if (review.getListing().getHost() != null) {
+            userRepository.incrementHostRating(review.getListing().getHost().getId(), review.getRating() * countDelta, countDelta);
+        }
+    }
+}
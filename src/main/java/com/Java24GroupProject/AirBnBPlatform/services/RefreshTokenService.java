@@ -0,0 +1,112 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
+import com.Java24GroupProject.AirBnBPlatform.models.RefreshToken;
+import com.Java24GroupProject.AirBnBPlatform.repositories.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/*Creates and rotates the refresh tokens that give new access jwts (POST /auth/refresh) without a password login. A login
+starts a family of tokens, every refresh uses up the sent token and gives the next one in the family. The tokens are random,
+so they are stored as an HMAC (fast, no BCrypt) and a refresh is one HMAC, one findAndModify on the unique hash index and one
+insert. A used token that is sent again means that someone else has a copy, then the whole family is removed (both the
+thief and the user have to log in again)*/
+@Service
+public class RefreshTokenService {
+    private static final Logger logger = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final SecureRandom secureRandom = new SecureRandom();
+    //random bytes in a token (256 bits)
+    private static final int TOKEN_BYTES = 32;
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final SecretKeySpec hashKey;
+    private final long refreshExpirationMs;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               @Value("${jwt.secret}") String jwtSecret,
+                               @Value("${jwt.refreshExpirationMs:2592000000}") long refreshExpirationMs) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.hashKey = new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), "HmacSHA256");
+        this.refreshExpirationMs = refreshExpirationMs;
+    }
+
+    //METHODS used by AUTHENTICATION CONTROLLER CLASS ----------------------------------------------------------------
+
+    //start a new token family after a password login
+    public IssuedToken createToken(String userId, String username) {
+        LocalDateTime now = LocalDateTime.now();
+        return issueToken(UUID.randomUUID().toString(), userId, username, now, now.plus(refreshExpirationMs, ChronoUnit.MILLIS));
+    }
+
+    //use up a token and give the next one in its family, the family keeps the expiry of the login
+    public IssuedToken rotateToken(String token) {
+        String tokenHash = hash(token);
+        LocalDateTime now = LocalDateTime.now();
+        RefreshToken current = refreshTokenRepository.markUsed(tokenHash, now).orElse(null);
+        if (current == null) {
+            //only looked up when the refresh fails, to tell a reused token from an unknown/expired one
+            refreshTokenRepository.findByTokenHash(tokenHash)
+                    .filter(refreshToken -> refreshToken.getUsedAt() != null)
+                    .ifPresent(this::revokeReusedFamily);
+            throw new UnauthorizedException("Refresh token is invalid or expired, please log in again");
+        }
+        return issueToken(current.getFamilyId(), current.getUserId(), current.getUsername(), now, current.getExpiresAt());
+    }
+
+    //logout, removes the token and the rest of its family
+    public void revokeToken(String token) {
+        refreshTokenRepository.findByTokenHash(hash(token))
+                .ifPresent(refreshToken -> refreshTokenRepository.deleteByFamilyId(refreshToken.getFamilyId()));
+    }
+
+    //METHODS used by USER SERVICE CLASS -----------------------------------------------------------------------------
+
+    //remove all refresh tokens of a user (user deleted, username or password changed)
+    public void revokeUserTokens(String userId) {
+        refreshTokenRepository.deleteByUserId(userId);
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private IssuedToken issueToken(String familyId, String userId, String username, LocalDateTime now, LocalDateTime expiresAt) {
+        byte[] randomBytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(randomBytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(randomBytes);
+        refreshTokenRepository.insert(new RefreshToken(hash(token), familyId, userId, username, now, expiresAt));
+        return new IssuedToken(token, username, expiresAt);
+    }
+
+    private void revokeReusedFamily(RefreshToken reusedToken) {
+        long removed = refreshTokenRepository.deleteByFamilyId(reusedToken.getFamilyId());
+        logger.warn("Used refresh token of user {} was sent again, revoked {} tokens of its family", reusedToken.getUserId(), removed);
+    }
+
+    //HMAC-SHA256 with the jwt secret, a random 256 bit token does not need a slow hash
+    private String hash(String token) {
+        try {
+            //Mac is not thread safe, a new one per call is cheap compared to the database round trip
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(hashKey);
+            return HexFormat.of().formatHex(mac.doFinal(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    //a new refresh token (only returned here, the database has its hash), the user it belongs to and when its family expires
+    public record IssuedToken(String token, String username, LocalDateTime expiresAt) {
+    }
+}
@@ -1,5 +1,6 @@
 package com.Java24GroupProject.AirBnBPlatform.services;
 
+import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewPageResponse;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewRequest;
 import com.Java24GroupProject.AirBnBPlatform.DTOs.ReviewResponse;
 import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
@@ -7,8 +8,11 @@ import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundExceptio
 import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
 import com.Java24GroupProject.AirBnBPlatform.models.Booking;
 import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.ListingRatingSummary;
 import com.Java24GroupProject.AirBnBPlatform.models.Review;
 import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ReviewPageCursor;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ReviewSort;
 import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
 import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
@@ -16,23 +20,27 @@ import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
-import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 public class ReviewService {
+    //max amount of reviews in one page
+    private static final int MAX_PAGE_SIZE = 100;
+
     private final ReviewRepository reviewRepository;
     private final BookingRepository bookingRepository;
     private final ListingRepository listingRepository;
     private final UserRepository userRepository;
+    private final RatingAggregateService ratingAggregateService;
 
-    public ReviewService(ReviewRepository reviewRepository, BookingRepository bookingRepository, ListingRepository listingRepository, UserRepository userRepository) {
+    public ReviewService(ReviewRepository reviewRepository, BookingRepository bookingRepository, ListingRepository listingRepository, UserRepository userRepository, RatingAggregateService ratingAggregateService) {
         this.reviewRepository = reviewRepository;
         this.bookingRepository = bookingRepository;
         this.listingRepository = listingRepository;
         this.userRepository = userRepository;
+        this.ratingAggregateService = ratingAggregateService;
     }
 
     //METHODS used by REVIEW CONTROLLER CLASS -----------------------------------------------------------------------
@@ -45,12 +53,11 @@ public class ReviewService {
         // Validate the listing id
         Listing listing = ListingService.validateListingIdAndGetListing(reviewRequest.getListingId(), listingRepository);
 
-        // Check if the booking exists and the end date has passed
-        Booking booking = bookingRepository.findByUserAndListing(currentUser, listing)
-                .orElseThrow(() -> new IllegalArgumentException("Cannot leave a review without having a booking for the listing. \nNo booking found for current user and listing with id '"+listing.getId()+"'."));
-
-        if (booking.getBookingDates().getEndDate().isAfter(LocalDate.now())) {
-            throw new IllegalArgumentException("Cannot leave a review before the stay has ended.");
+        // Find the latest completed stay (booking that has ended) that has not been reviewed yet, each stay can be reviewed once
+        Booking booking = bookingRepository.findLatestUnreviewedStay(currentUser.getId(), listing.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Cannot leave a review without a completed stay at the listing that has not been reviewed. \nNo such stay found for current user and listing with id '"+listing.getId()+"'."));
+        if (!bookingRepository.markReviewed(booking.getId())) {
+            throw new IllegalArgumentException("The stay has already been reviewed.");
         }
 
         // Create the review
@@ -60,40 +67,62 @@ public class ReviewService {
         review.setUsername(currentUser.getUsername());
         review.setRating(reviewRequest.getRating());
         review.setEndDate(booking.getBookingDates().getEndDate());
+        review.setBookingId(booking.getId());
+
+        // Save the review, the stay can be reviewed again if this fails
+        Review savedReview;
+        try {
+            savedReview = reviewRepository.save(review);
+        } catch (RuntimeException e) {
+            bookingRepository.unmarkReviewed(booking.getId());
+            throw e;
+        }
 
-        // Save the review
-        Review savedReview = reviewRepository.save(review);
-
-        // listing avg ratings
-        updateAverageListingRating(reviewRequest.getListingId());
+        // listing rating summary and host rating aggregates, the listing average rating is updated in the background
+        ratingAggregateService.recordReviewCreated(savedReview);
         return mapToReviewResponse(savedReview);
     }
 
-    //get all reviews for a listing
-    public List<ReviewResponse> getReviewsByListing(String listingId) {
-        //check that listing id is valid
-        ListingService.validateListingIdAndGetListing(listingId, listingRepository);
+    /*get one page of the reviews for a listing, sorted by date or rating. cursor is the nextCursor of the previous page
+    (null = first page), the page also has the pre-aggregated rating summary of the listing*/
+    public ReviewPageResponse getReviewsByListing(String listingId, String sort, String cursor, int limit, Set<String> fields) {
+        ReviewSort reviewSort = ReviewSort.fromParameter(sort);
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        ReviewPageCursor after = cursor == null || cursor.isBlank() ? null : ReviewPageCursor.decode(cursor);
+
+        //a listing with a rating summary exists (the summary is deleted with the listing), only check listings without reviews
+        ListingRatingSummary summary = ratingAggregateService.getListingSummary(listingId);
+        if (summary.getReviewCount() == 0 && !listingRepository.existsById(listingId)) {
+            throw new ResourceNotFoundException("No listing with id '"+ listingId +"' in database");
+        }
 
-        // Fetch all reviews for the listing
-        List<Review> reviews = reviewRepository.findByListing_Id(listingId);
+        // Fetch one more review than asked for to know if there is a next page, only the fields asked for are loaded
+        List<Review> reviews = reviewRepository.findPageByListingId(listingId, reviewSort, after, limit + 1, fields);
+        String nextCursor = null;
+        if (reviews.size() > limit) {
+            reviews = reviews.subList(0, limit);
+            nextCursor = encodeCursor(reviews.get(limit - 1));
+        }
 
         // Map the reviews to ReviewResponse DTOs
-        return reviews.stream()
+        return new ReviewPageResponse(reviews.stream()
                 .map(this::mapToReviewResponse)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()), nextCursor, summary);
     }
 
     //get reviews made by the current logged in user
-    public List<ReviewResponse> getReviewsCurrentUser() {
+    public List<ReviewResponse> getReviewsCurrentUser(Set<String> fields) {
         User user = UserService.verifyAuthenticationAndExtractUser(userRepository);
-        return getUserReviews(user);
+        return getUserReviews(user, fields);
     }
 
     //get reviews by user id
-    public List<ReviewResponse> getReviewsByUserId(String userId) {
+    public List<ReviewResponse> getReviewsByUserId(String userId, Set<String> fields) {
         User user = UserService.validateUserIdAndReturnUser(userId, userRepository);
 
-        return getUserReviews(user);
+        return getUserReviews(user, fields);
     }
 
     //delete review
@@ -108,19 +137,22 @@ public class ReviewService {
             throw new UnauthorizedException("Review cannot be deleted by current user.\n Only the user who created the review or an admin user can delete a review.");
         }
 
-        // Delete the review
+        // Delete the review, the stay can then be reviewed again
         reviewRepository.delete(review);
+        if (review.getBookingId() != null) {
+            bookingRepository.unmarkReviewed(review.getBookingId());
+        }
 
-        // Update the average rating for the listing
-        updateAverageListingRating(review.getListing().getId());
+        // Update the listing rating summary and the host rating aggregates, the listing average rating is updated in the background
+        ratingAggregateService.recordReviewDeleted(review);
     }
 
     //METHODS used by this or other SERVICE CLASSES --------------------------------------------------------------
 
     //get reviews posted by a user, used by getReviewsByUserId and getReviewsCurrentUser methods in this class
-    private List<ReviewResponse> getUserReviews(User user) {
+    private List<ReviewResponse> getUserReviews(User user, Set<String> fields) {
             // Fetch all reviews for the user
-            List<Review> reviews = reviewRepository.findByUser_Id(user.getId());
+            List<Review> reviews = reviewRepository.findByUserIdWithFields(user.getId(), fields);
 
             // Map the reviews to ReviewResponse DTOs
             return reviews.stream()
@@ -129,21 +161,9 @@ public class ReviewService {
              //same as getReviewsByListing
     }
 
-    // Update the average rating of a listing
-    private void updateAverageListingRating(String listingId) {
-        List<Review> reviews = reviewRepository.findByListing_Id(listingId);
-
-        double averageRating = reviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        Listing listing = ListingService.validateListingIdAndGetListing(listingId, listingRepository);
-        listing.setAverageRating(averageRating);
-        listing.setUpdatedAt(LocalDateTime.now());
-
-        // Use updateListing method to update the existing listing
-        listingRepository.save(listing);
+    //the cursor is the sort values of the last review of a page
+    private static String encodeCursor(Review review) {
+        return new ReviewPageCursor(review.getRating() == null ? 0 : review.getRating(), review.getCreatedAt(), review.getId()).encode();
     }
 
     // method to map Review to ReviewResponse
@@ -153,65 +173,12 @@ public class ReviewService {
         to null in the new ReviewResponse object if there is not user in the review entity.*/
         String userId = review.getUser() == null ? null : review.getUser().getId();
 
+        //listing and rating are also null if they were not loaded (see ?fields=)
         return new ReviewResponse(review.getId(),
-                review.getListing().getId(),
+                review.getListing() == null ? null : review.getListing().getId(),
                 userId,
                 review.getUsername(),
-                review.getRating(),
+                review.getRating() == null ? 0 : review.getRating(),
                 review.getCreatedAt());
     }
-
- /*
-    public double getAverageRatingForHost(String hostId) {
-        User host = userService.getUserById(hostId);
-        return host.getAverageRating();
-    }
-     public List<ReviewResponse> getReviewsByHost(String hostId) {
-        System.out.println("Fetching reviews for host: " + hostId);
-
-        // Fetch all reviews for listings owned by the host
-        List<Review> reviews = reviewRepository.findByListing_Host_Id(hostId);
-
-        System.out.println("Number of reviews found: " + reviews.size());
-
-        // Map the reviews to ReviewResponse DTOs
-        return reviews.stream()
-                .map(this::mapToReviewResponse)
-                .collect(Collectors.toList());
-    }
-      // Update the average rating of a host
-    public void updateAverageHostRating(String hostId) {
-        System.out.println("Fetching reviews for host: " + hostId);
-
-        // Fetch all reviews for listings owned by the host
-        List<Review> reviews = reviewRepository.findByListing_Host_Id(hostId);
-
-        System.out.println("Number of reviews found: " + reviews.size());
-
-        // Log the reviews
-        for (Review review : reviews) {
-            System.out.println("Review ID: " + review.getId() + ", Rating: " + review.getRating());
-        }
-
-        // Calculate the average rating
-        double averageRating = reviews.stream()
-                .mapToDouble(Review::getRating)
-                .average()
-                .orElse(0.0);
-
-        System.out.println("Calculated average rating: " + averageRating);
-
-        // Fetch the host
-        User host = userService.getUserByIdReview(hostId);
-        if (host == null) {
-            throw new ResourceNotFoundException("Host not found with ID: " + hostId);
-        }
-
-        // Update the host's average rating
-        host.setAverageRating(averageRating);
-        userService.updateCurrentUser(host); // Save the updated host
-
-        System.out.println("Updated average rating for host " + hostId + ": " + averageRating);
-    }
-  */
 }
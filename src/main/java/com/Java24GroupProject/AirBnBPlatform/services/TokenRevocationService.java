@@ -0,0 +1,147 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.models.RevokedToken;
+import com.Java24GroupProject.AirBnBPlatform.repositories.RevokedTokenRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.BloomFilter;
+import com.Java24GroupProject.AirBnBPlatform.util.ExpiringLruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+/*Revoked access jwts: single jwts by their id (logout) and all jwts of a user issued before a time (user deleted or roles
+changed). The entries are stored in the revoked_tokens collection and their keys are put in an in-memory Bloom filter, which
+JwtAuthenticationFilter checks on every request. Almost all jwts are not revoked and are answered by the filter without any
+database read, only filter hits are looked up (and cached for a short time, a false positive is ~1%).
+Entries made by other instances are loaded every jwt.revocationSyncMs, and the filter is rebuilt every hour by default so
+expired entries (removed by the TTL index) leave it*/
+@Service
+public class TokenRevocationService {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+    private static final String TOKEN_PREFIX = "jti:";
+    private static final String USER_PREFIX = "user:";
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    //entries from other instances are loaded with some overlap, their clocks may be a little behind
+    private static final long SYNC_OVERLAP_SECONDS = 5;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long jwtExpirationMs;
+    private final int expectedEntries;
+    //looked up filter hits, an empty Optional is a false positive. Kept as long as the sync interval
+    private final ExpiringLruCache<String, Optional<RevokedToken>> checkedHits;
+    private volatile BloomFilter bloomFilter;
+    private volatile LocalDateTime syncedUntil = LocalDateTime.now();
+
+    public TokenRevocationService(RevokedTokenRepository revokedTokenRepository,
+                                  @Value("${jwt.expirationMs}") long jwtExpirationMs,
+                                  @Value("${jwt.revocationExpectedEntries:100000}") int expectedEntries,
+                                  @Value("${jwt.revocationSyncMs:10000}") long revocationSyncMs) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.expectedEntries = expectedEntries;
+        this.checkedHits = new ExpiringLruCache<>(10000, revocationSyncMs);
+        this.bloomFilter = new BloomFilter(expectedEntries, FALSE_POSITIVE_RATE);
+    }
+
+    //METHODS used by JWT AUTHENTICATION FILTER CLASS ----------------------------------------------------------------
+
+    //tokenId is null for jwts issued before the jwts got an id, they can only be revoked by user
+    public boolean isRevoked(String tokenId, String username, Date issuedAt) {
+        BloomFilter filter = bloomFilter;
+        if (tokenId != null && filter.mightContain(TOKEN_PREFIX + tokenId) && findEntry(TOKEN_PREFIX + tokenId).isPresent()) {
+            return true;
+        }
+        if (!filter.mightContain(USER_PREFIX + username)) {
+            return false;
+        }
+        Optional<RevokedToken> userEntry = findEntry(USER_PREFIX + username);
+        if (userEntry.isEmpty()) {
+            return false;
+        }
+        if (issuedAt == null) {
+            return true;
+        }
+        //issuedAt of a jwt is in whole seconds, so a jwt from the same second as the revocation is revoked too
+        LocalDateTime issuedAtTime = LocalDateTime.ofInstant(issuedAt.toInstant(), ZoneId.systemDefault());
+        return !issuedAtTime.isAfter(userEntry.get().getNotBefore().truncatedTo(ChronoUnit.SECONDS));
+    }
+
+    //METHODS used by AUTHENTICATION CONTROLLER CLASS ----------------------------------------------------------------
+
+    //logout, the entry is kept until the jwt would have expired
+    public void revokeToken(String tokenId, Date expiresAt) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime expiresAtTime = expiresAt == null ? now.plus(jwtExpirationMs, ChronoUnit.MILLIS)
+                : LocalDateTime.ofInstant(expiresAt.toInstant(), ZoneId.systemDefault());
+        addEntry(new RevokedToken(TOKEN_PREFIX + tokenId, null, now, expiresAtTime));
+    }
+
+    //METHODS used by USER SERVICE CLASS -----------------------------------------------------------------------------
+
+    //revoke all jwts of the user issued until now, after jwt.expirationMs they have all expired and the entry is removed
+    public void revokeUser(String username) {
+        LocalDateTime now = LocalDateTime.now();
+        addEntry(new RevokedToken(USER_PREFIX + username, now, now, now.plus(jwtExpirationMs, ChronoUnit.MILLIS)));
+    }
+
+    //METHODS used by the SCHEDULER --------------------------------------------------------------------------------
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        rebuildFilter();
+    }
+
+    //add the entries made since the last sync (also by other instances) to the filter
+    @Scheduled(fixedDelayString = "${jwt.revocationSyncMs:10000}")
+    public void syncFromStore() {
+        LocalDateTime now = LocalDateTime.now();
+        BloomFilter filter = bloomFilter;
+        revokedTokenRepository.findByCreatedAtAfter(syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS))
+                .forEach(revokedToken -> filter.add(revokedToken.getId()));
+        syncedUntil = now;
+    }
+
+    //new filter from the stored entries, entries that have expired are not in the store anymore
+    @Scheduled(cron = "${jwt.revocationRebuildCron:0 15 * * * *}")
+    public void rebuildFilter() {
+        LocalDateTime startedAt = LocalDateTime.now();
+        List<RevokedToken> revokedTokens = revokedTokenRepository.findAll();
+        //twice the entries, so revocations until the next rebuild keep the false positive rate
+        BloomFilter filter = new BloomFilter(Math.max(expectedEntries, revokedTokens.size() * 2), FALSE_POSITIVE_RATE);
+        revokedTokens.forEach(revokedToken -> filter.add(revokedToken.getId()));
+        bloomFilter = filter;
+        //entries made while the filter was built
+        syncedUntil = startedAt;
+        syncFromStore();
+        checkedHits.clear();
+        logger.info("Rebuilt the token revocation filter with {} entries", revokedTokens.size());
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private void addEntry(RevokedToken revokedToken) {
+        //stored first, so the other instances find it when their filter has it
+        revokedTokenRepository.save(revokedToken);
+        bloomFilter.add(revokedToken.getId());
+        checkedHits.remove(revokedToken.getId());
+    }
+
+    private Optional<RevokedToken> findEntry(String key) {
+        Optional<RevokedToken> entry = checkedHits.get(key);
+        if (entry == null) {
+            entry = revokedTokenRepository.findById(key);
+            checkedHits.put(key, entry);
+        }
+        return entry;
+    }
+}
@@ -17,6 +17,7 @@ import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.ReviewRepository;
 import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.security.authentication.AnonymousAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -36,64 +37,71 @@ public class UserService {
     private final ListingRepository listingRepository;
     private final BookingRepository bookingRepository;
     private final ReviewRepository reviewRepository;
+    private final ListingBitmapIndex listingBitmapIndex;
+    private final ListingService listingService;
+    private final ListingStatsService listingStatsService;
+    private final WaitlistService waitlistService;
+    private final RatingAggregateService ratingAggregateService;
+    private final RefreshTokenService refreshTokenService;
+    private final TokenRevocationService tokenRevocationService;
+    private final ListingResponseCache listingResponseCache;
 
     //constructor injection
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, ListingRepository listingRepository, BookingRepository bookingRepository, ReviewRepository reviewRepository) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, ListingRepository listingRepository, BookingRepository bookingRepository, ReviewRepository reviewRepository, ListingBitmapIndex listingBitmapIndex, ListingService listingService, ListingStatsService listingStatsService, WaitlistService waitlistService, RatingAggregateService ratingAggregateService, RefreshTokenService refreshTokenService, TokenRevocationService tokenRevocationService, ListingResponseCache listingResponseCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.listingRepository = listingRepository;
         this.bookingRepository = bookingRepository;
         this.reviewRepository = reviewRepository;
+        this.listingBitmapIndex = listingBitmapIndex;
+        this.listingService = listingService;
+        this.listingStatsService = listingStatsService;
+        this.waitlistService = waitlistService;
+        this.ratingAggregateService = ratingAggregateService;
+        this.refreshTokenService = refreshTokenService;
+        this.tokenRevocationService = tokenRevocationService;
+        this.listingResponseCache = listingResponseCache;
     }
 
     //METHODS used by USER CONTROLLER CLASS -----------------------------------------------------------------------
 
     //register a new user, used by AuthenticationController
     public RegisterResponse registerUser(UserRequest userRequest) {
-        //validate that username, email and phoneNr is unique
-        //check if username already exists, and if is does, cast error
-        if (userRepository.findByUsername(userRequest.getUsername()).isPresent()) {
-            throw new NameAlreadyBoundException("Username already registered to another user");
-        }
-
-        //same for email
-        if (userRepository.findByEmail(userRequest.getEmail()).isPresent()) {
-            throw new NameAlreadyBoundException("Email already registered to another user");
-        }
-
-        //same for phoneNr
-        if (userRepository.findByPhoneNr(userRequest.getPhoneNr()).isPresent()) {
-            throw new NameAlreadyBoundException("PhoneNr already registered to another user");
-        }
-
         //maps the RegisterRequest to a new User entity
         User user = transferUserRequestToUser(userRequest, new User());
         //empty listing-favorites array list for a new user
         user.setFavorites(new ArrayList<>());
 
-        //save new user
-        userRepository.save(user);
+        /*save new user, username, email and phoneNr have unique indexes so they are not checked first (one write instead of
+        three reads and a write). If one of them is taken the insert fails and the taken fields are looked up*/
+        try {
+            userRepository.insert(user);
+        } catch (DuplicateKeyException e) {
+            throw alreadyRegisteredException(userRepository.findTakenUniqueFields(userRequest.getUsername(), userRequest.getEmail(), userRequest.getPhoneNr(), null));
+        }
 
         return new RegisterResponse("user registered successfully", user.getUsername(), user.getRoles());
     }
 
     //get all users, return as UserResponseDTO
-    public List<UserResponse> getAllUsers() {
-        List<User> users = userRepository.findAll();
+    public List<UserResponse> getAllUsers(Set<String> fields) {
+        List<User> users = userRepository.findAllWithFields(fields);
         return users.stream()
                 .map(this::transferUserToUserResponse)
                 .collect(Collectors.toList());
     }
 
     //get current user
-    public UserResponse getCurrentUser() {
-        User currentUser = verifyAuthenticationAndExtractUser(userRepository);
+    public UserResponse getCurrentUser(Set<String> fields) {
+        User currentUser = userRepository.findByUsernameWithFields(getCurrentUsername(), fields)
+                .orElseThrow(() -> new IllegalArgumentException("User not found."));
         return transferUserToUserResponse(currentUser);
     }
 
     //get single user using id, return as UserResponse
-    public UserResponse getUserById(String id) {
-        User user = validateUserIdAndReturnUser(id, userRepository);
+    public UserResponse getUserById(String id, Set<String> fields) {
+        User user = userRepository.findByIdWithFields(id, fields)
+                .orElseThrow(() -> new ResourceNotFoundException("No user with id '"+ id + "' in database"));
         return transferUserToUserResponse(user);
     }
 
@@ -114,33 +122,38 @@ public class UserService {
         //get current user
         User currentUser = verifyAuthenticationAndExtractUser(userRepository);
 
-        //if username is changed, check that username is not taken
-        if (!currentUser.getUsername().equals(userRequest.getUsername())) {
-            if (userRepository.findByUsername(userRequest.getUsername()).isPresent()) {
-                throw new NameAlreadyBoundException("Username already registered to another user");
-            }
-        }
-
-        //same for email
-        if (!currentUser.getEmail().equals(userRequest.getEmail())) {
-            if (userRepository.findByEmail(userRequest.getEmail()).isPresent()) {
-                throw new NameAlreadyBoundException("Email already registered to another user");
-            }
-        }
-
-        //same for phoneNr
-        if (!currentUser.getPhoneNr().equals(userRequest.getPhoneNr())) {
-            if (userRepository.findByPhoneNr(userRequest.getPhoneNr()).isPresent()) {
-                throw new NameAlreadyBoundException("PhoneNr already registered to another user");
-            }
+        //check that the changed username, email and phoneNr are not taken, with one query (nothing is checked if none changed)
+        String changedUsername = currentUser.getUsername().equals(userRequest.getUsername()) ? null : userRequest.getUsername();
+        String changedEmail = currentUser.getEmail().equals(userRequest.getEmail()) ? null : userRequest.getEmail();
+        String changedPhoneNr = currentUser.getPhoneNr().equals(userRequest.getPhoneNr()) ? null : userRequest.getPhoneNr();
+        List<String> takenFields = userRepository.findTakenUniqueFields(changedUsername, changedEmail, changedPhoneNr, currentUser.getId());
+        if (!takenFields.isEmpty()) {
+            throw alreadyRegisteredException(takenFields);
         }
 
         //update current user
+        String previousUsername = currentUser.getUsername();
+        Set<Role> previousRoles = currentUser.getRoles();
         currentUser = transferUserRequestToUser(userRequest, currentUser);
 
         //set updated at to current time
         currentUser.setUpdatedAt(LocalDateTime.now());
-        userRepository.save(currentUser);
+        //another user may have taken a value since the check, the unique indexes then make the update fail.
+        //only the changed fields are written, a save would overwrite the host rating counters updated by reviews in the meantime
+        try {
+            userRepository.updateProfile(currentUser);
+        } catch (DuplicateKeyException e) {
+            throw alreadyRegisteredException(userRepository.findTakenUniqueFields(changedUsername, changedEmail, changedPhoneNr, currentUser.getId()));
+        }
+
+        //the refresh tokens hold the username, and a new password should end the other logins
+        if (changedUsername != null || userRequest.getPassword() != null) {
+            refreshTokenService.revokeUserTokens(currentUser.getId());
+        }
+        //jwts issued with the old roles (or old username) are revoked, the user logs in again
+        if (changedUsername != null || !currentUser.getRoles().equals(previousRoles)) {
+            tokenRevocationService.revokeUser(previousUsername);
+        }
 
         //convert to a responseDTO and return
         return transferUserToUserResponse(currentUser);
@@ -180,7 +193,7 @@ public class UserService {
             user.addFavorite(newListing);
             message = message +" has been added to favorites";
         }
-        userRepository.save(user);
+        userRepository.updateFavorites(user);
         return message;
     }
 
@@ -200,7 +213,7 @@ public class UserService {
                 } else {
                     //if listing has been removed from database, delete if from favorites
                     user.removeFavorite(listingReference);
-                    userRepository.save(user);
+                    userRepository.updateFavorites(user);
                 }
             }
         }
@@ -217,26 +230,41 @@ public class UserService {
 
     //used by class methods deleteUserById and deleteCurrentUser
     private void deleteUser(User user) {
+        //no new jwts for the deleted user, and the ones it has are revoked
+        refreshTokenService.revokeUserTokens(user.getId());
+        tokenRevocationService.revokeUser(user.getUsername());
+
         //get and delete user listings
         List<Listing> userListings= listingRepository.deleteByHost(user);
 
         //delete bookings and reviews for the deleted listings
         for (Listing listing : userListings) {
             bookingRepository.deleteByListing(listing);
+            bookingRepository.deleteArchivedByListingId(listing.getId());
             reviewRepository.deleteByListing(listing);
+            ratingAggregateService.deleteListingSummary(listing.getId());
+            listingBitmapIndex.remove(listing.getId());
+            listingStatsService.deleteListingStats(listing.getId());
+            waitlistService.deleteListingEntries(listing.getId());
+        }
+        if (!userListings.isEmpty()) {
+            listingService.clearSearchCaches();
         }
 
         //get and delete bookings belonging to the user
         List<Booking> userBookings = bookingRepository.deleteByUser(user);
+        bookingRepository.deleteArchivedByUserId(user.getId());
 
-        //loop bookings and add back dates to listing if booking is pending
+        //loop bookings and add back dates to listing if booking is pending (or rejected/expired with the dates not given back yet),
+        //remove accepted/rejected bookings from the listing statistics (the archived bookings are removed by the next ListingStatsService rebuild)
         for (Booking booking : userBookings) {
-            if (booking.getBookingStatus() == BookingStatus.PENDING) {
+            if (booking.getBookingStatus() == BookingStatus.PENDING || booking.getDatesReleaseDueAt() != null) {
 
                 Listing listing = ListingService.validateListingIdAndGetListing(booking.getListing().getId(), listingRepository);
-                listing.addAvailableDateRange(booking.getBookingDates());
-                listing.setUpdatedAt(LocalDateTime.now());
-                listingRepository.save(listing);
+                waitlistService.datesReleased(listing.getId(), ListingService.giveBackDates(listing, List.of(booking.getBookingDates()), listingRepository, listingResponseCache));
+            }
+            if (booking.getBookingStatus() != BookingStatus.PENDING && booking.getListing() != null) {
+                listingStatsService.recordDeleted(booking, booking.getListing());
             }
         }
 
@@ -248,15 +276,30 @@ public class UserService {
                 userReview.setUsername("[deleted user]");
             }
         }
+        waitlistService.deleteUserEntriesAndNotifications(user.getId());
         userRepository.delete(user);
     }
 
+    //e.g. "Email already registered to another user", takenFields is empty if the taken value was changed again before the lookup
+    private static NameAlreadyBoundException alreadyRegisteredException(List<String> takenFields) {
+        if (takenFields.isEmpty()) {
+            return new NameAlreadyBoundException("Username, email or phoneNr already registered to another user");
+        }
+        String names = takenFields.stream()
+                .map(field -> Character.toUpperCase(field.charAt(0)) + field.substring(1))
+                .collect(Collectors.joining(", "));
+        return new NameAlreadyBoundException(names + " already registered to another user");
+    }
+
     //convert incoming DTO (from UserController) to User object
     private User transferUserRequestToUser(UserRequest userRequest, User user) {
 
         user.setUsername(userRequest.getUsername());
-        //encodes the password
-        user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+        /*encodes the password (a BCrypt hash on the password pool, may throw ServiceUnavailableException).
+        No password on update keeps the current hash, registration always has one (validated by the OnRegister group)*/
+        if (userRequest.getPassword() != null) {
+            user.setPassword(passwordEncoder.encode(userRequest.getPassword()));
+        }
         user.setEmail(userRequest.getEmail());
         user.setPhoneNr(userRequest.getPhoneNr());
         //create UserAddress from String variables from the UserRequest
@@ -296,15 +339,20 @@ public class UserService {
 
     //verify and get current user from jwtToken/cookies
     static User verifyAuthenticationAndExtractUser(UserRepository userRepository) {
+        return userRepository.findByUsername(getCurrentUsername())
+                .orElseThrow(() -> new IllegalArgumentException("User not found."));
+    }
+
+    //verify that a user is logged in and get the username from jwtToken/cookies (without loading the user)
+    static String getCurrentUsername() {
         //check that user is logged in
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
         if (authentication == null || !authentication.isAuthenticated() || authentication instanceof AnonymousAuthenticationToken) {
             throw new UnauthorizedException("User is not logged in.");
         }
-        //get user id from token via userDetails
+        //get username from token via userDetails
         UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        return userRepository.findByUsername(userDetails.getUsername())
-                .orElseThrow(() -> new IllegalArgumentException("User not found."));
+        return userDetails.getUsername();
     }
 
 }
@@ -0,0 +1,319 @@
+package com.Java24GroupProject.AirBnBPlatform.services;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.BookingEvent;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.WaitlistRequest;
+import com.Java24GroupProject.AirBnBPlatform.DTOs.WaitlistResponse;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.NameAlreadyBoundException;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ResourceNotFoundException;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.UnauthorizedException;
+import com.Java24GroupProject.AirBnBPlatform.models.Booking;
+import com.Java24GroupProject.AirBnBPlatform.models.Listing;
+import com.Java24GroupProject.AirBnBPlatform.models.Notification;
+import com.Java24GroupProject.AirBnBPlatform.models.ReleasedDates;
+import com.Java24GroupProject.AirBnBPlatform.models.User;
+import com.Java24GroupProject.AirBnBPlatform.models.WaitlistEntry;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.BookingStatus;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.DateRange;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.NotificationType;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.Role;
+import com.Java24GroupProject.AirBnBPlatform.repositories.BookingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ListingRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.NotificationRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.ReleasedDatesRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.UserRepository;
+import com.Java24GroupProject.AirBnBPlatform.repositories.WaitlistEntryRepository;
+import com.Java24GroupProject.AirBnBPlatform.util.IntervalTree;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/*Guests can wait for dates that are not available on a listing. When BookingService (rejected, deleted or changed bookings),
+PendingBookingExpiryService or UserService give dates back to a listing, the dates are stored in the released_dates collection
+(so they survive a restart and any instance can handle them) and handled by a scheduled job that claims them in batches, so
+many released bookings on the same listing are handled together: the listing is loaded once, the
+waitlist entries overlapping the released dates are found with one query on the (listingId, wantedDates) index and matched
+against the released dates with an interval tree, and the bookings, notifications and removed entries are written in bulk.
+The oldest entries are handled first: autoBook entries get a pending booking, the others a notification*/
+@Service
+public class WaitlistService {
+    private static final Logger logger = LoggerFactory.getLogger(WaitlistService.class);
+    //max amount of released dates claimed per batch
+    private static final int BATCH_SIZE = 1000;
+    //released dates claimed by a run that has not finished after this time are claimed again (failed run or stopped instance)
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+
+    private final WaitlistEntryRepository waitlistEntryRepository;
+    private final NotificationRepository notificationRepository;
+    private final ListingRepository listingRepository;
+    private final BookingRepository bookingRepository;
+    private final UserRepository userRepository;
+    private final PricingService pricingService;
+    private final BookingEventHub bookingEventHub;
+    private final ReleasedDatesRepository releasedDatesRepository;
+    private final ListingResponseCache listingResponseCache;
+
+    public WaitlistService(WaitlistEntryRepository waitlistEntryRepository, NotificationRepository notificationRepository, ListingRepository listingRepository,
+                           BookingRepository bookingRepository, UserRepository userRepository, PricingService pricingService, BookingEventHub bookingEventHub,
+                           ReleasedDatesRepository releasedDatesRepository, ListingResponseCache listingResponseCache) {
+        this.waitlistEntryRepository = waitlistEntryRepository;
+        this.notificationRepository = notificationRepository;
+        this.listingRepository = listingRepository;
+        this.bookingRepository = bookingRepository;
+        this.userRepository = userRepository;
+        this.pricingService = pricingService;
+        this.bookingEventHub = bookingEventHub;
+        this.releasedDatesRepository = releasedDatesRepository;
+        this.listingResponseCache = listingResponseCache;
+    }
+
+    //METHODS used by WAITLIST CONTROLLER CLASS ----------------------------------------------------------------------
+
+    public WaitlistResponse joinWaitlist(WaitlistRequest waitlistRequest) {
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        Listing listing = ListingService.validateListingIdAndGetListing(waitlistRequest.getListingId(), listingRepository);
+
+        DateRange wantedDates;
+        try {
+            wantedDates = new DateRange(LocalDate.parse(waitlistRequest.getStartDate()), LocalDate.parse(waitlistRequest.getEndDate()));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("startDate and endDate must be dates (yyyy-mm-dd)");
+        }
+        if (!wantedDates.getStartDate().isAfter(LocalDate.now())) {
+            throw new IllegalArgumentException("startDate must be in the future");
+        }
+        if (currentUser.getId().equals(listing.getHost().getId())) {
+            throw new IllegalArgumentException("user not allowed to join the waitlist for their own listing");
+        }
+        if (waitlistRequest.getNumberOfGuests() > listing.getCapacity()) {
+            throw new IllegalArgumentException("nrOfGuest exceeds listing capacity");
+        }
+        if (listing.isDateRangeAvailable(wantedDates)) {
+            throw new IllegalArgumentException("The dates are available on the listing, book them instead");
+        }
+        if (waitlistEntryRepository.existsByListingIdAndUserIdAndWantedDates_StartDateAndWantedDates_EndDate(
+                listing.getId(), currentUser.getId(), wantedDates.getStartDate(), wantedDates.getEndDate())) {
+            throw new NameAlreadyBoundException("Already on the waitlist for these dates");
+        }
+
+        WaitlistEntry entry = new WaitlistEntry();
+        entry.setListingId(listing.getId());
+        entry.setUserId(currentUser.getId());
+        entry.setUsername(currentUser.getUsername());
+        entry.setWantedDates(wantedDates);
+        entry.setNumberOfGuests(waitlistRequest.getNumberOfGuests());
+        entry.setAutoBook(waitlistRequest.isAutoBook());
+        return convertToDTOResponse(waitlistEntryRepository.save(entry));
+    }
+
+    public List<WaitlistResponse> getWaitlistCurrentUser() {
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        return waitlistEntryRepository.findByUserIdOrderByCreatedAtAsc(currentUser.getId()).stream()
+                .map(this::convertToDTOResponse)
+                .collect(Collectors.toList());
+    }
+
+    public void leaveWaitlist(String id) {
+        WaitlistEntry entry = waitlistEntryRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("No waitlist entry with id '" + id + "' in database"));
+
+        //check that current user is the owner of the entry or admin
+        User currentUser = UserService.verifyAuthenticationAndExtractUser(userRepository);
+        if (!currentUser.getId().equals(entry.getUserId()) && !currentUser.getRoles().contains(Role.ADMIN)) {
+            throw new UnauthorizedException("Only the owner of the waitlist entry or admin can remove it");
+        }
+        waitlistEntryRepository.delete(entry);
+    }
+
+    //METHODS used by other SERVICE CLASSES -------------------------------------------------------------------------
+
+    //dates were given back to a listing (call it after the dates are stored), the waitlist is handled by promoteWaitlistedGuests
+    public void datesReleased(String listingId, DateRange releasedDates) {
+        releasedDatesRepository.insert(new ReleasedDates(listingId, releasedDates, LocalDateTime.now()));
+    }
+
+    //several date ranges were given back to a listing, stored with one insert
+    public void datesReleased(String listingId, List<DateRange> releasedDates) {
+        LocalDateTime now = LocalDateTime.now();
+        releasedDatesRepository.insert(releasedDates.stream()
+                .map(dateRange -> new ReleasedDates(listingId, dateRange, now))
+                .collect(Collectors.toList()));
+    }
+
+    //the listing is deleted
+    public void deleteListingEntries(String listingId) {
+        waitlistEntryRepository.deleteByListingId(listingId);
+        releasedDatesRepository.deleteByListingId(listingId);
+    }
+
+    //the user is deleted
+    public void deleteUserEntriesAndNotifications(String userId) {
+        waitlistEntryRepository.deleteByUserId(userId);
+        notificationRepository.deleteByUserId(userId);
+    }
+
+    @Scheduled(fixedDelayString = "${waitlist.promotionIntervalMs:10000}")
+    public void promoteWaitlistedGuests() {
+        List<ReleasedDates> claimed;
+        do {
+            //a new claim id per batch, so dates that failed (still claimed) are not claimed again by the next batch
+            String claimId = UUID.randomUUID().toString();
+            LocalDateTime now = LocalDateTime.now();
+            claimed = releasedDatesRepository.claimBatch(claimId, now, now.minus(CLAIM_TIMEOUT), BATCH_SIZE);
+            Map<String, List<ReleasedDates>> claimedByListingId = claimed.stream()
+                    .collect(Collectors.groupingBy(ReleasedDates::getListingId));
+            claimedByListingId.forEach((listingId, releasedDates) -> {
+                try {
+                    promoteForListing(listingId, releasedDates.stream().map(ReleasedDates::getReleasedDates).collect(Collectors.toList()));
+                    releasedDatesRepository.deleteAll(releasedDates);
+                } catch (RuntimeException e) {
+                    //the dates stay claimed and are handled again when the claim times out
+                    logger.warn("Waitlist for listing '{}' could not be handled", listingId, e);
+                }
+            });
+        } while (claimed.size() == BATCH_SIZE);
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private void promoteForListing(String listingId, List<DateRange> releasedDates) {
+        Listing listing = listingRepository.findById(listingId).orElse(null);
+        if (listing == null) {
+            return;
+        }
+
+        //find the entries that overlap any of the released dates
+        LocalDate from = releasedDates.stream().map(DateRange::getStartDate).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDate to = releasedDates.stream().map(DateRange::getEndDate).max(Comparator.naturalOrder()).orElseThrow();
+        List<WaitlistEntry> entries = waitlistEntryRepository.findByListingIdOverlapping(listingId, from, to);
+        if (entries.isEmpty()) {
+            return;
+        }
+        IntervalTree<DateRange> releasedTree = new IntervalTree<>(releasedDates,
+                dateRange -> dateRange.getStartDate().toEpochDay(),
+                dateRange -> dateRange.getEndDate().toEpochDay());
+
+        //entries overlapping a release whose stay has not started, oldest first
+        List<WaitlistEntry> candidates = new ArrayList<>();
+        for (WaitlistEntry entry : entries) {
+            DateRange wantedDates = entry.getWantedDates();
+            //forEachOverlap returns false when the visitor stops it, i.e. at the first overlapping release
+            boolean overlapsRelease = !releasedTree.forEachOverlap(wantedDates.getStartDate().toEpochDay(), wantedDates.getEndDate().toEpochDay(), index -> false);
+            if (overlapsRelease && wantedDates.getStartDate().isAfter(LocalDate.now())) {
+                candidates.add(entry);
+            }
+        }
+
+        //reserve the dates of the autoBook entries, only the changed dates are written (made again if the dates changed meanwhile)
+        List<WaitlistEntry> bookedEntries = new ArrayList<>();
+        List<WaitlistEntry> notifiedEntries = new ArrayList<>();
+        Listing storedListing = ListingService.changeAvailableDates(listing, changedListing -> {
+            bookedEntries.clear();
+            notifiedEntries.clear();
+            for (WaitlistEntry entry : candidates) {
+                if (!changedListing.isDateRangeAvailable(entry.getWantedDates())) {
+                    continue;
+                }
+                if (entry.isAutoBook() && entry.getNumberOfGuests() <= changedListing.getCapacity()) {
+                    changedListing.reserveDateRange(entry.getWantedDates());
+                    bookedEntries.add(entry);
+                } else {
+                    notifiedEntries.add(entry);
+                }
+            }
+        }, listingRepository, listingResponseCache);
+
+        /*insert the bookings one at a time, so after a failure it is known which of them are stored. The dates of the bookings
+        that were not stored are given back and their entries are kept, they are handled again with the claimed dates*/
+        List<Booking> bookings = new ArrayList<>();
+        List<WaitlistEntry> unbookedEntries = new ArrayList<>();
+        RuntimeException insertFailure = null;
+        for (WaitlistEntry entry : bookedEntries) {
+            if (insertFailure == null) {
+                try {
+                    Booking booking = convertEntryToBooking(entry, storedListing);
+                    bookingRepository.insert(booking);
+                    bookings.add(booking);
+                    continue;
+                } catch (RuntimeException e) {
+                    insertFailure = e;
+                }
+            }
+            unbookedEntries.add(entry);
+        }
+        if (insertFailure != null) {
+            bookedEntries.removeAll(unbookedEntries);
+            try {
+                ListingService.giveBackDates(storedListing, unbookedEntries.stream().map(WaitlistEntry::getWantedDates).collect(Collectors.toList()),
+                        listingRepository, listingResponseCache);
+            } catch (RuntimeException e) {
+                insertFailure.addSuppressed(e);
+            }
+        }
+
+        List<Notification> notifications = new ArrayList<>();
+        for (WaitlistEntry entry : notifiedEntries) {
+            DateRange wantedDates = entry.getWantedDates();
+            notifications.add(new Notification(entry.getUserId(), NotificationType.WAITLIST_DATES_AVAILABLE,
+                    "The dates " + wantedDates.getStartDate() + " - " + wantedDates.getEndDate() + " are available on '" + storedListing.getTitle() + "'",
+                    listingId, null));
+        }
+        for (Booking booking : bookings) {
+            notifications.add(new Notification(booking.getUser().getId(), NotificationType.WAITLIST_BOOKED,
+                    "Your waitlisted stay " + booking.getBookingDates().getStartDate() + " - " + booking.getBookingDates().getEndDate()
+                            + " on '" + storedListing.getTitle() + "' has been booked and is waiting for the host to accept it",
+                    listingId, booking.getId()));
+            bookingEventHub.publish(storedListing.getHost().getId(),
+                    new BookingEvent(BookingEvent.Type.CREATED, booking.getId(), listingId, BookingService.convertToDTOResponse(booking)));
+        }
+        List<String> handledEntryIds = new ArrayList<>();
+        bookedEntries.forEach(entry -> handledEntryIds.add(entry.getId()));
+        notifiedEntries.forEach(entry -> handledEntryIds.add(entry.getId()));
+        waitlistEntryRepository.deleteAllById(handledEntryIds);
+        notificationRepository.insert(notifications);
+
+        //the stored bookings are handled above, the failure is reported so the released dates stay claimed
+        if (insertFailure != null) {
+            throw insertFailure;
+        }
+    }
+
+    //pending booking for the waitlisted guest, only the id and username are set on the user (the DBRef only needs the id)
+    private Booking convertEntryToBooking(WaitlistEntry entry, Listing listing) {
+        User user = new User();
+        user.setId(entry.getUserId());
+        user.setUsername(entry.getUsername());
+
+        Booking booking = new Booking();
+        booking.setListing(listing);
+        booking.setListingTitle(listing.getTitle());
+        booking.setUser(user);
+        booking.setBookingDates(entry.getWantedDates());
+        booking.setNumberOfGuests(entry.getNumberOfGuests());
+        booking.setTotalPrice(pricingService.calculateStayPrice(listing, entry.getWantedDates()));
+        booking.setBookingStatus(BookingStatus.PENDING);
+        return booking;
+    }
+
+    private WaitlistResponse convertToDTOResponse(WaitlistEntry entry) {
+        return new WaitlistResponse(entry.getId(),
+                entry.getListingId(),
+                entry.getWantedDates().getStartDate().toString(),
+                entry.getWantedDates().getEndDate().toString(),
+                entry.getNumberOfGuests(),
+                entry.isAutoBook(),
+                entry.getCreatedAt());
+    }
+}
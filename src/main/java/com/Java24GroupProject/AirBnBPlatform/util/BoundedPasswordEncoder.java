@@ -0,0 +1,123 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import com.Java24GroupProject.AirBnBPlatform.DTOs.PasswordHashingStatus;
+import com.Java24GroupProject.AirBnBPlatform.exceptions.ServiceUnavailableException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*PasswordEncoder that runs the hashing and verifying of another encoder (BCrypt, ~250ms of cpu each) on a small pool of its
+own, so a burst of logins/registrations uses at most that many processors and request threads are left for the rest of the api.
+The queue of the pool is limited, when it is full or a request has waited longer than the timeout a ServiceUnavailableException
+(503) is thrown right away instead of letting the requests pile up. Used for login (through the AuthenticationManager) and UserService*/
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor workers;
+    private final int queueCapacity;
+    private final long timeoutMs;
+
+    private final AtomicLong hashes = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong verifications = new AtomicLong();
+    private final AtomicLong verifyNanos = new AtomicLong();
+    private final AtomicLong rejectedTasks = new AtomicLong();
+    private final AtomicLong timedOutTasks = new AtomicLong();
+    private final AtomicLong lastWaitMs = new AtomicLong();
+    private final AtomicLong maxWaitMs = new AtomicLong();
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity, long timeoutMs) {
+        this.delegate = delegate;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMs = timeoutMs;
+        //AbortPolicy, a full queue throws RejectedExecutionException in the request thread
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> {
+            long start = System.nanoTime();
+            String hash = delegate.encode(rawPassword);
+            hashNanos.addAndGet(System.nanoTime() - start);
+            hashes.incrementAndGet();
+            return hash;
+        });
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> {
+            long start = System.nanoTime();
+            boolean matches = delegate.matches(rawPassword, encodedPassword);
+            verifyNanos.addAndGet(System.nanoTime() - start);
+            verifications.incrementAndGet();
+            return matches;
+        });
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        //only reads the stored hash, no hashing
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public PasswordHashingStatus getStatus() {
+        long hashCount = hashes.get();
+        long verifyCount = verifications.get();
+        return new PasswordHashingStatus(workers.getMaximumPoolSize(), workers.getActiveCount(), workers.getQueue().size(), queueCapacity,
+                hashCount, verifyCount, rejectedTasks.get(), timedOutTasks.get(),
+                hashCount > 0 ? hashNanos.get() / 1_000_000.0 / hashCount : 0,
+                verifyCount > 0 ? verifyNanos.get() / 1_000_000.0 / verifyCount : 0,
+                lastWaitMs.get(), maxWaitMs.get());
+    }
+
+    //called by spring when the application stops (inferred destroy method of the bean)
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    //run a hash/verification on the pool and wait for it in the request thread
+    private <T> T run(Callable<T> task) {
+        long submittedAt = System.currentTimeMillis();
+        Future<T> future;
+        try {
+            future = workers.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedTasks.incrementAndGet();
+            throw new ServiceUnavailableException("Too many login and registration requests right now, please try again shortly");
+        }
+
+        try {
+            T result = future.get(timeoutMs, TimeUnit.MILLISECONDS);
+            long waitMs = System.currentTimeMillis() - submittedAt;
+            lastWaitMs.set(waitMs);
+            maxWaitMs.accumulateAndGet(waitMs, Math::max);
+            return result;
+        } catch (TimeoutException e) {
+            //removes the task if it is still queued, a started hash finishes but its result is not used
+            future.cancel(true);
+            timedOutTasks.incrementAndGet();
+            throw new ServiceUnavailableException("Too many login and registration requests right now, please try again shortly");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Password check was interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+//one bit per night from firstNight, 64 nights per long. Used to find runs of available nights (see findRunStarts)
+public class DayBitmap {
+    private final LocalDate firstNight;
+    private final int nights;
+    private final long[] words;
+
+    public DayBitmap(LocalDate firstNight, int nights) {
+        this.firstNight = firstNight;
+        this.nights = nights;
+        this.words = new long[(nights + 63) / 64];
+    }
+
+    private DayBitmap(LocalDate firstNight, int nights, long[] words) {
+        this.firstNight = firstNight;
+        this.nights = nights;
+        this.words = words;
+    }
+
+    //set the nights from startDate up to (not including) endDate, nights outside the bitmap are ignored
+    public void setRange(LocalDate startDate, LocalDate endDate) {
+        int from = (int) Math.max(0, ChronoUnit.DAYS.between(firstNight, startDate));
+        int to = (int) Math.min(nights, ChronoUnit.DAYS.between(firstNight, endDate));
+        for (int i = from; i < to; i++) {
+            words[i >>> 6] |= 1L << (i & 63);
+        }
+    }
+
+    /*bitmap where night i is set if the runLength nights starting at night i are all set. Done a whole word (64 nights)
+    at a time: AND the bitmap with itself shifted by 1, 2, 4... nights, so it takes log2(runLength) passes*/
+    public DayBitmap findRunStarts(int runLength) {
+        long[] result = words.clone();
+        int coveredLength = 1;
+        while (coveredLength < runLength) {
+            int shift = Math.min(coveredLength, runLength - coveredLength);
+            long[] shifted = shiftDown(result, shift);
+            for (int i = 0; i < result.length; i++) {
+                result[i] &= shifted[i];
+            }
+            coveredLength += shift;
+        }
+        return new DayBitmap(firstNight, nights, result);
+    }
+
+    public int count() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    //index of the first set night at or after fromIndex, -1 if there is none
+    public int nextSetIndex(int fromIndex) {
+        if (fromIndex >= nights) {
+            return -1;
+        }
+        int wordIndex = fromIndex >>> 6;
+        long word = words[wordIndex] & (-1L << (fromIndex & 63));
+        while (word == 0) {
+            if (++wordIndex == words.length) {
+                return -1;
+            }
+            word = words[wordIndex];
+        }
+        return (wordIndex << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    public LocalDate nightAt(int index) {
+        return firstNight.plusDays(index);
+    }
+
+    //new[i] = old[i + shift], nights shifted in from past the end are not set
+    private static long[] shiftDown(long[] words, int shift) {
+        long[] shifted = new long[words.length];
+        int wordShift = shift >>> 6;
+        int bitShift = shift & 63;
+        for (int i = 0; i + wordShift < words.length; i++) {
+            long low = words[i + wordShift] >>> bitShift;
+            long high = bitShift == 0 || i + wordShift + 1 >= words.length ? 0 : words[i + wordShift + 1] << (64 - bitShift);
+            shifted[i] = low | high;
+        }
+        return shifted;
+    }
+}
@@ -0,0 +1,50 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//small in-memory cache with a max amount of entries (least recently used is removed first) and a time to live per entry
+//used by the services for caching results that are expensive to compute, but ok to be a little bit out of date
+public class ExpiringLruCache<K, V> {
+    private final long timeToLiveMs;
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    public ExpiringLruCache(int maxEntries, long timeToLiveMs) {
+        this.timeToLiveMs = timeToLiveMs;
+        //access order = true makes the LinkedHashMap keep the least recently used entry first
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    //get a value, returns null if there is no value or if the value has expired
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.currentTimeMillis() + timeToLiveMs));
+    }
+
+    public synchronized void remove(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
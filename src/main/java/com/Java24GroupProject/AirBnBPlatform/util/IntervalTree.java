@@ -0,0 +1,81 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntPredicate;
+import java.util.function.ToLongFunction;
+
+/*static interval tree over half-open intervals [start, end). The intervals are sorted by start and the sorted array is used
+as a balanced binary search tree (the middle of a range is the root of that range), where every node also stores the
+largest end in its subtree. Building is O(n log n), finding the k intervals that overlap a range is O(log n + k)*/
+public class IntervalTree<T> {
+    private final T[] values;
+    private final long[] starts;
+    private final long[] ends;
+    //largest end in the subtree rooted at each index
+    private final long[] maxEnds;
+
+    @SuppressWarnings("unchecked")
+    public IntervalTree(List<T> intervals, ToLongFunction<T> start, ToLongFunction<T> end) {
+        values = (T[]) intervals.toArray();
+        Arrays.sort(values, Comparator.comparingLong(start));
+        starts = new long[values.length];
+        ends = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            starts[i] = start.applyAsLong(values[i]);
+            ends[i] = end.applyAsLong(values[i]);
+        }
+        maxEnds = new long[values.length];
+        buildMaxEnds(0, values.length);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    //the interval at a position in start order, positions are the ones passed to the visitor in forEachOverlap
+    public T get(int index) {
+        return values[index];
+    }
+
+    /*call visitor with the position of every interval that overlaps [start, end), in start order.
+    Stops when the visitor returns false, returns false if it was stopped*/
+    public boolean forEachOverlap(long start, long end, IntPredicate visitor) {
+        return visit(0, values.length, start, end, visitor);
+    }
+
+    //METHODS used by this class ------------------------------------------------------------------------------------
+
+    private long buildMaxEnds(int from, int to) {
+        if (from >= to) {
+            return Long.MIN_VALUE;
+        }
+        int middle = (from + to) >>> 1;
+        long maxEnd = Math.max(ends[middle], Math.max(buildMaxEnds(from, middle), buildMaxEnds(middle + 1, to)));
+        maxEnds[middle] = maxEnd;
+        return maxEnd;
+    }
+
+    private boolean visit(int from, int to, long start, long end, IntPredicate visitor) {
+        if (from >= to) {
+            return true;
+        }
+        int middle = (from + to) >>> 1;
+        //nothing in this subtree ends after start
+        if (maxEnds[middle] <= start) {
+            return true;
+        }
+        if (!visit(from, middle, start, end, visitor)) {
+            return false;
+        }
+        //everything from middle on starts at or after end
+        if (starts[middle] >= end) {
+            return true;
+        }
+        if (ends[middle] > start && !visitor.test(middle)) {
+            return false;
+        }
+        return visit(middle + 1, to, start, end, visitor);
+    }
+}
@@ -12,6 +12,7 @@ import org.springframework.stereotype.Component;
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
+import java.util.UUID;
 
 //This class is a part of the site security and handles creation of jwt tokens (used mainly by JwtAuthFilter class)
 //requires various jwt dependencies, which are included in the in pom-file
@@ -24,7 +25,7 @@ public class JwtUtil {
     private String jwtSecret;
 
     //how long a token is valid
-    //can be set to very long during testing/development, but should be shorter when actually going live
+    //can be set to very long during testing/development, but should be short (minutes) when actually going live, the refresh token gives new ones
     @Value("${jwt.expirationMs}")
     private int jwtExpirationMs;
 
@@ -36,9 +37,16 @@ public class JwtUtil {
 
     //generate a jwt token for a user
     public String generateToken(UserDetails userDetails) {
+        return generateToken(userDetails.getUsername());
+    }
+
+    //generate a jwt token for a username, used when refreshing (the user is not read from the db)
+    public String generateToken(String username) {
         return Jwts.builder()
                 //subject for the token
-                .setSubject(userDetails.getUsername())
+                .setSubject(username)
+                //id of the token, used to revoke it on logout (see TokenRevocationService)
+                .setId(UUID.randomUUID().toString())
                 //validation token start time
                 .setIssuedAt(new Date())
                 //expiration (i.e., now + the expiration time length
@@ -48,6 +56,10 @@ public class JwtUtil {
                 .compact();
     }
 
+    public int getExpirationMs() {
+        return jwtExpirationMs;
+    }
+
     //validate a token
     public boolean validateToken(String token, UserDetails userDetails) {
         try {
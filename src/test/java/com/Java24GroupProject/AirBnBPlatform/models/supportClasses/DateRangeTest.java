@@ -0,0 +1,45 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DateRangeTest {
+
+    private static DateRange range(int startDay, int endDay) {
+        return new DateRange(LocalDate.of(2025, 6, startDay), LocalDate.of(2025, 6, endDay));
+    }
+
+    private static void assertRanges(List<DateRange> expected, List<DateRange> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(expected.get(i).isIdenticalToAnotherDateRange(actual.get(i)), "range " + i);
+        }
+    }
+
+    @Test
+    void subtractWithoutOverlapKeepsTheWholeRange() {
+        assertRanges(List.of(range(1, 5)), range(1, 5).subtract(range(5, 8)));
+    }
+
+    @Test
+    void subtractCoveringRangeLeavesNothing() {
+        assertTrue(range(3, 5).subtract(range(1, 8)).isEmpty());
+        assertTrue(range(3, 5).subtract(range(3, 5)).isEmpty());
+    }
+
+    @Test
+    void subtractShiftedRangeKeepsTheUncoveredEnd() {
+        assertRanges(List.of(range(1, 3)), range(1, 5).subtract(range(3, 8)));
+        assertRanges(List.of(range(6, 8)), range(4, 8).subtract(range(1, 6)));
+    }
+
+    @Test
+    void subtractInnerRangeSplitsTheRange() {
+        assertRanges(List.of(range(1, 3), range(5, 8)), range(1, 8).subtract(range(3, 5)));
+    }
+}
@@ -0,0 +1,54 @@
+package com.Java24GroupProject.AirBnBPlatform.models.supportClasses;
+
+import com.Java24GroupProject.AirBnBPlatform.exceptions.IllegalArgumentException;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ReviewPageCursorTest {
+
+    @Test
+    void decodeGivesBackTheEncodedCursor() {
+        ReviewPageCursor cursor = new ReviewPageCursor(4.5, LocalDateTime.of(2025, 3, 1, 12, 30, 15, 123_000_000), new ObjectId().toHexString());
+
+        assertEquals(cursor, ReviewPageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void decodeKeepsWholeMinutesAndWholeRatings() {
+        //LocalDateTime.toString leaves out zero seconds, e.g. "2025-03-01T12:30"
+        ReviewPageCursor cursor = new ReviewPageCursor(5, LocalDateTime.of(2025, 3, 1, 12, 30), new ObjectId().toHexString());
+
+        assertEquals(cursor, ReviewPageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void reviewsWithTheSameSortValuesGetDifferentCursors() {
+        LocalDateTime createdAt = LocalDateTime.of(2025, 3, 1, 12, 30);
+        ReviewPageCursor first = new ReviewPageCursor(4, createdAt, new ObjectId().toHexString());
+        ReviewPageCursor second = new ReviewPageCursor(4, createdAt, new ObjectId().toHexString());
+
+        assertNotEquals(first.encode(), second.encode());
+        assertEquals(second.reviewId(), ReviewPageCursor.decode(second.encode()).reviewId());
+    }
+
+    @Test
+    void decodeRejectsInvalidCursors() {
+        assertThrows(IllegalArgumentException.class, () -> ReviewPageCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> ReviewPageCursor.decode(encode("4.0|2025-03-01T12:30")));
+        assertThrows(IllegalArgumentException.class, () -> ReviewPageCursor.decode(encode("4.0|2025-03-01T12:30|not-an-id")));
+        assertThrows(IllegalArgumentException.class, () -> ReviewPageCursor.decode(encode("four|2025-03-01T12:30|" + new ObjectId().toHexString())));
+        assertThrows(IllegalArgumentException.class, () -> ReviewPageCursor.decode(encode("4.0|yesterday|" + new ObjectId().toHexString())));
+    }
+
+    private static String encode(String value) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
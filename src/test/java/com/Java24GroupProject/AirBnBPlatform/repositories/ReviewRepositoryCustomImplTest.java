@@ -0,0 +1,60 @@
+package com.Java24GroupProject.AirBnBPlatform.repositories;
+
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ReviewPageCursor;
+import com.Java24GroupProject.AirBnBPlatform.models.supportClasses.ReviewSort;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ReviewRepositoryCustomImplTest {
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2025, 3, 1, 12, 30);
+    private static final ObjectId REVIEW_ID = new ObjectId();
+    private static final ReviewPageCursor CURSOR = new ReviewPageCursor(4.0, CREATED_AT, REVIEW_ID.toHexString());
+
+    @Test
+    void newestBreaksCreatedAtTiesWithSmallerIds() {
+        Document expected = new Document("$or", List.of(
+                new Document("createdAt", new Document("$lt", CREATED_AT)),
+                new Document("createdAt", CREATED_AT).append("_id", new Document("$lt", REVIEW_ID))));
+
+        assertEquals(expected, ReviewRepositoryCustomImpl.afterCursor(ReviewSort.NEWEST, CURSOR).getCriteriaObject());
+    }
+
+    @Test
+    void oldestBreaksCreatedAtTiesWithLargerIds() {
+        Document expected = new Document("$or", List.of(
+                new Document("createdAt", new Document("$gt", CREATED_AT)),
+                new Document("createdAt", CREATED_AT).append("_id", new Document("$gt", REVIEW_ID))));
+
+        assertEquals(expected, ReviewRepositoryCustomImpl.afterCursor(ReviewSort.OLDEST, CURSOR).getCriteriaObject());
+    }
+
+    @Test
+    void highestRatedBreaksRatingTiesWithCreatedAtAndThenId() {
+        Document afterTime = new Document("$or", List.of(
+                new Document("createdAt", new Document("$lt", CREATED_AT)),
+                new Document("createdAt", CREATED_AT).append("_id", new Document("$lt", REVIEW_ID))));
+        Document expected = new Document("$or", List.of(
+                new Document("rating", new Document("$lt", 4.0)),
+                new Document("$and", List.of(new Document("rating", 4.0), afterTime))));
+
+        assertEquals(expected, ReviewRepositoryCustomImpl.afterCursor(ReviewSort.HIGHEST_RATED, CURSOR).getCriteriaObject());
+    }
+
+    @Test
+    void lowestRatedBreaksRatingTiesWithCreatedAtAndThenId() {
+        Document afterTime = new Document("$or", List.of(
+                new Document("createdAt", new Document("$gt", CREATED_AT)),
+                new Document("createdAt", CREATED_AT).append("_id", new Document("$gt", REVIEW_ID))));
+        Document expected = new Document("$or", List.of(
+                new Document("rating", new Document("$gt", 4.0)),
+                new Document("$and", List.of(new Document("rating", 4.0), afterTime))));
+
+        assertEquals(expected, ReviewRepositoryCustomImpl.afterCursor(ReviewSort.LOWEST_RATED, CURSOR).getCriteriaObject());
+    }
+}
@@ -0,0 +1,85 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BloomFilterTest {
+
+    @Test
+    void containsEveryAddedValue() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        List<String> values = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            //the same formats as TokenRevocationService uses
+            values.add(i % 2 == 0 ? "jti:" + UUID.randomUUID() : "user:user" + i);
+        }
+        values.forEach(filter::add);
+
+        for (String value : values) {
+            assertTrue(filter.mightContain(value), value);
+        }
+    }
+
+    @Test
+    void falsePositiveRateIsCloseToTheConfiguredRate() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.add("jti:" + UUID.randomUUID());
+        }
+
+        int checks = 100_000;
+        int falsePositives = 0;
+        for (int i = 0; i < checks; i++) {
+            if (filter.mightContain("jti:" + UUID.randomUUID())) {
+                falsePositives++;
+            }
+        }
+        //1% configured, allow up to 2% so the test does not fail on an unlucky run
+        double rate = (double) falsePositives / checks;
+        assertTrue(rate < 0.02, "false positive rate " + rate);
+    }
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(100, 0.01);
+
+        assertFalse(filter.mightContain("jti:" + UUID.randomUUID()));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void noValuesAreLostWhenAddedFromSeveralThreads() throws Exception {
+        BloomFilter filter = new BloomFilter(40_000, 0.01);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                results.add(executor.submit(() -> {
+                    List<String> added = new ArrayList<>();
+                    for (int i = 0; i < 10_000; i++) {
+                        String value = "jti:" + UUID.randomUUID();
+                        filter.add(value);
+                        added.add(value);
+                    }
+                    return added;
+                }));
+            }
+            for (Future<List<String>> result : results) {
+                for (String value : result.get()) {
+                    assertTrue(filter.mightContain(value), value);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
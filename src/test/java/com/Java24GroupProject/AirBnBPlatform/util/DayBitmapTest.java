@@ -0,0 +1,67 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DayBitmapTest {
+
+    @Test
+    void findRunStartsAcrossMonthBoundary() {
+        DayBitmap available = new DayBitmap(LocalDate.of(2025, 1, 20), 100);
+        //nights Jan 28 - Feb 2
+        available.setRange(LocalDate.of(2025, 1, 28), LocalDate.of(2025, 2, 3));
+
+        assertEquals(List.of(LocalDate.of(2025, 1, 28), LocalDate.of(2025, 1, 29), LocalDate.of(2025, 1, 30), LocalDate.of(2025, 1, 31)),
+                runStarts(available.findRunStarts(3)));
+        assertEquals(List.of(LocalDate.of(2025, 1, 28)), runStarts(available.findRunStarts(6)));
+        assertEquals(List.of(), runStarts(available.findRunStarts(7)));
+    }
+
+    @Test
+    void findRunStartsAcrossWordAndMonthBoundary() {
+        //night 64 (the first night of the second word) is May 4
+        DayBitmap available = new DayBitmap(LocalDate.of(2025, 3, 1), 120);
+        //nights Apr 28 - May 4 (indexes 58 - 64)
+        available.setRange(LocalDate.of(2025, 4, 28), LocalDate.of(2025, 5, 5));
+
+        assertEquals(List.of(LocalDate.of(2025, 4, 28), LocalDate.of(2025, 4, 29), LocalDate.of(2025, 4, 30)),
+                runStarts(available.findRunStarts(5)));
+        assertEquals(List.of(LocalDate.of(2025, 4, 28)), runStarts(available.findRunStarts(7)));
+        assertEquals(7, available.count());
+    }
+
+    @Test
+    void findRunStartsSeparatesRunsOnNeighbouringMonths() {
+        DayBitmap available = new DayBitmap(LocalDate.of(2024, 12, 1), 90);
+        //nights Dec 29 - Dec 31 and Jan 2 - Jan 4, Jan 1 is not available
+        available.setRange(LocalDate.of(2024, 12, 29), LocalDate.of(2025, 1, 1));
+        available.setRange(LocalDate.of(2025, 1, 2), LocalDate.of(2025, 1, 5));
+
+        assertEquals(List.of(LocalDate.of(2024, 12, 29), LocalDate.of(2025, 1, 2)), runStarts(available.findRunStarts(3)));
+        assertEquals(List.of(), runStarts(available.findRunStarts(4)));
+    }
+
+    @Test
+    void findRunStartsDoesNotRunPastTheLastNight() {
+        DayBitmap available = new DayBitmap(LocalDate.of(2025, 1, 1), 40);
+        //the last 3 nights, nights after the bitmap are ignored
+        available.setRange(LocalDate.of(2025, 2, 7), LocalDate.of(2025, 3, 1));
+
+        assertEquals(3, available.count());
+        assertEquals(List.of(LocalDate.of(2025, 2, 7)), runStarts(available.findRunStarts(3)));
+        assertEquals(List.of(), runStarts(available.findRunStarts(4)));
+    }
+
+    private static List<LocalDate> runStarts(DayBitmap runStarts) {
+        List<LocalDate> nights = new ArrayList<>();
+        for (int index = runStarts.nextSetIndex(0); index != -1; index = runStarts.nextSetIndex(index + 1)) {
+            nights.add(runStarts.nightAt(index));
+        }
+        return nights;
+    }
+}
@@ -0,0 +1,87 @@
+package com.Java24GroupProject.AirBnBPlatform.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntervalTreeTest {
+
+    private record Interval(long start, long end) {
+    }
+
+    private static IntervalTree<Interval> tree(Interval... intervals) {
+        return new IntervalTree<>(List.of(intervals), Interval::start, Interval::end);
+    }
+
+    private static List<Interval> overlaps(IntervalTree<Interval> tree, long start, long end) {
+        List<Interval> found = new ArrayList<>();
+        tree.forEachOverlap(start, end, index -> found.add(tree.get(index)));
+        return found;
+    }
+
+    @Test
+    void intervalsTouchingAtTheEdgesDoNotOverlap() {
+        IntervalTree<Interval> tree = tree(new Interval(10, 20));
+
+        //half-open: [0, 10) ends where the interval starts, [20, 30) starts where it ends
+        assertEquals(List.of(), overlaps(tree, 0, 10));
+        assertEquals(List.of(), overlaps(tree, 20, 30));
+        assertEquals(List.of(new Interval(10, 20)), overlaps(tree, 9, 11));
+        assertEquals(List.of(new Interval(10, 20)), overlaps(tree, 19, 20));
+        assertEquals(List.of(new Interval(10, 20)), overlaps(tree, 10, 20));
+    }
+
+    @Test
+    void findsAdjacentIntervalsOnlyWhenTheRangeCoversTheirNights() {
+        IntervalTree<Interval> tree = tree(new Interval(20, 30), new Interval(0, 10), new Interval(10, 20));
+
+        assertEquals(List.of(new Interval(10, 20)), overlaps(tree, 10, 20));
+        assertEquals(List.of(new Interval(0, 10), new Interval(10, 20)), overlaps(tree, 9, 11));
+        assertEquals(List.of(new Interval(0, 10), new Interval(10, 20), new Interval(20, 30)), overlaps(tree, 0, 30));
+        assertEquals(List.of(), overlaps(tree, 30, 40));
+    }
+
+    @Test
+    void findsLongIntervalStoredLeftOfTheQuery() {
+        //the long interval starts first but ends after all the short ones, only the max end of the subtree finds it
+        IntervalTree<Interval> tree = tree(new Interval(0, 100), new Interval(1, 2), new Interval(3, 4), new Interval(5, 6), new Interval(7, 8));
+
+        assertEquals(List.of(new Interval(0, 100)), overlaps(tree, 50, 60));
+        assertEquals(List.of(new Interval(0, 100)), overlaps(tree, 99, 100));
+        assertEquals(List.of(), overlaps(tree, 100, 101));
+    }
+
+    @Test
+    void stopsWhenTheVisitorReturnsFalse() {
+        IntervalTree<Interval> tree = tree(new Interval(0, 10), new Interval(5, 15), new Interval(8, 20));
+
+        List<Integer> visited = new ArrayList<>();
+        assertFalse(tree.forEachOverlap(9, 10, index -> visited.add(index) && false));
+        assertEquals(1, visited.size());
+        assertTrue(tree.forEachOverlap(50, 60, index -> false));
+    }
+
+    @Test
+    void matchesLinearScan() {
+        Random random = new Random(42);
+        List<Interval> intervals = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            long start = random.nextInt(1000);
+            intervals.add(new Interval(start, start + 1 + random.nextInt(30)));
+        }
+        IntervalTree<Interval> tree = new IntervalTree<>(intervals, Interval::start, Interval::end);
+
+        for (int i = 0; i < 500; i++) {
+            long start = random.nextInt(1050) - 25;
+            long end = start + 1 + random.nextInt(40);
+            long expected = intervals.stream().filter(interval -> interval.start() < end && interval.end() > start).count();
+            assertEquals(expected, overlaps(tree, start, end).size(), "overlaps of [" + start + ", " + end + ")");
+        }
+    }
+}